@@ -0,0 +1,173 @@
+package log.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.LongSupplier;
+
+/**
+ * AIMD limit on concurrent PUTs, steered by what S3 answers.
+ * <p>
+ * Every healthy completion while the limit is in use adds {@code 1/limit}, i.e. about one more PUT
+ * per round of uploads. A completion slower than {@code tolerance} times the baseline latency
+ * shrinks the limit by 10%, and a throttling response (503/429 SlowDown) or timeout halves it. Only
+ * PUTs started after the last decrease can decrease the limit again, so a burst of failures sent
+ * under the old limit counts once. The baseline is the lowest latency seen, drifting slowly towards recent samples so
+ * it follows a cluster whose normal speed changes during the day.
+ * <p>
+ * Latencies are normalized by the same cost model for every file: a fixed per-request overhead worth
+ * {@link #OVERHEAD_BYTES} plus the bytes sent, so a healthy PUT of any size gives about the same sample.
+ */
+public class AdaptiveConcurrencyLimiter implements UploadConcurrencyMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    // A PUT's fixed cost (request, connection, S3's commit), counted as this many bytes of transfer
+    private static final double OVERHEAD_BYTES = 1024 * 1024;
+    private static final double LATENCY_BACKOFF = 0.9;
+    private static final double THROTTLE_BACKOFF = 0.5;
+    // Fraction of the gap to each sample the baseline moves up by
+    private static final double BASELINE_DRIFT = 0.001;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final LongSupplier nanoClock;
+
+    private double limit;
+    private int inFlight;
+    private double baselineNanos;
+    private long lastDecreaseNanos;
+    private long successCount;
+    private long throttledCount;
+    private long latencyBackoffCount;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this(initialLimit, minLimit, maxLimit, tolerance, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid upload concurrency limits: initial=%d, min=%d, max=%d", initialLimit, minLimit, maxLimit));
+        }
+        if (tolerance <= 1.0) {
+            throw new IllegalArgumentException("Upload latency tolerance must be greater than 1: " + tolerance);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.nanoClock = nanoClock;
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Waits for a slot under the current limit; returns the {@link System#nanoTime()} the PUT starts at.
+     */
+    public synchronized long acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * Releases a slot after a successful PUT of {@code bytes} started at {@code startedNanos}.
+     */
+    public synchronized void onSuccess(long startedNanos, long bytes) {
+        // Only a round that used the whole limit says anything about a larger one
+        boolean limitInUse = inFlight >= (int) limit;
+        release();
+        successCount++;
+        // Nanos per overhead-sized unit of work: one for the request itself plus one per OVERHEAD_BYTES sent
+        double sample = (nanoClock.getAsLong() - startedNanos) / (1.0 + bytes / OVERHEAD_BYTES);
+        if (baselineNanos == 0 || sample < baselineNanos) {
+            baselineNanos = sample;
+        } else {
+            baselineNanos += (sample - baselineNanos) * BASELINE_DRIFT;
+        }
+
+        if (sample > baselineNanos * tolerance) {
+            if (decrease(startedNanos, LATENCY_BACKOFF)) {
+                latencyBackoffCount++;
+                logger.debug("Normalized upload latency {} ms above {}x baseline {} ms, concurrency limit now {}",
+                        Math.round(sample / 1e6), tolerance, Math.round(baselineNanos / 1e6), (int) limit);
+            }
+        } else if (limitInUse && limit < maxLimit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Releases a slot after a PUT started at {@code startedNanos} that was throttled or timed out.
+     */
+    public synchronized void onThrottle(long startedNanos) {
+        release();
+        throttledCount++;
+        if (decrease(startedNanos, THROTTLE_BACKOFF)) {
+            logger.info("S3 throttled an upload, concurrency limit now {}", (int) limit);
+        }
+    }
+
+    /**
+     * Releases a slot after a PUT that failed for a reason unrelated to load; the limit is unchanged.
+     */
+    public synchronized void onFailure() {
+        release();
+    }
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    private boolean decrease(long startedNanos, double factor) {
+        if (startedNanos - lastDecreaseNanos < 0) {
+            return false;
+        }
+        lastDecreaseNanos = nanoClock.getAsLong();
+        limit = Math.max(minLimit, limit * factor);
+        return true;
+    }
+
+    @Override
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    @Override
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    @Override
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    @Override
+    public synchronized double getBaselineLatencyMillis() {
+        return baselineNanos / 1e6;
+    }
+
+    @Override
+    public synchronized long getSuccessCount() {
+        return successCount;
+    }
+
+    @Override
+    public synchronized long getThrottledCount() {
+        return throttledCount;
+    }
+
+    @Override
+    public synchronized long getLatencyBackoffCount() {
+        return latencyBackoffCount;
+    }
+}
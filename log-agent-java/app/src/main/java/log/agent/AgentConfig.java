@@ -47,6 +47,15 @@ public class AgentConfig {
         // Optional boolean validation with default
         props.putIfAbsent("s3.disableSSL", "false");
         props.putIfAbsent("s3.pathStyleAccess", "true"); // Default to true for Scality
+        props.putIfAbsent("manifest.enabled", "true");
+        // Adaptive upload concurrency: starts at initial, moves between min and max
+        props.putIfAbsent("upload.concurrency.initial", "2");
+        props.putIfAbsent("upload.concurrency.min", "1");
+        props.putIfAbsent("upload.concurrency.max", "16");
+        props.putIfAbsent("upload.latency.tolerance", "1.5");
+        // Per-attempt and whole-call limits of a PUT; a timed-out PUT counts as throttled
+        props.putIfAbsent("upload.timeout.attempt.seconds", "120");
+        props.putIfAbsent("upload.timeout.call.seconds", "300");
 
         try {
             Boolean.parseBoolean(props.getProperty("s3.disableSSL"));
@@ -59,6 +68,28 @@ public class AgentConfig {
             throw new IllegalArgumentException("Invalid boolean value for s3.pathStyleAccess: " + props.getProperty("s3.pathStyleAccess"));
         }
 
+        for (String key : new String[]{"upload.concurrency.initial", "upload.concurrency.min", "upload.concurrency.max"}) {
+            try {
+                Integer.parseInt(props.getProperty(key).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid integer value for " + key + ": " + props.getProperty(key));
+            }
+        }
+        for (String key : new String[]{"upload.timeout.attempt.seconds", "upload.timeout.call.seconds"}) {
+            try {
+                if (Long.parseLong(props.getProperty(key).trim()) <= 0) {
+                    throw new IllegalArgumentException("Timeout must be positive for " + key + ": " + props.getProperty(key));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid integer value for " + key + ": " + props.getProperty(key));
+            }
+        }
+        try {
+            Double.parseDouble(props.getProperty("upload.latency.tolerance").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for upload.latency.tolerance: " + props.getProperty("upload.latency.tolerance"));
+        }
+
         logger.debug("Configuration properties validated successfully.");
     }
 }
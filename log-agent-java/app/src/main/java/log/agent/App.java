@@ -3,7 +3,9 @@ package log.agent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
@@ -37,8 +39,14 @@ public class App {
             S3Uploader uploader = new S3Uploader(props, vmIP);
             logger.info("S3 Uploader initialized.");
 
+            // Current upload concurrency limit and throttling counts, for JMX monitoring
+            AdaptiveConcurrencyLimiter limiter = uploader.getConcurrencyLimiter();
+            ManagementFactory.getPlatformMBeanServer().registerMBean(limiter, new ObjectName("log.agent:type=UploadConcurrency"));
+            logger.info("Upload concurrency starts at {} (min {}, max {}).", limiter.getLimit(), limiter.getMinLimit(), limiter.getMaxLimit());
+            UploadScheduler scheduler = new UploadScheduler(uploader);
+
             Path dirToWatch = Paths.get(props.getProperty("log.directory"));
-            DirectoryWatcher watcher = new DirectoryWatcher(dirToWatch, uploader);
+            DirectoryWatcher watcher = new DirectoryWatcher(dirToWatch, scheduler);
 
             // Perform initial scan
             logger.info("Performing initial scan of directory: {}", dirToWatch);
@@ -48,6 +56,7 @@ public class App {
             // Start watching
             logger.info("Starting to watch directory: {}", dirToWatch);
             watcher.watch(); // This will block
+            scheduler.shutdown();
 
         } catch (IOException e) {
             logger.error("Failed to load configuration from {}: {}", configPath, e.getMessage(), e);
@@ -11,15 +11,15 @@ import java.util.stream.Stream;
 public class DirectoryWatcher {
     private static final Logger logger = LoggerFactory.getLogger(DirectoryWatcher.class);
     private final Path dirToWatch;
-    private final S3Uploader uploader;
+    private final UploadScheduler scheduler;
     private final WatchService watchService;
 
-    public DirectoryWatcher(Path dirToWatch, S3Uploader uploader) throws IOException {
+    public DirectoryWatcher(Path dirToWatch, UploadScheduler scheduler) throws IOException {
         if (!Files.isDirectory(dirToWatch)) {
             throw new IOException("Provided path is not a directory: " + dirToWatch);
         }
         this.dirToWatch = dirToWatch;
-        this.uploader = uploader;
+        this.scheduler = scheduler;
         this.watchService = FileSystems.getDefault().newWatchService();
         // Register the directory to watch for entry creation and modification events.
         // ENTRY_DELETE could be added if needed, but upload is typically on create/modify.
@@ -38,7 +38,7 @@ public class DirectoryWatcher {
                       logger.info("Found existing log file during initial scan: {}", path.getFileName());
                       // Add a small delay or check modification time if needed to avoid uploading partial files
                       // For simplicity here, we just attempt upload.
-                      uploader.uploadFile(path);
+                      scheduler.submit(path);
                   });
         } catch (IOException e) {
             logger.error("Error during initial scan of directory {}: {}", dirToWatch, e.getMessage(), e);
@@ -87,7 +87,7 @@ public class DirectoryWatcher {
                                 logger.warn("Watch delay interrupted for file {}", filePath.getFileName());
                             }
                             logger.info("Processing event [{}] for log file: {}", kind.name(), filePath.getFileName());
-                            uploader.uploadFile(filePath);
+                            scheduler.submit(filePath);
                         } else {
                             logger.debug("Ignoring event for non-regular file or directory: {}", filePath);
                         }
@@ -0,0 +1,253 @@
+package log.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains one manifest object per env/app/ip/date next to the uploaded logs, so the dashboard can
+ * refresh a day's listing with a single GET per VM instead of paginated LIST calls.
+ * <p>
+ * The manifest of {@code ENV/App/IP/YYYY-MM-DD/} is stored as {@code ENV/App/IP/YYYY-MM-DD.manifest.json},
+ * outside the date prefix, and holds the key, size, sequence, ETag and last-modified time of every
+ * file; the sequence is left out for names that carry none. The first upload of a date after the agent starts seeds the entries from one LIST of the
+ * agent's own prefix, which also picks up files uploaded before a restart or by older agents.
+ */
+public class ManifestWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ManifestWriter.class);
+
+    public static final String MANIFEST_SUFFIX = ".manifest.json";
+    private static final int MANIFEST_VERSION = 1;
+    // Dates whose entries are kept in memory; older dates are re-seeded from S3 if files still arrive
+    private static final int MAX_DATES = 7;
+    private static final Pattern SEQUENCE_PATTERN = Pattern.compile(".*?-(\\d+)\\.log$");
+    private static final int NO_SEQUENCE = -1;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    // Shared with the log uploads, so manifest PUTs count against the same limit
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    // Manifest state per date prefix; access-ordered so the least recently uploaded date is dropped first
+    private final Map<String, DateManifest> manifests = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DateManifest> eldest) {
+            // A date still being written stays, so its writer is never joined by a second one
+            return size() > MAX_DATES && !eldest.getValue().writing;
+        }
+    };
+
+    public ManifestWriter(S3Client s3Client, String bucketName, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Manifest key of a date prefix such as {@code ENV/App/IP/YYYY-MM-DD/}.
+     */
+    public static String manifestKey(String datePrefix) {
+        return datePrefix.substring(0, datePrefix.length() - 1) + MANIFEST_SUFFIX;
+    }
+
+    /**
+     * Records a successful upload and rewrites the date's manifest. Failures are logged and leave the
+     * manifest stale; the dashboard still finds the file on its next full refresh, which always uses LIST.
+     * <p>
+     * Each date has at most one writer: an upload recorded while its manifest is being written returns
+     * at once, and the writer rewrites the manifest once more with every entry added in the meantime.
+     */
+    public void recordUpload(String datePrefix, String key, long size, String etag, Instant uploadedAt) {
+        DateManifest manifest;
+        synchronized (manifests) {
+            manifest = manifests.computeIfAbsent(datePrefix, prefix -> new DateManifest());
+        }
+        synchronized (manifest) {
+            manifest.entries.put(key, new Entry(key, size, sequenceOf(key), etag, uploadedAt));
+            manifest.dirty = true;
+            if (manifest.writing) {
+                return;
+            }
+            manifest.writing = true;
+        }
+        writeUntilClean(datePrefix, manifest);
+    }
+
+    private void writeUntilClean(String datePrefix, DateManifest manifest) {
+        String manifestKey = manifestKey(datePrefix);
+        try {
+            if (!manifest.seeded) {
+                Map<String, Entry> listed = seedFromListing(datePrefix);
+                synchronized (manifest) {
+                    // Uploads recorded while listing are newer than what the listing returned
+                    listed.forEach(manifest.entries::putIfAbsent);
+                    manifest.seeded = true;
+                }
+            }
+            while (true) {
+                String json;
+                int fileCount;
+                synchronized (manifest) {
+                    if (!manifest.dirty) {
+                        manifest.writing = false;
+                        return;
+                    }
+                    manifest.dirty = false;
+                    json = toJson(datePrefix, manifest.entries);
+                    fileCount = manifest.entries.size();
+                }
+                PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(manifestKey)
+                        .contentType("application/json")
+                        .build();
+                RequestBody requestBody = RequestBody.fromString(json, StandardCharsets.UTF_8);
+                long started = concurrencyLimiter.acquire();
+                try {
+                    s3Client.putObject(putObjectRequest, requestBody);
+                } catch (RuntimeException e) {
+                    if (S3Uploader.isOverloaded(e)) {
+                        concurrencyLimiter.onThrottle(started);
+                    } else {
+                        concurrencyLimiter.onFailure();
+                    }
+                    throw e;
+                }
+                concurrencyLimiter.onSuccess(started, requestBody.optionalContentLength().orElse(0L));
+                logger.debug("Updated manifest s3://{}/{} ({} files)", bucketName, manifestKey, fileCount);
+            }
+        } catch (S3Exception e) {
+            logger.error("Failed to update manifest for s3://{}/{}: {} (AWS Error Code: {})",
+                    bucketName, datePrefix, e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
+            reset(manifest);
+        } catch (SdkClientException e) {
+            logger.error("Failed to update manifest for s3://{}/{} due to client-side error: {}", bucketName, datePrefix, e.getMessage(), e);
+            reset(manifest);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Manifest update for s3://{}/{} interrupted while waiting for a slot", bucketName, datePrefix);
+            reset(manifest);
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error updating manifest for s3://{}/{}: {}", bucketName, datePrefix, e.getMessage(), e);
+            reset(manifest);
+        }
+    }
+
+    // Re-seed on the next upload rather than trust entries that may be incomplete
+    private static void reset(DateManifest manifest) {
+        synchronized (manifest) {
+            manifest.seeded = false;
+            manifest.writing = false;
+        }
+    }
+
+    private Map<String, Entry> seedFromListing(String datePrefix) {
+        Map<String, Entry> entries = new TreeMap<>();
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(datePrefix)
+                .build();
+        ListObjectsV2Response response;
+        do {
+            response = s3Client.listObjectsV2(request);
+            for (S3Object s3Object : response.contents()) {
+                entries.put(s3Object.key(), new Entry(s3Object.key(), s3Object.size(), sequenceOf(s3Object.key()),
+                        s3Object.eTag(), s3Object.lastModified()));
+            }
+            request = request.toBuilder().continuationToken(response.nextContinuationToken()).build();
+        } while (response.isTruncated());
+        logger.info("Seeded manifest for s3://{}/{} with {} existing files", bucketName, datePrefix, entries.size());
+        return entries;
+    }
+
+    // NO_SEQUENCE for names without one; the dashboard then derives it from the key as it does for LIST results
+    private static int sequenceOf(String key) {
+        Matcher matcher = SEQUENCE_PATTERN.matcher(key);
+        if (matcher.matches()) {
+            try {
+                return Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return NO_SEQUENCE;
+            }
+        }
+        return NO_SEQUENCE;
+    }
+
+    private static String toJson(String datePrefix, Map<String, Entry> entries) {
+        StringBuilder json = new StringBuilder(128 + entries.size() * 160);
+        json.append("{\"version\":").append(MANIFEST_VERSION)
+                .append(",\"prefix\":").append(quote(datePrefix))
+                .append(",\"updatedAt\":").append(quote(Instant.now().toString()))
+                .append(",\"files\":[");
+        boolean first = true;
+        for (Entry entry : entries.values()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"key\":").append(quote(entry.key))
+                    .append(",\"size\":").append(entry.size);
+            if (entry.sequence != NO_SEQUENCE) {
+                json.append(",\"sequence\":").append(entry.sequence);
+            }
+            json.append(",\"etag\":").append(entry.etag == null ? "null" : quote(entry.etag))
+                    .append(",\"lastModified\":").append(quote(entry.lastModified.toString()))
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // Guarded by its own monitor; the writing flag is also read by the eviction check
+    private static final class DateManifest {
+        // Sorted by key, so the manifest is stable between rewrites
+        private final Map<String, Entry> entries = new TreeMap<>();
+        private boolean seeded;
+        private boolean dirty;
+        private volatile boolean writing;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final long size;
+        private final int sequence;
+        private final String etag;
+        private final Instant lastModified;
+
+        Entry(String key, long size, int sequence, String etag, Instant lastModified) {
+            this.key = key;
+            this.size = size;
+            this.sequence = sequence;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -4,24 +4,38 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.retry.RetryUtils;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.http.TlsTrustManagersProvider;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.retries.DefaultRetryStrategy;
+import software.amazon.awssdk.retries.api.RetryStrategy;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -31,17 +45,24 @@ import java.util.regex.Pattern;
 
 public class S3Uploader {
     private static final Logger logger = LoggerFactory.getLogger(S3Uploader.class);
+
+    public enum UploadResult { UPLOADED, SKIPPED, THROTTLED, FAILED }
+
     private final S3Client s3Client;
     private final String bucketName;
     private final String environment;
     private final String appName;
     private final String vmIP;
+    private final ManifestWriter manifestWriter; // null when manifests are disabled
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
 
     // Regex to find date DD-MM-YYYY and sequence number N in filenames like service-DD-MM-YYYY-N.log
     // Captures DD, MM, YYYY, N
     private static final Pattern LOG_FILE_PATTERN = Pattern.compile(".*?-(\\d{2})-(\\d{2})-(\\d{4})-(\\d+)\\.log$");
     private static final DateTimeFormatter S3_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter FILENAME_DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    // Retries of errors other than throttling and timeouts, e.g. a 500 or a reset connection
+    private static final int SDK_RETRIES = 2;
 
     public S3Uploader(Properties props, String vmIP) throws IllegalArgumentException {
         this.bucketName = props.getProperty("s3.bucket");
@@ -67,12 +88,26 @@ public class S3Uploader {
                 .pathStyleAccessEnabled(pathStyleAccess)
                 .build();
 
+        // Throttling and timeouts are not retried inside the SDK: the adaptive limiter has to see each one,
+        // and the scheduler retries throttled uploads after a delay. Other transient errors still are.
+        // The strategy starts without conditions, as each added condition only widens what is retried.
+        RetryStrategy retryStrategy = DefaultRetryStrategy.standardStrategyBuilder()
+                .maxAttempts(SDK_RETRIES + 1)
+                .retryOnException(e -> !isOverloaded(e) && isTransient(e))
+                .build();
+        ClientOverrideConfiguration overrideConfiguration = ClientOverrideConfiguration.builder()
+                .retryStrategy(retryStrategy)
+                .apiCallAttemptTimeout(Duration.ofSeconds(Long.parseLong(props.getProperty("upload.timeout.attempt.seconds", "120").trim())))
+                .apiCallTimeout(Duration.ofSeconds(Long.parseLong(props.getProperty("upload.timeout.call.seconds", "300").trim())))
+                .build();
+
         try {
             this.s3Client = S3Client.builder()
                     .region(region) // Provide a region
                     .endpointOverride(URI.create(endpoint))
                     .credentialsProvider(credentialsProvider)
                     .serviceConfiguration(s3Configuration)
+                    .overrideConfiguration(overrideConfiguration)
                     .httpClient(httpClient)
                     .build();
             logger.info("S3 Client initialized for endpoint: {}, bucket: {}", endpoint, bucketName);
@@ -80,6 +115,19 @@ public class S3Uploader {
             logger.error("Failed to initialize S3 client: {}", e.getMessage(), e);
             throw new IllegalArgumentException("Failed to initialize S3 client", e);
         }
+
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(
+                Integer.parseInt(props.getProperty("upload.concurrency.initial", "2").trim()),
+                Integer.parseInt(props.getProperty("upload.concurrency.min", "1").trim()),
+                Integer.parseInt(props.getProperty("upload.concurrency.max", "16").trim()),
+                Double.parseDouble(props.getProperty("upload.latency.tolerance", "1.5").trim()));
+
+        boolean manifestEnabled = Boolean.parseBoolean(props.getProperty("manifest.enabled", "true"));
+        this.manifestWriter = manifestEnabled ? new ManifestWriter(s3Client, bucketName, concurrencyLimiter) : null;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
     }
 
     private SdkHttpClient buildHttpClient(boolean disableSSL) {
@@ -113,13 +161,16 @@ public class S3Uploader {
         return builder.build();
     }
 
-    public void uploadFile(Path filePath) {
+    /**
+     * Uploads one log file, waiting for a slot under the adaptive concurrency limit for the PUT itself.
+     */
+    public UploadResult uploadFile(Path filePath) {
         String fileName = filePath.getFileName().toString();
         Matcher matcher = LOG_FILE_PATTERN.matcher(fileName);
 
         if (!matcher.matches()) {
             logger.debug("Skipping file {}: does not match expected pattern *-DD-MM-YYYY-N.log", fileName);
-            return;
+            return UploadResult.SKIPPED;
         }
 
         try {
@@ -132,13 +183,13 @@ public class S3Uploader {
             LocalDate logDate = LocalDate.parse(dateStringInput, FILENAME_DATE_FORMAT);
             String dateStringS3 = logDate.format(S3_DATE_FORMAT); // Format as YYYY-MM-DD
 
-            String s3Key = String.format("%s/%s/%s/%s/%s",
+            String datePrefix = String.format("%s/%s/%s/%s/",
                     this.environment,
                     this.appName,
                     this.vmIP,
-                    dateStringS3,
-                    fileName
+                    dateStringS3
             );
+            String s3Key = datePrefix + fileName;
 
             logger.info("Attempting to upload {} to s3://{}/{}", fileName, bucketName, s3Key);
 
@@ -147,20 +198,74 @@ public class S3Uploader {
                     .key(s3Key)
                     .build();
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromFile(filePath));
+            // The body's length is fixed when it is created, so it is the size of what was uploaded
+            RequestBody requestBody = RequestBody.fromFile(filePath);
+            long size = requestBody.optionalContentLength().orElse(0L);
+            PutObjectResponse putObjectResponse;
+            long started = concurrencyLimiter.acquire();
+            try {
+                putObjectResponse = s3Client.putObject(putObjectRequest, requestBody);
+            } catch (RuntimeException e) {
+                if (isOverloaded(e)) {
+                    concurrencyLimiter.onThrottle(started);
+                } else {
+                    concurrencyLimiter.onFailure();
+                }
+                throw e;
+            }
+            concurrencyLimiter.onSuccess(started, size);
 
             logger.info("Successfully uploaded {} to s3://{}/{}", fileName, bucketName, s3Key);
 
+            if (manifestWriter != null) {
+                manifestWriter.recordUpload(datePrefix, s3Key, size, putObjectResponse.eTag(), Instant.now());
+            }
+            return UploadResult.UPLOADED;
+
         } catch (DateTimeParseException e) {
             logger.warn("Skipping file {}: failed to parse date from filename: {}", fileName, e.getMessage());
+            return UploadResult.SKIPPED;
         } catch (S3Exception e) {
             logger.error("Failed to upload {} to S3 (Bucket: {} Key: {}): {} (AWS Error Code: {})",
                     fileName, bucketName, "calculated_key", e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
+            return isOverloaded(e) ? UploadResult.THROTTLED : UploadResult.FAILED;
         } catch (SdkClientException e) {
             logger.error("Failed to upload {} to S3 due to client-side error: {}", fileName, e.getMessage(), e);
+            return isOverloaded(e) ? UploadResult.THROTTLED : UploadResult.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Upload of {} interrupted while waiting for a slot", fileName);
+            return UploadResult.FAILED;
         } catch (Exception e) {
             logger.error("An unexpected error occurred during upload of {}: {}", fileName, e.getMessage(), e);
+            return UploadResult.FAILED;
+        }
+    }
+
+    // Responses that mean the cluster is at capacity: SlowDown (503), 429, and calls that timed out
+    static boolean isOverloaded(Throwable e) {
+        if (e instanceof S3Exception) {
+            S3Exception s3Exception = (S3Exception) e;
+            String errorCode = s3Exception.awsErrorDetails() != null ? s3Exception.awsErrorDetails().errorCode() : null;
+            return s3Exception.statusCode() == 503 || s3Exception.statusCode() == 429 || "SlowDown".equals(errorCode);
+        }
+        return e instanceof ApiCallTimeoutException || e instanceof ApiCallAttemptTimeoutException
+                || e.getCause() instanceof SocketTimeoutException;
+    }
+
+    // What the SDK's default strategy retries besides throttling: I/O errors, 5xx answers and clock skew
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof UncheckedIOException) {
+                return true;
+            }
+        }
+        if (!(e instanceof SdkException)) {
+            return false;
         }
+        SdkException sdkException = (SdkException) e;
+        return RetryUtils.isRetryableException(sdkException) || RetryUtils.isClockSkewException(sdkException)
+                || (sdkException instanceof SdkServiceException && ((SdkServiceException) sdkException).statusCode() >= 500);
     }
 }
 
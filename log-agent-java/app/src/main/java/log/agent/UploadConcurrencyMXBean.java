@@ -0,0 +1,35 @@
+package log.agent;
+
+/**
+ * JMX view of the adaptive upload limiter, registered as {@code log.agent:type=UploadConcurrency}.
+ */
+public interface UploadConcurrencyMXBean {
+
+    /**
+     * PUTs currently allowed in flight.
+     */
+    int getLimit();
+
+    int getInFlight();
+
+    int getMinLimit();
+
+    int getMaxLimit();
+
+    /**
+     * Normalized PUT latency (per request plus MiB sent, see {@link AdaptiveConcurrencyLimiter}) the limiter considers healthy.
+     */
+    double getBaselineLatencyMillis();
+
+    long getSuccessCount();
+
+    /**
+     * PUTs rejected with 503/429 (SlowDown) or timed out.
+     */
+    long getThrottledCount();
+
+    /**
+     * Decreases of the limit caused by latency above the tolerated multiple of the baseline.
+     */
+    long getLatencyBackoffCount();
+}
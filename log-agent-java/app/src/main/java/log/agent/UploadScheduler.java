@@ -0,0 +1,100 @@
+package log.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs uploads off the watcher thread, as many at once as the uploader's adaptive limiter allows.
+ * <p>
+ * A file is never uploaded twice at the same time: events for a file that is still queued are
+ * dropped, and a file modified during its upload is uploaded once more afterwards, so the newest
+ * content always lands last. Throttled uploads are retried with a growing delay.
+ */
+public class UploadScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(UploadScheduler.class);
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_DELAY_SECONDS = 5;
+
+    private enum State { QUEUED, RUNNING, RUNNING_MODIFIED }
+
+    private final S3Uploader uploader;
+    // One thread per possible slot; the limiter decides how many of them upload at once
+    private final ExecutorService workers;
+    private final ScheduledExecutorService retries;
+    private final Map<Path, State> states = new HashMap<>();
+
+    public UploadScheduler(S3Uploader uploader) {
+        this.uploader = uploader;
+        this.workers = Executors.newFixedThreadPool(uploader.getConcurrencyLimiter().getMaxLimit(), daemonThreads("s3-upload"));
+        this.retries = Executors.newSingleThreadScheduledExecutor(daemonThreads("s3-upload-retry"));
+    }
+
+    /**
+     * Queues an upload of the file, unless one is already queued.
+     */
+    public synchronized void submit(Path filePath) {
+        State state = states.get(filePath);
+        if (state == null) {
+            states.put(filePath, State.QUEUED);
+            workers.execute(() -> run(filePath, 1));
+        } else if (state == State.RUNNING) {
+            states.put(filePath, State.RUNNING_MODIFIED);
+        }
+    }
+
+    /**
+     * Stops accepting retries and waits briefly for uploads already running.
+     */
+    public void shutdown() {
+        retries.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warn("Uploads still running after 30s; stopping without waiting for them.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Path filePath, int attempt) {
+        synchronized (this) {
+            states.put(filePath, State.RUNNING);
+        }
+        S3Uploader.UploadResult result = uploader.uploadFile(filePath);
+        synchronized (this) {
+            State state = states.remove(filePath);
+            if (state == State.RUNNING_MODIFIED) {
+                submit(filePath);
+            } else if (result == S3Uploader.UploadResult.THROTTLED && attempt < MAX_ATTEMPTS) {
+                long delay = RETRY_DELAY_SECONDS * attempt;
+                logger.info("Retrying throttled upload of {} in {}s (attempt {}/{})", filePath.getFileName(), delay, attempt + 1, MAX_ATTEMPTS);
+                states.put(filePath, State.QUEUED);
+                retries.schedule(() -> workers.execute(() -> run(filePath, attempt + 1)), delay, TimeUnit.SECONDS);
+            } else if (result == S3Uploader.UploadResult.THROTTLED) {
+                logger.error("Giving up on {} after {} throttled attempts; it is uploaded again on its next change or agent restart",
+                        filePath.getFileName(), attempt);
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package log.agent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    // Large enough that no latency sample counts as slow
+    private static final double ANY_LATENCY = 1e12;
+    private static final long KIB = 1024;
+    private static final long MIB = 1024 * KIB;
+    private static final long MILLIS = 1_000_000;
+
+    private long nanos;
+
+    @Test void growsByOneOverLimitPerFullRound() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, ANY_LATENCY);
+        fullRound(limiter);
+        // Only the completion that found every slot taken counts: 2 + 1/2
+        assertEquals(2, limiter.getLimit());
+        fullRound(limiter);
+        fullRound(limiter);
+        // 2.5 + 1/2.5 + 1/2.9
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(6, limiter.getSuccessCount());
+    }
+
+    @Test void doesNotGrowWhileTheLimitIsUnused() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, ANY_LATENCY);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSuccess(limiter.acquire(), 1024);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test void staysWithinMaximum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 3, ANY_LATENCY);
+        for (int i = 0; i < 20; i++) {
+            fullRound(limiter);
+        }
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test void throttlingHalvesDownToMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, ANY_LATENCY);
+        limiter.onThrottle(limiter.acquire());
+        assertEquals(4, limiter.getLimit());
+        limiter.onThrottle(limiter.acquire());
+        assertEquals(2, limiter.getLimit());
+        limiter.onThrottle(limiter.acquire());
+        assertEquals(2, limiter.getLimit());
+        assertEquals(3, limiter.getThrottledCount());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test void burstSentUnderTheOldLimitDecreasesOnce() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, ANY_LATENCY);
+        long[] started = new long[4];
+        for (int i = 0; i < started.length; i++) {
+            started[i] = limiter.acquire();
+        }
+        for (long startedNanos : started) {
+            limiter.onThrottle(startedNanos);
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(4, limiter.getThrottledCount());
+
+        // A PUT started after the decrease can decrease again
+        limiter.onThrottle(limiter.acquire());
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test void slowCompletionBacksOffByATenth() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 2.0, () -> nanos);
+        put(limiter, KIB, 10 * MILLIS);
+        put(limiter, KIB, 15 * MILLIS);
+        assertEquals(10, limiter.getLimit());
+
+        put(limiter, KIB, 25 * MILLIS);
+        assertEquals(9, limiter.getLimit());
+        assertEquals(1, limiter.getLatencyBackoffCount());
+        assertEquals(3, limiter.getSuccessCount());
+    }
+
+    @Test void mixedFileSizesCompareOnOneScale() throws InterruptedException {
+        // A healthy S3: 10 ms per request plus 10 ms per MiB, whatever the file size
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 1.5, () -> nanos);
+        for (int round = 0; round < 5; round++) {
+            for (long bytes : new long[] {KIB, 900 * KIB, 5 * MIB, 100 * MIB}) {
+                put(limiter, bytes, 10 * MILLIS + bytes * 10 * MILLIS / MIB);
+            }
+        }
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getLatencyBackoffCount());
+        assertEquals(10.0, limiter.getBaselineLatencyMillis(), 0.1);
+
+        // A large file that is slow for its size still backs off
+        put(limiter, 100 * MIB, 3 * (10 * MILLIS + 100 * 10 * MILLIS));
+        assertEquals(3, limiter.getLimit());
+        assertEquals(1, limiter.getLatencyBackoffCount());
+    }
+
+    @Test void failureLeavesTheLimitAlone() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, ANY_LATENCY);
+        limiter.acquire();
+        limiter.acquire();
+        limiter.onFailure();
+        limiter.onFailure();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getSuccessCount());
+    }
+
+    @Test void acquireWaitsForAFreeSlot() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, ANY_LATENCY);
+        limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        limiter.onFailure();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+        waiter.join();
+    }
+
+    @Test void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 0, 4, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(2, 3, 2, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 2, 4, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(5, 2, 4, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(2, 1, 4, 1.0));
+    }
+
+    // One PUT of bytes that takes the given time on the test clock
+    private void put(AdaptiveConcurrencyLimiter limiter, long bytes, long latencyNanos) throws InterruptedException {
+        long started = limiter.acquire();
+        nanos += latencyNanos;
+        limiter.onSuccess(started, bytes);
+    }
+
+    // Fills every slot of the current limit, then completes them all
+    private static void fullRound(AdaptiveConcurrencyLimiter limiter) throws InterruptedException {
+        int slots = limiter.getLimit();
+        long[] started = new long[slots];
+        for (int i = 0; i < slots; i++) {
+            started[i] = limiter.acquire();
+        }
+        for (long startedNanos : started) {
+            limiter.onSuccess(startedNanos, 1024);
+        }
+    }
+}
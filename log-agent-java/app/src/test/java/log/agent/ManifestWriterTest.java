@@ -0,0 +1,187 @@
+package log.agent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestWriterTest {
+
+    private static final String BUCKET = "logs";
+    private static final String DATE_PREFIX = "prod/app/10.0.0.1/2024-05-01/";
+    private static final Instant UPLOADED_AT = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final StubS3Client s3Client = new StubS3Client();
+    private final ManifestWriter writer = new ManifestWriter(s3Client, BUCKET,
+            new AdaptiveConcurrencyLimiter(4, 1, 8, 1e12));
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test void manifestKeyIsNextToTheDatePrefix() {
+        assertEquals("prod/app/10.0.0.1/2024-05-01.manifest.json", ManifestWriter.manifestKey(DATE_PREFIX));
+    }
+
+    @Test void firstUploadSeedsFromOneListing() {
+        s3Client.listed.add(object("app-01-05-2024-1.log", 100));
+        s3Client.listed.add(object("app-01-05-2024-2.log", 200));
+
+        writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-3.log", 300, "\"e3\"", UPLOADED_AT);
+        writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-4.log", 400, "\"e4\"", UPLOADED_AT);
+
+        assertEquals(1, s3Client.lists.get());
+        assertEquals(2, s3Client.puts.size());
+        assertEquals("prod/app/10.0.0.1/2024-05-01.manifest.json", s3Client.putKeys.get(1));
+        String manifest = s3Client.puts.get(1);
+        for (int sequence = 1; sequence <= 4; sequence++) {
+            assertTrue(manifest.contains("{\"key\":\"" + DATE_PREFIX + "app-01-05-2024-" + sequence + ".log\",\"size\":"
+                    + sequence * 100 + ",\"sequence\":" + sequence + ","), manifest);
+        }
+        assertTrue(manifest.contains("\"etag\":\"\\\"e4\\\"\""), manifest);
+        assertTrue(manifest.contains("\"lastModified\":\"2024-05-01T10:00:00Z\""), manifest);
+    }
+
+    @Test void uploadsRecordedWhileListingAreKept() {
+        s3Client.listed.add(object("app-01-05-2024-1.log", 100));
+        // The listing already sees the file being recorded, with older details
+        s3Client.listed.add(object("app-01-05-2024-2.log", 1));
+
+        writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-2.log", 200, "\"e2\"", UPLOADED_AT);
+
+        String manifest = s3Client.puts.get(0);
+        assertTrue(manifest.contains("app-01-05-2024-2.log\",\"size\":200,"), manifest);
+        assertFalse(manifest.contains("app-01-05-2024-2.log\",\"size\":1,"), manifest);
+    }
+
+    @Test void namesWithoutASequenceHaveNoSequenceField() {
+        writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app.log", 10, "\"e\"", UPLOADED_AT);
+
+        String manifest = s3Client.puts.get(0);
+        assertTrue(manifest.contains("{\"key\":\"" + DATE_PREFIX + "app.log\",\"size\":10,\"etag\":"), manifest);
+        assertFalse(manifest.contains("\"sequence\""), manifest);
+    }
+
+    @Test void uploadsDuringAWriteAreCoalescedIntoOneMorePut() throws Exception {
+        CountDownLatch putStarted = new CountDownLatch(1);
+        CountDownLatch releasePut = new CountDownLatch(1);
+        s3Client.beforePut = put -> {
+            if (put == 1) {
+                putStarted.countDown();
+                await(releasePut);
+            }
+        };
+        Future<?> first = executor.submit(() ->
+                writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-1.log", 1, "\"e1\"", UPLOADED_AT));
+        assertTrue(putStarted.await(5, TimeUnit.SECONDS));
+
+        // Each returns at once, leaving its entry to the writer
+        for (int sequence = 2; sequence <= 5; sequence++) {
+            writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-" + sequence + ".log", sequence, "\"e\"", UPLOADED_AT);
+        }
+        assertEquals(1, s3Client.putAttempts.get());
+
+        releasePut.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(2, s3Client.puts.size());
+        for (int sequence = 1; sequence <= 5; sequence++) {
+            assertTrue(s3Client.puts.get(1).contains("app-01-05-2024-" + sequence + ".log"));
+        }
+        assertEquals(1, s3Client.lists.get());
+    }
+
+    @Test void failedWriteSeedsAgainOnTheNextUpload() {
+        s3Client.beforePut = put -> {
+            if (put == 1) {
+                throw SdkClientException.create("connection reset");
+            }
+        };
+        writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-1.log", 1, "\"e1\"", UPLOADED_AT);
+        assertEquals(1, s3Client.lists.get());
+
+        writer.recordUpload(DATE_PREFIX, DATE_PREFIX + "app-01-05-2024-2.log", 2, "\"e2\"", UPLOADED_AT);
+        assertEquals(2, s3Client.lists.get());
+        assertEquals(1, s3Client.puts.size());
+        // The entry of the failed write is still written
+        assertTrue(s3Client.puts.get(0).contains("app-01-05-2024-1.log"));
+    }
+
+    private static S3Object object(String fileName, long size) {
+        return S3Object.builder()
+                .key(DATE_PREFIX + fileName)
+                .size(size)
+                .eTag("\"listed\"")
+                .lastModified(Instant.parse("2024-05-01T09:00:00Z"))
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Lists the objects in listed as one page and records the body of every PUT that beforePut lets through
+    private static final class StubS3Client implements S3Client {
+        final List<S3Object> listed = new CopyOnWriteArrayList<>();
+        final List<String> puts = new CopyOnWriteArrayList<>();
+        final List<String> putKeys = new CopyOnWriteArrayList<>();
+        final AtomicInteger lists = new AtomicInteger();
+        final AtomicInteger putAttempts = new AtomicInteger();
+        volatile IntConsumer beforePut = put -> { };
+
+        @Override
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+            lists.incrementAndGet();
+            return ListObjectsV2Response.builder().contents(listed).isTruncated(false).build();
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+            beforePut.accept(putAttempts.incrementAndGet());
+            try (InputStream body = requestBody.contentStreamProvider().newStream()) {
+                puts.add(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            putKeys.add(request.key());
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package log.dashboard.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the S3 API subset the dashboard uses: path-style ListObjectsV2 (prefix,
+ * delimiter, start-after, continuation), HeadObject and GetObject with ranges and If-None-Match.
+ * <p>
+ * Objects are {@link SyntheticLogs} generated on demand, so any number and size of objects can be
+ * served; only their keys are held. Signatures are not checked. An optional first-byte latency makes
+ * the timings closer to a real object store.
+ */
+public final class FakeS3Server implements AutoCloseable {
+
+    private static final int MAX_KEYS = 1000;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final DateTimeFormatter ISO_MILLIS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Duration latency;
+    private final Map<String, NavigableMap<String, FakeObject>> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+
+    private FakeS3Server(HttpServer server, ExecutorService executor, Duration latency) {
+        this.server = server;
+        this.executor = executor;
+        this.latency = latency;
+    }
+
+    /**
+     * Starts a server on a free local port.
+     */
+    public static FakeS3Server start(Duration latency) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-s3-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        FakeS3Server fake = new FakeS3Server(server, executor, latency);
+        server.createContext("/", fake::handle);
+        server.setExecutor(executor);
+        server.start();
+        return fake;
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Adds a synthetic log object; its content is derived from {@code date} (the key's date) and {@code seed}.
+     */
+    public void putObject(String bucket, String key, String date, int seed, long size, Instant lastModified) {
+        buckets.computeIfAbsent(bucket, name -> new ConcurrentSkipListMap<>())
+                .put(key, new FakeObject(date, seed, size, lastModified));
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public long bytesServed() {
+        return bytesServed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+            String path = exchange.getRequestURI().getPath();
+            int slash = path.indexOf('/', 1);
+            String bucket = slash < 0 ? path.substring(1) : path.substring(1, slash);
+            String key = slash < 0 ? "" : path.substring(slash + 1);
+            NavigableMap<String, FakeObject> objects = buckets.get(bucket);
+            if (objects == null) {
+                sendError(exchange, 404, "NoSuchBucket", bucket);
+            } else if (key.isEmpty() && "GET".equals(exchange.getRequestMethod())) {
+                listObjects(exchange, bucket, objects, queryParameters(exchange.getRequestURI()));
+            } else if (!objects.containsKey(key)) {
+                sendError(exchange, 404, "NoSuchKey", key);
+            } else if ("HEAD".equals(exchange.getRequestMethod()) || "GET".equals(exchange.getRequestMethod())) {
+                getObject(exchange, objects.get(key), "GET".equals(exchange.getRequestMethod()));
+            } else {
+                sendError(exchange, 405, "MethodNotAllowed", exchange.getRequestMethod());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void listObjects(HttpExchange exchange, String bucket, NavigableMap<String, FakeObject> objects,
+                             Map<String, String> parameters) throws IOException {
+        String prefix = parameters.getOrDefault("prefix", "");
+        String delimiter = parameters.get("delimiter");
+        String token = parameters.get("continuation-token");
+        String after = token != null ? token : parameters.get("start-after");
+        int maxKeys = Math.min(MAX_KEYS, Integer.parseInt(parameters.getOrDefault("max-keys", String.valueOf(MAX_KEYS))));
+
+        StringBuilder contents = new StringBuilder();
+        int count = 0;
+        String last = null;
+        String lastPrefix = null;
+        boolean truncated = false;
+        NavigableMap<String, FakeObject> candidates = after != null && after.compareTo(prefix) >= 0
+                ? objects.tailMap(after, false)
+                : objects.tailMap(prefix, true);
+        for (Map.Entry<String, FakeObject> entry : candidates.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            // A page that ended on a common prefix resumes after everything below it
+            if (after != null && delimiter != null && after.endsWith(delimiter) && key.startsWith(after)) {
+                continue;
+            }
+            int delimiterAt = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            String commonPrefix = delimiterAt < 0 ? null : key.substring(0, delimiterAt + delimiter.length());
+            if (commonPrefix != null && commonPrefix.equals(lastPrefix)) {
+                continue;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (commonPrefix != null) {
+                contents.append("<CommonPrefixes><Prefix>").append(xml(commonPrefix)).append("</Prefix></CommonPrefixes>");
+                lastPrefix = commonPrefix;
+                last = commonPrefix;
+            } else {
+                FakeObject object = entry.getValue();
+                contents.append("<Contents><Key>").append(xml(key)).append("</Key>")
+                        .append("<LastModified>").append(ISO_MILLIS.format(object.lastModified)).append("</LastModified>")
+                        .append("<ETag>&quot;").append(object.etag).append("&quot;</ETag>")
+                        .append("<Size>").append(object.size).append("</Size>")
+                        .append("<StorageClass>STANDARD</StorageClass></Contents>");
+                last = key;
+            }
+            count++;
+        }
+
+        StringBuilder body = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(xml(bucket)).append("</Name>")
+                .append("<Prefix>").append(xml(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(count).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (delimiter != null) {
+            body.append("<Delimiter>").append(xml(delimiter)).append("</Delimiter>");
+        }
+        if (truncated) {
+            body.append("<NextContinuationToken>").append(xml(last)).append("</NextContinuationToken>");
+        }
+        body.append(contents).append("</ListBucketResult>");
+        sendXml(exchange, 200, body.toString());
+    }
+
+    private void getObject(HttpExchange exchange, FakeObject object, boolean withBody) throws IOException {
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag + "\"");
+        exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified.atOffset(ZoneOffset.UTC)));
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.replace("\"", "").equals(object.etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        long first = 0;
+        long last = object.size - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            first = Long.parseLong(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                last = Math.min(last, Long.parseLong(bounds[1]));
+            }
+            if (first > last) {
+                sendError(exchange, 416, "InvalidRange", range);
+                return;
+            }
+            status = 206;
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + object.size);
+        }
+        long length = last - first + 1;
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        if (!withBody) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.size));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (long position = first; position <= last; position += CHUNK_SIZE) {
+                int count = (int) Math.min(CHUNK_SIZE, last - position + 1);
+                SyntheticLogs.read(object.date, object.seed, object.size, position, chunk, 0, count);
+                out.write(chunk, 0, count);
+                bytesServed.addAndGet(count);
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code, String resource) throws IOException {
+        sendXml(exchange, status, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code + "</Code><Message>"
+                + xml(code + ": " + resource) + "</Message><Resource>" + xml(resource) + "</Resource></Error>");
+    }
+
+    private static void sendXml(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> queryParameters(URI uri) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    private static String xml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static final class FakeObject {
+        private final String date;
+        private final int seed;
+        private final long size;
+        private final Instant lastModified;
+        private final String etag;
+
+        FakeObject(String date, int seed, long size, Instant lastModified) {
+            this.date = date;
+            this.seed = seed;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.etag = Long.toHexString(((long) seed << 32) ^ size ^ date.hashCode());
+        }
+    }
+}
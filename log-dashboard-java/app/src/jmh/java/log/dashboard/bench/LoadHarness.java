@@ -0,0 +1,319 @@
+package log.dashboard.bench;
+
+import log.dashboard.LogDashboardApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Boots the dashboard against a {@link FakeS3Server} seeded with synthetic logs and drives its
+ * endpoints with concurrent users, one scenario at a time. Per scenario it reports latency
+ * percentiles, throughput, peak heap and GC count/time, on stdout and as CSV.
+ * <p>
+ * Run with {@code ./gradlew loadTest}; sizes are set with {@code -Pload.<name>=<value>}, e.g.
+ * {@code -Pload.users=100 -Pload.filesPerVm=500}. The dashboard runs in this JVM, so the heap and GC
+ * figures are the server's plus the (small) load generator's.
+ */
+public final class LoadHarness {
+
+    private static final String BUCKET = "bench-logs";
+    private static final String ENV = "prod";
+    private static final String APP = "shop";
+    private static final String BIG_APP = "shop-batch";
+    private static final String DATE = "2024-05-01";
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final int users;
+    private final Duration warmup;
+    private final Duration duration;
+
+    private LoadHarness(String baseUrl, int users, Duration warmup, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int vms = Integer.getInteger("load.vms", 20);
+        int filesPerVm = Integer.getInteger("load.filesPerVm", 500);
+        long fileSize = Long.getLong("load.fileSize", 64 * 1024);
+        long bigFileSize = Long.getLong("load.bigFileSize", 2L * 1024 * 1024 * 1024);
+        int users = Integer.getInteger("load.users", 100);
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.durationSeconds", 20));
+        Duration s3Latency = Duration.ofMillis(Long.getLong("load.s3LatencyMillis", 20));
+        Path report = Path.of(System.getProperty("load.report", "build/reports/load-test/report.csv"));
+
+        try (FakeS3Server s3 = FakeS3Server.start(s3Latency)) {
+            List<String> keys = seed(s3, vms, filesPerVm, fileSize);
+            String bigKey = ENV + "/" + BIG_APP + "/10.0.1.1/" + DATE + "/" + BIG_APP + "-01-05-2024-1.log";
+            s3.putObject(BUCKET, bigKey, DATE, 1, bigFileSize, Instant.parse(DATE + "T23:59:59Z"));
+            System.out.printf(Locale.ROOT, "Fake S3 at %s: %d objects of %d bytes, one of %d bytes%n",
+                    s3.endpoint(), keys.size(), fileSize, bigFileSize);
+
+            Path dataDirectory = Files.createTempDirectory("log-dashboard-load");
+            try (ConfigurableApplicationContext context = boot(s3.endpoint(), dataDirectory)) {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                LoadHarness harness = new LoadHarness("http://127.0.0.1:" + port, users, warmup, duration);
+                String scope = "bucket=" + BUCKET + "&env=" + ENV + "&appName=" + APP + "&date=" + DATE;
+
+                List<Result> results = new ArrayList<>();
+                results.add(harness.run("list", () -> "/api/logs?" + scope));
+                results.add(harness.run("content", () -> "/api/log-content?bucket=" + BUCKET + "&key=" + encode(random(keys))));
+                results.add(harness.run("content-big-filtered", () -> "/api/log-content?bucket=" + BUCKET + "&key=" + encode(bigKey)
+                        + "&level=ERROR" + randomWindow()));
+                results.add(harness.run("search", () -> "/api/search?" + scope + "&query=" + SyntheticLogs.NEEDLE));
+                results.add(harness.run("search-filtered", () -> "/api/search?" + scope + "&query=" + SyntheticLogs.NEEDLE
+                        + "&level=WARN" + randomWindow()));
+                results.add(harness.run("merged", () -> "/api/merged?" + scope + randomWindow() + "&limit=500"));
+                results.add(harness.run("analytics", () -> "/api/analytics?" + scope + "&resolution=5"));
+
+                System.out.printf(Locale.ROOT, "Fake S3 served %d requests, %d MB%n", s3.requestCount(), s3.bytesServed() >> 20);
+                print(results, report);
+            }
+        }
+    }
+
+    private static List<String> seed(FakeS3Server s3, int vms, int filesPerVm, long fileSize) {
+        List<String> keys = new ArrayList<>(vms * filesPerVm);
+        Instant lastModified = Instant.parse(DATE + "T23:59:59Z");
+        for (int vm = 0; vm < vms; vm++) {
+            for (int sequence = 1; sequence <= filesPerVm; sequence++) {
+                String key = ENV + "/" + APP + "/10.0." + (vm / 250) + "." + (vm % 250 + 1) + "/" + DATE + "/"
+                        + APP + "-01-05-2024-" + sequence + ".log";
+                s3.putObject(BUCKET, key, DATE, vm * filesPerVm + sequence, fileSize, lastModified);
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static ConfigurableApplicationContext boot(String endpoint, Path dataDirectory) {
+        // Command-line arguments take precedence over application.properties, which imports Vault
+        return new SpringApplicationBuilder(LogDashboardApplication.class).run(
+                "--server.port=0",
+                "--spring.cloud.vault.enabled=false",
+                "--spring.config.import=optional:vault://",
+                "--s3config.endpoint=" + endpoint,
+                "--s3config.buckets[0].name=" + BUCKET,
+                "--s3config.buckets[0].access-key=bench",
+                "--s3config.buckets[0].secret-key=bench",
+                "--dashboard.analytics.directory=" + dataDirectory.resolve("analytics"),
+                "--dashboard.index.directory=" + dataDirectory.resolve("index"),
+                "--logging.level.log.dashboard=WARN");
+    }
+
+    private Result run(String name, Supplier<String> paths) throws InterruptedException {
+        System.out.printf(Locale.ROOT, "Running %s with %d users for %s (after %s warm-up)%n", name, users, duration, warmup);
+        drive(paths, warmup, null);
+
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        Result result = new Result(name);
+        long started = System.nanoTime();
+        drive(paths, duration, result);
+        result.elapsedNanos = System.nanoTime() - started;
+        result.gcCount = gcCount() - gcCountBefore;
+        result.gcMillis = gcTime() - gcTimeBefore;
+        for (MemoryPoolMXBean pool : heapPools) {
+            result.peakHeapBytes += pool.getPeakUsage().getUsed();
+        }
+        return result;
+    }
+
+    // Runs the users in closed loops until the deadline; with a null result nothing is recorded
+    private void drive(Supplier<String> paths, Duration length, Result result) throws InterruptedException {
+        long deadline = System.nanoTime() + length.toNanos();
+        List<Thread> threads = new ArrayList<>(users);
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        for (int i = 0; i < users; i++) {
+            LatencyLog log = new LatencyLog();
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + paths.get()))
+                            .timeout(Duration.ofMinutes(2))
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                        long read = 0;
+                        try (InputStream body = response.body()) {
+                            for (int n; (n = body.read(buffer)) >= 0; ) {
+                                read += n;
+                            }
+                        }
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        bytes.addAndGet(read);
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    log.add(System.nanoTime() - start);
+                }
+            }, "load-user-" + i);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> errors.incrementAndGet());
+            threads.add(thread);
+            if (result != null) {
+                result.logs.add(log);
+            }
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (result != null) {
+            result.bytes = bytes.get();
+            result.errors = errors.get();
+        }
+    }
+
+    private static void print(List<Result> results, Path report) throws IOException {
+        String header = String.format(Locale.ROOT, "%-22s %9s %7s %9s %9s %9s %9s %9s %9s %10s %6s %8s",
+                "scenario", "requests", "errors", "req/s", "MB/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "peak heap", "GCs", "GC ms");
+        System.out.println(header);
+        List<String> csv = new ArrayList<>();
+        csv.add("scenario,requests,errors,requests_per_second,mb_per_second,p50_ms,p90_ms,p99_ms,max_ms,peak_heap_mb,gc_count,gc_ms");
+        for (Result result : results) {
+            long[] sorted = result.sortedLatencies();
+            double seconds = result.elapsedNanos / 1e9;
+            double throughput = sorted.length / seconds;
+            double megabytesPerSecond = result.bytes / seconds / (1 << 20);
+            System.out.println(String.format(Locale.ROOT, "%-22s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %8dMB %6d %8d",
+                    result.name, sorted.length, result.errors, throughput, megabytesPerSecond,
+                    millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 1.0),
+                    result.peakHeapBytes >> 20, result.gcCount, result.gcMillis));
+            csv.add(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d,%d,%d",
+                    result.name, sorted.length, result.errors, throughput, megabytesPerSecond,
+                    millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 1.0),
+                    result.peakHeapBytes >> 20, result.gcCount, result.gcMillis));
+        }
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(report))) {
+            csv.forEach(writer::println);
+        }
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+    private static String random(List<String> keys) {
+        return keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+    }
+
+    // A random five-minute window of the day
+    private static String randomWindow() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int hour = random.nextInt(24);
+        int tens = random.nextInt(6);
+        return String.format(Locale.ROOT, "&from=%02d:%d0&to=%02d:%d5", hour, tens, hour, tens);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // Latencies of one user, appended by that user's thread only
+    private static final class LatencyLog {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+    }
+
+    private static final class Result {
+        private final String name;
+        private final List<LatencyLog> logs = new ArrayList<>();
+        private long elapsedNanos;
+        private long bytes;
+        private long errors;
+        private long peakHeapBytes;
+        private long gcCount;
+        private long gcMillis;
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        long[] sortedLatencies() {
+            int total = 0;
+            for (LatencyLog log : logs) {
+                total += log.size;
+            }
+            long[] all = new long[total];
+            int position = 0;
+            for (LatencyLog log : logs) {
+                System.arraycopy(log.values, 0, all, position, log.size);
+                position += log.size;
+            }
+            Arrays.sort(all);
+            return all;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package log.dashboard.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Deterministic synthetic log content in the dashboard's default layout ({@code %d %p [%t] %c - %m}).
+ * <p>
+ * Every line is exactly {@link #LINE_LENGTH} bytes, so any byte range of an object of any size can be
+ * produced on demand without holding the object: a multi-GB file costs no memory. Timestamps spread
+ * the lines evenly over the object's date, in order. About one line in 25 is WARN and one in 200 ERROR;
+ * {@link #NEEDLE} appears in roughly one line per 50,000, depending on the object's seed.
+ */
+public final class SyntheticLogs {
+
+    public static final int LINE_LENGTH = 128;
+    public static final String NEEDLE = "PaymentDeclined";
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final String[] LOGGERS = {
+            "log.shop.OrderService", "log.shop.CartController", "log.shop.PaymentClient", "log.shop.InventoryRepository"
+    };
+    private static final String[] MESSAGES = {
+            "Processed request in ", "Cache refreshed, entries=", "Order accepted id=", "Retrying upstream call attempt="
+    };
+
+    private SyntheticLogs() {
+    }
+
+    /**
+     * Writes line {@code index} of an object of {@code lineCount} lines to {@code buffer} at {@code offset}.
+     */
+    public static void writeLine(String date, int seed, long index, long lineCount, byte[] buffer, int offset) {
+        long millis = index * MILLIS_PER_DAY / Math.max(1, lineCount);
+        StringBuilder line = new StringBuilder(LINE_LENGTH);
+        line.append(date).append(' ');
+        appendTwoDigits(line, (int) (millis / 3_600_000)).append(':');
+        appendTwoDigits(line, (int) (millis / 60_000 % 60)).append(':');
+        appendTwoDigits(line, (int) (millis / 1000 % 60)).append(',');
+        int fraction = (int) (millis % 1000);
+        line.append(fraction < 100 ? "0" : "").append(fraction < 10 ? "0" : "").append(fraction);
+        line.append(index % 200 == 0 ? " ERROR" : index % 25 == 0 ? " WARN" : " INFO");
+        line.append(" [worker-").append(index % 16).append("] ");
+        int variant = (int) ((index + seed) & 3);
+        line.append(LOGGERS[variant]).append(" - ");
+        if ((index * 31 + seed) % 50_021 == 0) {
+            line.append(NEEDLE).append(" for order ").append(index);
+        } else {
+            line.append(MESSAGES[variant]).append(index % 977);
+        }
+        byte[] text = line.toString().getBytes(StandardCharsets.US_ASCII);
+        int length = Math.min(text.length, LINE_LENGTH - 1);
+        System.arraycopy(text, 0, buffer, offset, length);
+        for (int i = length; i < LINE_LENGTH - 1; i++) {
+            buffer[offset + i] = ' ';
+        }
+        buffer[offset + LINE_LENGTH - 1] = '\n';
+    }
+
+    /**
+     * Copies bytes {@code [position, position + length)} of an object of {@code size} bytes to {@code buffer}.
+     */
+    public static void read(String date, int seed, long size, long position, byte[] buffer, int offset, int length) {
+        long lineCount = size / LINE_LENGTH;
+        byte[] line = new byte[LINE_LENGTH];
+        long index = position / LINE_LENGTH;
+        int skip = (int) (position % LINE_LENGTH);
+        int written = 0;
+        while (written < length) {
+            if (index < lineCount) {
+                writeLine(date, seed, index, lineCount, line, 0);
+            } else {
+                // A trailing partial line when size is not a multiple of the line length
+                Arrays.fill(line, (byte) ' ');
+                line[LINE_LENGTH - 1] = '\n';
+            }
+            int count = Math.min(LINE_LENGTH - skip, length - written);
+            System.arraycopy(line, skip, buffer, offset + written, count);
+            written += count;
+            skip = 0;
+            index++;
+        }
+    }
+
+    /**
+     * A whole object in memory, for benchmarks of in-process code.
+     */
+    public static byte[] generate(String date, int seed, int size) {
+        byte[] content = new byte[size];
+        read(date, seed, size, 0, content, 0, size);
+        return content;
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder builder, int value) {
+        return builder.append(value < 10 ? "0" : "").append(value);
+    }
+}
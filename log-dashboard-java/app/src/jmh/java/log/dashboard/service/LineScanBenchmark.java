@@ -0,0 +1,95 @@
+package log.dashboard.service;
+
+import log.dashboard.bench.SyntheticLogs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans of one in-memory log object the way searches, the viewer's filters and analytics read it:
+ * decoded lines with {@code String.contains}, byte lines through {@link LineReader} and
+ * {@link LogLineParser}, and the level/time filter stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LineScanBenchmark {
+
+    private static final String DATE = "2024-05-01";
+
+    @Param({"16777216"})
+    private int size;
+
+    private byte[] content;
+    private LogLineParser parser;
+    private LineFilter warnFilter;
+    private LineFilter windowFilter;
+
+    @Setup
+    public void setUp() {
+        content = SyntheticLogs.generate(DATE, 7, size);
+        parser = new LogLineParser("%d %p [%t] %c - %m");
+        warnFilter = LineFilter.of("WARN", DATE, null, null);
+        windowFilter = LineFilter.of(null, DATE, "11:00", "13:00");
+    }
+
+    @Benchmark
+    public int decodedContains() throws IOException {
+        int matches = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains(SyntheticLogs.NEEDLE)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int byteLinesParsed() throws IOException {
+        LineReader lines = new LineReader(new ByteArrayInputStream(content));
+        LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+        int warnings = 0;
+        while (lines.next()) {
+            if (parser.parse(lines.buffer(), lines.start(), lines.end(), parsed) && parsed.level != null
+                    && parsed.level.compareTo(LogLevel.WARN) >= 0) {
+                warnings++;
+            }
+        }
+        return warnings;
+    }
+
+    @Benchmark
+    public long levelFiltered() throws IOException {
+        return drain(new FilteredLineInputStream(new ByteArrayInputStream(content), parser, warnFilter));
+    }
+
+    @Benchmark
+    public long timeWindowFiltered() throws IOException {
+        return drain(new FilteredLineInputStream(new ByteArrayInputStream(content), parser, windowFilter));
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        for (int read; (read = in.read(buffer)) >= 0; ) {
+            total += read;
+        }
+        return total;
+    }
+}
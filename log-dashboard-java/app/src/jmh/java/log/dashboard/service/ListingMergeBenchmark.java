@@ -0,0 +1,77 @@
+package log.dashboard.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordering a 10k-object listing split over VM prefixes: sorting each VM's page as S3 returns it
+ * (lexicographic, so "-10.log" before "-2.log"), then merging the VMs versus sorting the whole day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListingMergeBenchmark {
+
+    private static final int FILES = 10_000;
+
+    @Param({"1", "20", "200"})
+    private int vms;
+
+    private List<List<LogFileEntry>> lexicographicByVm;
+    private List<List<LogFileEntry>> sortedByVm;
+
+    @Setup
+    public void setUp() {
+        lexicographicByVm = new ArrayList<>(vms);
+        sortedByVm = new ArrayList<>(vms);
+        Instant lastModified = Instant.parse("2024-05-01T23:59:59Z");
+        for (int vm = 0; vm < vms; vm++) {
+            List<LogFileEntry> entries = new ArrayList<>();
+            for (int sequence = 1; sequence <= FILES / vms; sequence++) {
+                String fileName = "shop-01-05-2024-" + sequence + ".log";
+                String key = "prod/shop/10.0.0." + vm + "/2024-05-01/" + fileName;
+                entries.add(new LogFileEntry(key, fileName, lastModified, 65_536, sequence, Integer.toHexString(key.hashCode())));
+            }
+            List<LogFileEntry> sorted = new ArrayList<>(entries);
+            entries.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+            lexicographicByVm.add(entries);
+            sortedByVm.add(sorted);
+        }
+    }
+
+    @Benchmark
+    public List<LogFileEntry> sortEachVm() {
+        List<LogFileEntry> last = null;
+        for (List<LogFileEntry> entries : lexicographicByVm) {
+            last = new ArrayList<>(entries);
+            last.sort(LogService.BY_SEQUENCE);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public List<LogFileEntry> mergeVms() {
+        return KWayMerge.merge(sortedByVm, LogService.BY_SEQUENCE);
+    }
+
+    @Benchmark
+    public List<LogFileEntry> sortWholeDay() {
+        List<LogFileEntry> all = new ArrayList<>(FILES);
+        for (List<LogFileEntry> entries : lexicographicByVm) {
+            all.addAll(entries);
+        }
+        all.sort(LogService.BY_SEQUENCE);
+        return all;
+    }
+}
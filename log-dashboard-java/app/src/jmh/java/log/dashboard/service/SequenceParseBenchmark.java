@@ -0,0 +1,42 @@
+package log.dashboard.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequence numbers of a 10k-object listing, as extracted from every listed key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SequenceParseBenchmark {
+
+    private static final int FILES = 10_000;
+
+    private String[] fileNames;
+
+    @Setup
+    public void setUp() {
+        fileNames = new String[FILES];
+        for (int i = 0; i < FILES; i++) {
+            // A few names without a sequence, as in real buckets
+            fileNames[i] = i % 100 == 0 ? "shop-01-05-2024.log" : "shop-01-05-2024-" + (i + 1) + ".log";
+        }
+    }
+
+    @Benchmark
+    public long extractAll() {
+        long sum = 0;
+        for (String fileName : fileNames) {
+            sum += LogService.extractSequenceNumber(fileName);
+        }
+        return sum;
+    }
+}
@@ -1,5 +1,6 @@
 import React, { useState, useEffect, useCallback } from 'react';
 import './App.css';
+import LogViewer from './LogViewer';
 
 // Define interfaces for API responses
 interface LogFileEntry {
@@ -18,7 +19,6 @@ function App() {
     const [date, setDate] = useState<string>(new Date().toISOString().split('T')[0]); // Default to today YYYY-MM-DD
     const [logFiles, setLogFiles] = useState<LogFileEntry[]>([]);
     const [selectedLogKey, setSelectedLogKey] = useState<string | null>(null);
-    const [logContent, setLogContent] = useState<string>('');
     const [loading, setLoading] = useState<boolean>(false);
     const [error, setError] = useState<string | null>(null);
     const [searchQuery, setSearchQuery] = useState<string>('');
@@ -60,7 +60,6 @@ function App() {
         setError(null);
         setLogFiles([]); // Clear previous logs
         setSelectedLogKey(null);
-        setLogContent('');
         setSearchResults([]); // Clear search results
 
         const params = new URLSearchParams({
@@ -93,34 +92,6 @@ function App() {
         fetchLogFiles();
     }, [fetchLogFiles]); // Dependency array includes the memoized function
 
-    // Function to fetch content of a selected log file
-    const fetchLogContent = useCallback((key: string) => {
-        if (!selectedBucket) return;
-        setLoading(true);
-        setError(null);
-        setLogContent('Loading content...');
-        setSelectedLogKey(key);
-
-        const params = new URLSearchParams({ bucket: selectedBucket, key: key });
-        fetch(`/api/log-content?${params.toString()}`)
-            .then(async response => {
-                const text = await response.text();
-                if (!response.ok) {
-                    throw new Error(`Failed to fetch log content: ${response.status} ${text}`);
-                }
-                return text;
-            })
-            .then(data => {
-                setLogContent(data);
-            })
-            .catch(err => {
-                console.error("Error fetching log content:", err);
-                setError(err.message);
-                setLogContent(`Error loading content: ${err.message}`);
-            })
-            .finally(() => setLoading(false));
-    }, [selectedBucket]);
-
     // Function to handle search
     const handleSearch = useCallback(() => {
         if (!selectedBucket || !env || !appName || !date || !searchQuery) {
@@ -175,7 +146,7 @@ function App() {
         }
 
         if (nextIndex >= 0 && nextIndex < logFiles.length) {
-            fetchLogContent(logFiles[nextIndex].key);
+            setSelectedLogKey(logFiles[nextIndex].key);
         }
     };
 
@@ -253,7 +224,7 @@ function App() {
                         {logFiles.map(log => (
                             <li
                                 key={log.key}
-                                onClick={() => fetchLogContent(log.key)}
+                                onClick={() => setSelectedLogKey(log.key)}
                                 className={log.key === selectedLogKey ? 'selected' : ''}
                             >
                                 {log.fileName} ({log.size} bytes)
@@ -275,8 +246,9 @@ function App() {
                             </button>
                         </div>
                     )}
-                    {loading && selectedLogKey && <p>Loading content...</p>}
-                    <pre>{logContent}</pre>
+                    {selectedLogKey && selectedBucket && (
+                        <LogViewer key={selectedLogKey} bucket={selectedBucket} logKey={selectedLogKey} highlight={searchQuery} />
+                    )}
                 </div>
             </div>
         </div>
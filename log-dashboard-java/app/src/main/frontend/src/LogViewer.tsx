@@ -0,0 +1,286 @@
+import React, { useCallback, useEffect, useLayoutEffect, useMemo, useRef, useState } from 'react';
+
+// A page of whole lines, as returned by /api/log-page; offsets are byte positions in the object
+interface LogPage {
+    key: string;
+    etag: string | null;
+    size: number;
+    offset: number;
+    nextOffset: number;
+    lines: string[];
+}
+
+interface LogViewerProps {
+    bucket: string;
+    logKey: string;
+    highlight: string; // text to mark in visible lines, e.g. the current search query
+}
+
+const PAGE_BYTES = 256 * 1024;
+const ROW_HEIGHT = 18; // px; must match .log-row in App.css
+const OVERSCAN_ROWS = 30;
+const PREFETCH_ROWS = 500; // load the adjacent page once the view is this close to the loaded edge
+const MAX_PAGES = 12; // pages kept around the view; farther ones are dropped again
+
+function fetchPage(bucket: string, key: string, offset: number, limit: number, signal?: AbortSignal): Promise<LogPage> {
+    const params = new URLSearchParams({ bucket, key, offset: String(offset), limit: String(limit) });
+    return fetch(`/api/log-page?${params.toString()}`, { signal })
+        .then(response => {
+            if (!response.ok) {
+                return response.text().then(text => { throw new Error(`Failed to fetch log page: ${response.status} ${text}`); });
+            }
+            return response.json();
+        });
+}
+
+function highlightLine(line: string, query: string): React.ReactNode {
+    if (!query) {
+        return line;
+    }
+    const parts: React.ReactNode[] = [];
+    let from = 0;
+    let at = line.indexOf(query);
+    while (at >= 0) {
+        if (at > from) {
+            parts.push(line.substring(from, at));
+        }
+        parts.push(<mark key={at}>{query}</mark>);
+        from = at + query.length;
+        at = line.indexOf(query, from);
+    }
+    if (parts.length === 0) {
+        return line;
+    }
+    parts.push(line.substring(from));
+    return parts;
+}
+
+function formatBytes(bytes: number): string {
+    if (bytes < 1024) return `${bytes} B`;
+    if (bytes < 1024 * 1024) return `${(bytes / 1024).toFixed(1)} KB`;
+    if (bytes < 1024 * 1024 * 1024) return `${(bytes / (1024 * 1024)).toFixed(1)} MB`;
+    return `${(bytes / (1024 * 1024 * 1024)).toFixed(2)} GB`;
+}
+
+/**
+ * Shows a log object of any size without loading it whole: pages of lines are fetched by byte offset
+ * around the scroll position, only the rows in view are rendered, and pages far from the view are
+ * dropped. Opening a file costs one page, whatever its size; the slider jumps anywhere in it.
+ */
+function LogViewer({ bucket, logKey, highlight }: LogViewerProps) {
+    const [pages, setPages] = useState<LogPage[]>([]);
+    const [scrollTop, setScrollTop] = useState<number>(0);
+    const [viewportHeight, setViewportHeight] = useState<number>(600);
+    const [error, setError] = useState<string | null>(null);
+    const [notice, setNotice] = useState<string | null>(null);
+    const [hitOffset, setHitOffset] = useState<number | null>(null);
+    const [finding, setFinding] = useState<boolean>(false);
+    const [sliderDraft, setSliderDraft] = useState<number | null>(null);
+    const containerRef = useRef<HTMLDivElement>(null);
+    // Mirrors pages for async callbacks, which must not act on a window that was replaced meanwhile
+    const pagesRef = useRef<LogPage[]>([]);
+    const edgeLoadingRef = useRef<boolean>(false);
+    const abortRef = useRef<AbortController | null>(null);
+    // Scroll position to restore once rows were added or dropped above the view
+    const pendingScrollRef = useRef<number | null>(null);
+    // Offset of a first page whose predecessor could not be loaded (a single line longer than a page)
+    const headBlockedRef = useRef<number | null>(null);
+
+    const replacePages = useCallback((next: LogPage[]) => {
+        pagesRef.current = next;
+        setPages(next);
+    }, []);
+
+    const lines = useMemo(() => pages.flatMap(page => page.lines), [pages]);
+    const size = pages.length > 0 ? pages[0].size : 0;
+
+    const handleError = useCallback((err: Error) => {
+        if (err.name === 'AbortError') return;
+        console.error("Error fetching log page:", err);
+        edgeLoadingRef.current = false;
+        setError(err.message);
+    }, []);
+
+    // Replaces the loaded window with the page starting at offset
+    const openAt = useCallback((offset: number, anchor: 'top' | 'bottom' = 'top') => {
+        abortRef.current?.abort();
+        const controller = new AbortController();
+        abortRef.current = controller;
+        edgeLoadingRef.current = false;
+        headBlockedRef.current = null;
+        setError(null);
+        fetchPage(bucket, logKey, offset, PAGE_BYTES, controller.signal)
+            .then(page => {
+                pendingScrollRef.current = anchor === 'top' ? 0 : Number.MAX_SAFE_INTEGER;
+                replacePages([page]);
+            })
+            .catch(handleError);
+    }, [bucket, logKey, replacePages, handleError]);
+
+    useEffect(() => {
+        replacePages([]);
+        setHitOffset(null);
+        setNotice(null);
+        openAt(0);
+        return () => abortRef.current?.abort();
+    }, [openAt, replacePages]);
+
+    useLayoutEffect(() => {
+        const container = containerRef.current;
+        if (container && pendingScrollRef.current !== null) {
+            container.scrollTop = Math.max(0, pendingScrollRef.current);
+            pendingScrollRef.current = null;
+            setScrollTop(container.scrollTop);
+        }
+    }, [pages]);
+
+    useEffect(() => {
+        const container = containerRef.current;
+        if (!container) return;
+        const observer = new ResizeObserver(() => setViewportHeight(container.clientHeight));
+        observer.observe(container);
+        return () => observer.disconnect();
+    }, []);
+
+    // Prefetch the page after or before the loaded window when the view nears its edge
+    useEffect(() => {
+        const current = pagesRef.current;
+        if (current.length === 0 || edgeLoadingRef.current || error) return;
+        const first = current[0];
+        const last = current[current.length - 1];
+        const firstVisible = Math.floor(scrollTop / ROW_HEIGHT);
+        const lastVisible = Math.ceil((scrollTop + viewportHeight) / ROW_HEIGHT);
+        const signal = abortRef.current?.signal;
+
+        if (lastVisible + PREFETCH_ROWS >= lines.length && last.nextOffset < last.size) {
+            edgeLoadingRef.current = true;
+            fetchPage(bucket, logKey, last.nextOffset, PAGE_BYTES, signal)
+                .then(page => {
+                    edgeLoadingRef.current = false;
+                    const latest = pagesRef.current;
+                    if (latest[latest.length - 1] !== last) return;
+                    let next = [...latest, page];
+                    if (next.length > MAX_PAGES) {
+                        const dropped = next[0];
+                        next = next.slice(1);
+                        pendingScrollRef.current = (containerRef.current?.scrollTop ?? 0) - dropped.lines.length * ROW_HEIGHT;
+                    }
+                    replacePages(next);
+                })
+                .catch(handleError);
+        } else if (firstVisible - PREFETCH_ROWS <= 0 && first.offset > 0 && headBlockedRef.current !== first.offset) {
+            edgeLoadingRef.current = true;
+            const from = Math.max(0, first.offset - PAGE_BYTES);
+            // Lines starting in [from, first.offset), so the page ends exactly where the window begins
+            fetchPage(bucket, logKey, from, first.offset - from, signal)
+                .then(page => {
+                    edgeLoadingRef.current = false;
+                    const latest = pagesRef.current;
+                    if (latest[0] !== first) return;
+                    if (page.lines.length === 0) {
+                        headBlockedRef.current = first.offset;
+                        return;
+                    }
+                    let next = [page, ...latest];
+                    if (next.length > MAX_PAGES) {
+                        next = next.slice(0, -1);
+                    }
+                    pendingScrollRef.current = (containerRef.current?.scrollTop ?? 0) + page.lines.length * ROW_HEIGHT;
+                    replacePages(next);
+                })
+                .catch(handleError);
+        }
+    }, [scrollTop, viewportHeight, lines.length, error, bucket, logKey, replacePages, handleError]);
+
+    const findNext = useCallback(() => {
+        if (!highlight) return;
+        const from = hitOffset !== null ? hitOffset + 1 : (pagesRef.current[0]?.offset ?? 0);
+        setFinding(true);
+        setNotice(null);
+        const params = new URLSearchParams({ bucket, key: logKey, query: highlight, offset: String(from) });
+        fetch(`/api/log-find?${params.toString()}`)
+            .then(response => {
+                if (!response.ok) {
+                    return response.text().then(text => { throw new Error(`Find failed: ${response.status} ${text}`); });
+                }
+                return response.json();
+            })
+            .then((data: { offset: number }) => {
+                if (data.offset < 0) {
+                    setNotice(`No further matches for "${highlight}".`);
+                    return;
+                }
+                setHitOffset(data.offset);
+                openAt(data.offset);
+            })
+            .catch(handleError)
+            .finally(() => setFinding(false));
+    }, [bucket, logKey, highlight, hitOffset, openAt, handleError]);
+
+    const firstRow = Math.max(0, Math.floor(scrollTop / ROW_HEIGHT) - OVERSCAN_ROWS);
+    const lastRow = Math.min(lines.length, Math.ceil((scrollTop + viewportHeight) / ROW_HEIGHT) + OVERSCAN_ROWS);
+    const rows: React.ReactNode[] = [];
+    for (let row = firstRow; row < lastRow; row++) {
+        const isHit = row === 0 && hitOffset !== null && pages[0]?.offset === hitOffset;
+        rows.push(
+            <div key={row} className={isHit ? 'log-row log-row-hit' : 'log-row'} style={{ top: row * ROW_HEIGHT }}>
+                {highlightLine(lines[row], highlight)}
+            </div>
+        );
+    }
+
+    // Approximate byte position of the top of the view, for the slider and the position label
+    let viewOffset = 0;
+    if (pages.length > 0 && lines.length > 0) {
+        const first = pages[0];
+        const last = pages[pages.length - 1];
+        const fraction = Math.min(1, Math.floor(scrollTop / ROW_HEIGHT) / lines.length);
+        viewOffset = first.offset + Math.round(fraction * (last.nextOffset - first.offset));
+    }
+    const sliderValue = sliderDraft ?? (size > 0 ? Math.round(viewOffset / size * 1000) : 0);
+    const commitSlider = () => {
+        if (sliderDraft === null) return;
+        setSliderDraft(null);
+        setHitOffset(null);
+        openAt(Math.floor(sliderDraft / 1000 * size));
+    };
+    const downloadParams = new URLSearchParams({ bucket, key: logKey });
+
+    return (
+        <div className="log-viewer-container">
+            <div className="log-viewer-toolbar">
+                <button onClick={() => { setHitOffset(null); openAt(0); }} disabled={size === 0}>Top</button>
+                <button onClick={() => { setHitOffset(null); openAt(Math.max(0, size - PAGE_BYTES), 'bottom'); }} disabled={size === 0}>End</button>
+                <input
+                    type="range"
+                    min={0}
+                    max={1000}
+                    value={sliderValue}
+                    disabled={size === 0}
+                    onChange={e => setSliderDraft(Number(e.target.value))}
+                    onPointerUp={commitSlider}
+                    onKeyUp={commitSlider}
+                />
+                <span>{formatBytes(viewOffset)} / {formatBytes(size)}</span>
+                <button onClick={findNext} disabled={!highlight || finding || size === 0}>
+                    {finding ? 'Finding...' : 'Next match'}
+                </button>
+                <a href={`/api/log-content?${downloadParams.toString()}`} download>Download</a>
+            </div>
+            {error && <div className="error-message">Error: {error}</div>}
+            {notice && <div className="log-viewer-notice">{notice}</div>}
+            {pages.length === 0 && !error && <p>Loading content...</p>}
+            <div
+                className="log-viewer"
+                ref={containerRef}
+                onScroll={e => setScrollTop(e.currentTarget.scrollTop)}
+            >
+                <div className="log-viewer-rows" style={{ height: lines.length * ROW_HEIGHT }}>
+                    {rows}
+                </div>
+            </div>
+        </div>
+    );
+}
+
+export default LogViewer;
@@ -0,0 +1,62 @@
+package log.dashboard.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs the log endpoints' {@code Callable} and {@code StreamingResponseBody} results on a bounded
+ * pool of their own. A request thread is handed back to Tomcat as soon as the controller returns,
+ * so slow S3 reads and scans no longer starve cheap requests such as the bucket list. Requests
+ * beyond {@code dashboard.requests.max-concurrency} wait in a bounded queue and are rejected with
+ * 503 once it is full.
+ * <p>
+ * The pool is deliberately not a bean, so Spring Boot's default {@code applicationTaskExecutor}
+ * stays in place for everything else.
+ */
+@Configuration
+public class AsyncRequestConfiguration implements WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRequestConfiguration.class);
+
+    private final DashboardProperties.Requests requestProperties;
+    private final ThreadPoolTaskExecutor requestExecutor;
+
+    @Autowired
+    public AsyncRequestConfiguration(DashboardProperties dashboardProperties, MeterRegistry meterRegistry) {
+        this.requestProperties = dashboardProperties.getRequests();
+        this.requestExecutor = new ThreadPoolTaskExecutor();
+        requestExecutor.setThreadNamePrefix("log-request-");
+        requestExecutor.setCorePoolSize(requestProperties.getMaxConcurrency());
+        requestExecutor.setMaxPoolSize(requestProperties.getMaxConcurrency());
+        requestExecutor.setQueueCapacity(requestProperties.getQueueCapacity());
+        requestExecutor.setDaemon(true);
+        requestExecutor.initialize();
+        Gauge.builder("dashboard.requests.active", requestExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Log requests running on the request pool")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.requests.queued", requestExecutor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Log requests waiting for a request pool thread")
+                .register(meterRegistry);
+        logger.info("Log requests run on up to {} threads with {} queued (timeout {}).",
+                requestProperties.getMaxConcurrency(), requestProperties.getQueueCapacity(), requestProperties.getTimeout());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(requestExecutor);
+        configurer.setDefaultTimeout(requestProperties.getTimeout().toMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdown();
+    }
+}
@@ -0,0 +1,660 @@
+package log.dashboard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "dashboard") // Local tuning knobs, read from application.properties (not Vault)
+public class DashboardProperties {
+
+    private Index index = new Index();
+    private Listing listing = new Listing();
+    private ContentCache contentCache = new ContentCache();
+    private Federation federation = new Federation();
+    private Requests requests = new Requests();
+    private HttpCache httpCache = new HttpCache();
+    private Prefetch prefetch = new Prefetch();
+    private Parsing parsing = new Parsing();
+    private Analytics analytics = new Analytics();
+    private Archive archive = new Archive();
+    private S3 s3 = new S3();
+    private SearchCache searchCache = new SearchCache();
+
+    // Getters and Setters
+
+    public Index getIndex() {
+        return index;
+    }
+
+    public void setIndex(Index index) {
+        this.index = index;
+    }
+
+    public Listing getListing() {
+        return listing;
+    }
+
+    public void setListing(Listing listing) {
+        this.listing = listing;
+    }
+
+    public ContentCache getContentCache() {
+        return contentCache;
+    }
+
+    public void setContentCache(ContentCache contentCache) {
+        this.contentCache = contentCache;
+    }
+
+    public Federation getFederation() {
+        return federation;
+    }
+
+    public void setFederation(Federation federation) {
+        this.federation = federation;
+    }
+
+    public Requests getRequests() {
+        return requests;
+    }
+
+    public void setRequests(Requests requests) {
+        this.requests = requests;
+    }
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    public void setHttpCache(HttpCache httpCache) {
+        this.httpCache = httpCache;
+    }
+
+    public Prefetch getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(Prefetch prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public Parsing getParsing() {
+        return parsing;
+    }
+
+    public void setParsing(Parsing parsing) {
+        this.parsing = parsing;
+    }
+
+    public Analytics getAnalytics() {
+        return analytics;
+    }
+
+    public void setAnalytics(Analytics analytics) {
+        this.analytics = analytics;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public void setArchive(Archive archive) {
+        this.archive = archive;
+    }
+
+    public S3 getS3() {
+        return s3;
+    }
+
+    public void setS3(S3 s3) {
+        this.s3 = s3;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    public void setSearchCache(SearchCache searchCache) {
+        this.searchCache = searchCache;
+    }
+
+    // Inner class for the optional local full-text index
+    public static class Index {
+        private boolean enabled = false;
+        private String directory = "./data/index";
+        // How often scopes for today/yesterday are checked for newly uploaded objects
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        // Distinct terms buffered in memory before a segment part is flushed to disk
+        private int maxTermsPerSegment = 200_000;
+
+        // Getters and Setters
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        public int getMaxTermsPerSegment() {
+            return maxTermsPerSegment;
+        }
+
+        public void setMaxTermsPerSegment(int maxTermsPerSegment) {
+            this.maxTermsPerSegment = maxTermsPerSegment;
+        }
+    }
+
+    // Inner class for the S3 listing cache used by LogService.listLogFiles
+    public static class Listing {
+        // Number of bucket/env/app/date listings kept; least recently used are evicted first
+        private int maxEntries = 512;
+        // Past dates never change once the agents have uploaded them
+        private Duration immutableTtl = Duration.ofHours(24);
+        // A date is treated as past only this long after it ended: agents still upload its last rotation
+        // shortly after midnight. Also bounds the background refreshes of the index and analytics
+        private Duration immutableAfter = Duration.ofHours(2);
+        // Today's listing is refreshed once this expires, from the agents' manifests where there are any
+        private Duration todayTtl = Duration.ofSeconds(30);
+        // Today's listing is re-listed in full at this interval, also for VMs with a manifest, to pick up
+        // files a manifest is missing
+        private Duration fullRefreshInterval = Duration.ofMinutes(5);
+        // Concurrent per-VM manifest GETs or LIST requests, shared by all listings in flight
+        private int parallelism = 8;
+        // Refresh today's listing from the agents' per-date manifests instead of LIST between full refreshes;
+        // full loads and VMs without a manifest are still listed
+        private boolean useManifests = true;
+
+        // Getters and Setters
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getImmutableTtl() {
+            return immutableTtl;
+        }
+
+        public void setImmutableTtl(Duration immutableTtl) {
+            this.immutableTtl = immutableTtl;
+        }
+
+        public Duration getImmutableAfter() {
+            return immutableAfter;
+        }
+
+        public void setImmutableAfter(Duration immutableAfter) {
+            this.immutableAfter = immutableAfter;
+        }
+
+        public Duration getTodayTtl() {
+            return todayTtl;
+        }
+
+        public void setTodayTtl(Duration todayTtl) {
+            this.todayTtl = todayTtl;
+        }
+
+        public Duration getFullRefreshInterval() {
+            return fullRefreshInterval;
+        }
+
+        public void setFullRefreshInterval(Duration fullRefreshInterval) {
+            this.fullRefreshInterval = fullRefreshInterval;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public boolean isUseManifests() {
+            return useManifests;
+        }
+
+        public void setUseManifests(boolean useManifests) {
+            this.useManifests = useManifests;
+        }
+    }
+
+    // Inner class for the local on-disk cache of log object content
+    public static class ContentCache {
+        private boolean enabled = true;
+        private String directory = "./data/content-cache";
+        // Total size of cached objects; least recently used objects are deleted beyond it
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+
+        // Getters and Setters
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    // Inner class for queries spanning several buckets, apps and dates
+    public static class Federation {
+        // Scopes (bucket/app/date) processed at once, across all federated requests
+        private int maxConcurrency = 8;
+        // Upper bound on buckets x apps x days in a single request
+        private int maxScopes = 250;
+
+        // Getters and Setters
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public int getMaxScopes() {
+            return maxScopes;
+        }
+
+        public void setMaxScopes(int maxScopes) {
+            this.maxScopes = maxScopes;
+        }
+    }
+
+    // Inner class for the pool that runs log requests off the servlet container's threads
+    public static class Requests {
+        // Log requests (S3 reads, scans, streamed bodies) running at once
+        private int maxConcurrency = 32;
+        // Requests waiting for a slot; beyond this they are rejected with 503
+        private int queueCapacity = 200;
+        // Upper bound for one async request, including streamed responses
+        private Duration timeout = Duration.ofMinutes(5);
+
+        // Getters and Setters
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    // Inner class for the HTTP caching headers sent with log listings and content
+    public static class HttpCache {
+        // Browser cache lifetime for past dates, whose objects no longer change
+        private Duration immutableMaxAge = Duration.ofDays(30);
+
+        // Getters and Setters
+
+        public Duration getImmutableMaxAge() {
+            return immutableMaxAge;
+        }
+
+        public void setImmutableMaxAge(Duration immutableMaxAge) {
+            this.immutableMaxAge = immutableMaxAge;
+        }
+    }
+
+    // Inner class for background prefetch of neighbouring sequence files into the content cache
+    public static class Prefetch {
+        private boolean enabled = true;
+        // Also prefetch the previous sequence file, not just the next one
+        private boolean includePrevious = false;
+        // Low-priority download threads
+        private int threads = 2;
+        // Pending prefetches beyond this are dropped
+        private int queueCapacity = 32;
+        // Larger objects are left to be fetched on demand
+        private DataSize maxObjectSize = DataSize.ofMegabytes(256);
+
+        // Getters and Setters
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isIncludePrevious() {
+            return includePrevious;
+        }
+
+        public void setIncludePrevious(boolean includePrevious) {
+            this.includePrevious = includePrevious;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public DataSize getMaxObjectSize() {
+            return maxObjectSize;
+        }
+
+        public void setMaxObjectSize(DataSize maxObjectSize) {
+            this.maxObjectSize = maxObjectSize;
+        }
+    }
+
+    // Inner class for server-side parsing of log lines (level and time filters)
+    public static class Parsing {
+        // %d timestamp, %p level, %t thread, %c logger, %m message; other text is literal
+        private String defaultLayout = "%d %p [%t] %c - %m";
+        // Per-app layouts, keyed by app name, overriding the default
+        private Map<String, String> layouts = new LinkedHashMap<>();
+
+        // Getters and Setters
+
+        public String getDefaultLayout() {
+            return defaultLayout;
+        }
+
+        public void setDefaultLayout(String defaultLayout) {
+            this.defaultLayout = defaultLayout;
+        }
+
+        public Map<String, String> getLayouts() {
+            return layouts;
+        }
+
+        public void setLayouts(Map<String, String> layouts) {
+            this.layouts = layouts;
+        }
+    }
+
+    // Inner class for the precomputed per-minute level and volume counters behind /api/analytics
+    public static class Analytics {
+        private boolean enabled = true;
+        private String directory = "./data/analytics";
+        // Concurrent scans of objects and blocks
+        private int parallelism = 8;
+        // Objects larger than this are split into blocks scanned in parallel with ranged GETs
+        private DataSize blockSize = DataSize.ofMegabytes(16);
+        // How often summaries of today/yesterday pick up newly uploaded objects
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        // Getters and Setters
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public DataSize getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(DataSize blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    // Inner class for streamed ZIP downloads of an app/date
+    public static class Archive {
+        // Objects fetched concurrently ahead of the one being written
+        private int readAheadFiles = 4;
+        // Buffered per object being read ahead
+        private DataSize readAheadBuffer = DataSize.ofMegabytes(8);
+        // Upper bound for one download, instead of dashboard.requests.timeout; 0 for none
+        private Duration timeout = Duration.ofHours(1);
+
+        // Getters and Setters
+
+        public int getReadAheadFiles() {
+            return readAheadFiles;
+        }
+
+        public void setReadAheadFiles(int readAheadFiles) {
+            this.readAheadFiles = readAheadFiles;
+        }
+
+        public DataSize getReadAheadBuffer() {
+            return readAheadBuffer;
+        }
+
+        public void setReadAheadBuffer(DataSize readAheadBuffer) {
+            this.readAheadBuffer = readAheadBuffer;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    // Inner class for per-bucket S3 client limits, timeouts and hedged reads
+    public static class S3 {
+        // Concurrent S3 calls per bucket (a GET counts until its response headers arrive)
+        private int maxConcurrency = 16;
+        // Overrides of max-concurrency, keyed by bucket name
+        private Map<String, Integer> maxConcurrencyPerBucket = new LinkedHashMap<>();
+        // How long a call waits for a free slot before failing
+        private Duration maxWait = Duration.ofSeconds(5);
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+        // Longest silence while reading a response
+        private Duration socketTimeout = Duration.ofSeconds(30);
+        // Whole call including retries, up to the response headers for GETs
+        private Duration callTimeout = Duration.ofSeconds(60);
+        // Send a second GET when the first has not answered by the observed latency quantile
+        private boolean hedgeEnabled = false;
+        private double hedgeQuantile = 0.95;
+        private Duration hedgeMinDelay = Duration.ofMillis(50);
+        // At most this share of GETs is hedged, so a slow backend is not hit twice as hard
+        private double hedgeMaxRatio = 0.1;
+
+        // Getters and Setters
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Map<String, Integer> getMaxConcurrencyPerBucket() {
+            return maxConcurrencyPerBucket;
+        }
+
+        public void setMaxConcurrencyPerBucket(Map<String, Integer> maxConcurrencyPerBucket) {
+            this.maxConcurrencyPerBucket = maxConcurrencyPerBucket;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public Duration getSocketTimeout() {
+            return socketTimeout;
+        }
+
+        public void setSocketTimeout(Duration socketTimeout) {
+            this.socketTimeout = socketTimeout;
+        }
+
+        public Duration getCallTimeout() {
+            return callTimeout;
+        }
+
+        public void setCallTimeout(Duration callTimeout) {
+            this.callTimeout = callTimeout;
+        }
+
+        public boolean isHedgeEnabled() {
+            return hedgeEnabled;
+        }
+
+        public void setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+        }
+
+        public double getHedgeQuantile() {
+            return hedgeQuantile;
+        }
+
+        public void setHedgeQuantile(double hedgeQuantile) {
+            this.hedgeQuantile = hedgeQuantile;
+        }
+
+        public Duration getHedgeMinDelay() {
+            return hedgeMinDelay;
+        }
+
+        public void setHedgeMinDelay(Duration hedgeMinDelay) {
+            this.hedgeMinDelay = hedgeMinDelay;
+        }
+
+        public double getHedgeMaxRatio() {
+            return hedgeMaxRatio;
+        }
+
+        public void setHedgeMaxRatio(double hedgeMaxRatio) {
+            this.hedgeMaxRatio = hedgeMaxRatio;
+        }
+    }
+
+    // Inner class for the cache of search outcomes per object and ETag
+    public static class SearchCache {
+        private boolean enabled = true;
+        // Distinct bucket/env/app/date + query + filter searches kept; least recently repeated are evicted first
+        private int maxEntries = 256;
+
+        // Getters and Setters
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+}
@@ -0,0 +1,768 @@
+package log.dashboard.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.S3Utilities;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListMultipartUploadsIterable;
+import software.amazon.awssdk.services.s3.paginators.ListObjectVersionsIterable;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Iterable;
+import software.amazon.awssdk.services.s3.paginators.ListPartsIterable;
+import software.amazon.awssdk.services.s3.waiters.S3Waiter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * S3 client of one bucket with a bulkhead and optional hedged GETs.
+ * <p>
+ * The bulkhead caps concurrent calls to the bucket, so a slow or overloaded bucket ties up at most
+ * its own slots and callers of other buckets are unaffected. A GET holds its slot until the response
+ * headers arrive, not while its body is being read. Callers wait up to {@code max-wait} for a slot.
+ * <p>
+ * With hedging, a GET (plain or ranged, both idempotent) that has not answered within the observed
+ * latency quantile is sent a second time, if a slot is free and the hedge budget allows it. The first
+ * response wins and the other is aborted.
+ */
+final class GuardedS3Client implements S3Client {
+
+    private final String bucket;
+    private final S3Client delegate;
+    private final DashboardProperties.S3 s3Properties;
+    private final Executor hedgeExecutor;
+    private final int maxConcurrency;
+    private final Semaphore slots;
+    private final LatencyTracker getLatency;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong getRequests = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final Timer listTimer;
+    private final Timer headTimer;
+    private final Timer getTimer;
+    private final Counter bytesDownloaded;
+
+    GuardedS3Client(String bucket, S3Client delegate, int maxConcurrency, DashboardProperties.S3 s3Properties,
+                    Executor hedgeExecutor, MeterRegistry meterRegistry) {
+        this.bucket = bucket;
+        this.delegate = delegate;
+        this.s3Properties = s3Properties;
+        this.hedgeExecutor = hedgeExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.slots = new Semaphore(maxConcurrency);
+        this.getLatency = new LatencyTracker(s3Properties.getHedgeQuantile());
+        this.meterRegistry = meterRegistry;
+        this.listTimer = requestTimer("ListObjectsV2", "success");
+        this.headTimer = requestTimer("HeadObject", "success");
+        this.getTimer = requestTimer("GetObject", "success");
+        this.bytesDownloaded = Counter.builder("dashboard.s3.bytes.downloaded")
+                .tag("bucket", bucket)
+                .baseUnit("bytes")
+                .description("Bytes of GetObject response bodies read")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.s3.in.flight", slots, s -> maxConcurrency - s.availablePermits())
+                .tag("bucket", bucket)
+                .description("S3 calls holding a bulkhead slot")
+                .register(meterRegistry);
+        FunctionCounter.builder("dashboard.s3.rejected", rejected, AtomicLong::get)
+                .tag("bucket", bucket)
+                .description("S3 calls that found no free bulkhead slot within max-wait")
+                .register(meterRegistry);
+        FunctionCounter.builder("dashboard.s3.hedged", hedgedRequests, AtomicLong::get)
+                .tag("bucket", bucket)
+                .description("GetObject calls that were sent a second time")
+                .register(meterRegistry);
+        FunctionCounter.builder("dashboard.s3.hedge.wins", hedgeWins, AtomicLong::get)
+                .tag("bucket", bucket)
+                .description("Hedged GetObject calls answered first by the duplicate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        return timed("ListObjectsV2", listTimer, () -> guarded(() -> delegate.listObjectsV2(request)));
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        return timed("HeadObject", headTimer, () -> guarded(() -> delegate.headObject(request)));
+    }
+
+    /**
+     * Timed up to the response headers, like the other calls; the body is counted in bytes as it is read.
+     */
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        ResponseInputStream<GetObjectResponse> response = timed("GetObject", getTimer, () -> hedgedGet(request));
+        InputStream counting = new FilterInputStream(response) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesDownloaded.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesDownloaded.increment(read);
+                }
+                return read;
+            }
+        };
+        return new ResponseInputStream<>(response.response(), AbortableInputStream.create(counting, response));
+    }
+
+    private ResponseInputStream<GetObjectResponse> hedgedGet(GetObjectRequest request) {
+        getRequests.incrementAndGet();
+        long hedgeDelay = getLatency.quantileNanos();
+        if (!s3Properties.isHedgeEnabled() || hedgeDelay < 0) {
+            return guarded(() -> timedGet(request));
+        }
+        acquireSlot();
+        CompletableFuture<ResponseInputStream<GetObjectResponse>> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        sendGet(request, winner, outstanding, false);
+        try {
+            try {
+                return winner.get(Math.max(hedgeDelay, s3Properties.getHedgeMinDelay().toNanos()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (hedgedRequests.get() < s3Properties.getHedgeMaxRatio() * getRequests.get() && slots.tryAcquire()) {
+                    hedgedRequests.incrementAndGet();
+                    outstanding.incrementAndGet();
+                    sendGet(request, winner, outstanding, true);
+                }
+                return winner.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            winner.thenAccept(ResponseInputStream::abort); // nobody will read it
+            throw SdkClientException.create("Interrupted while waiting for S3 object " + request.key(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw SdkClientException.create("Error getting S3 object " + request.key(), e.getCause());
+        }
+    }
+
+    // Runs one attempt of a hedged GET on a slot already acquired; the first success completes winner
+    private void sendGet(GetObjectRequest request, CompletableFuture<ResponseInputStream<GetObjectResponse>> winner,
+                         AtomicInteger outstanding, boolean hedge) {
+        hedgeExecutor.execute(() -> {
+            try {
+                ResponseInputStream<GetObjectResponse> response = timedGet(request);
+                if (!winner.complete(response)) {
+                    response.abort();
+                } else if (hedge) {
+                    hedgeWins.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                if (outstanding.decrementAndGet() == 0) {
+                    winner.completeExceptionally(e);
+                }
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    private ResponseInputStream<GetObjectResponse> timedGet(GetObjectRequest request) {
+        long start = System.nanoTime();
+        ResponseInputStream<GetObjectResponse> response = delegate.getObject(request);
+        getLatency.record(System.nanoTime() - start);
+        return response;
+    }
+
+    private <T> T timed(String operation, Timer successTimer, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            requestTimer(operation, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer requestTimer(String operation, String outcome) {
+        return Timer.builder("dashboard.s3.requests")
+                .tag("bucket", bucket)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .description("S3 calls up to their response headers, including the wait for a bulkhead slot")
+                .register(meterRegistry);
+    }
+
+    private <T> T guarded(Supplier<T> call) {
+        acquireSlot();
+        try {
+            return call.get();
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void acquireSlot() {
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(s3Properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SdkClientException.create("Interrupted while waiting for a free S3 slot for bucket " + bucket, e);
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            throw SdkClientException.create("Too many concurrent S3 requests to bucket " + bucket
+                    + " (limit " + maxConcurrency + ", waited " + s3Properties.getMaxWait() + ")");
+        }
+    }
+
+    S3ClientStats stats() {
+        long quantileNanos = getLatency.quantileNanos();
+        return new S3ClientStats(maxConcurrency, maxConcurrency - slots.availablePermits(), rejected.get(),
+                getRequests.get(), hedgedRequests.get(), hedgeWins.get(),
+                quantileNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(quantileNanos));
+    }
+
+    @Override
+    public String serviceName() {
+        return delegate.serviceName();
+    }
+
+    @Override
+    public S3ServiceClientConfiguration serviceClientConfiguration() {
+        return delegate.serviceClientConfiguration();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    // The dashboard only lists, heads and gets; everything else is forwarded untimed but still takes a slot,
+    // and the overloads S3Client derives from these (builders, paginators, waiters) come back through here.
+
+    /**
+     * Gets through the bulkhead and hedging of {@link #getObject(GetObjectRequest)}, so {@code getObjectAsBytes}
+     * and downloads to a file are guarded like streamed reads.
+     */
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request, ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        ResponseInputStream<GetObjectResponse> response = getObject(request);
+        try {
+            ReturnT result = transformer.transform(response.response(), AbortableInputStream.create(response));
+            if (!transformer.needsConnectionLeftOpen()) {
+                response.close();
+            }
+            return result;
+        } catch (RuntimeException e) {
+            response.abort();
+            throw e;
+        } catch (Exception e) {
+            response.abort();
+            throw SdkClientException.create("Error reading S3 object " + request.key(), e);
+        }
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObjectTorrent(GetObjectTorrentRequest request,
+                                              ResponseTransformer<GetObjectTorrentResponse, ReturnT> transformer) {
+        return guarded(() -> delegate.getObjectTorrent(request, transformer));
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+        return guarded(() -> delegate.putObject(request, requestBody));
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+        return guarded(() -> delegate.uploadPart(request, requestBody));
+    }
+
+    @Override
+    public WriteGetObjectResponseResponse writeGetObjectResponse(WriteGetObjectResponseRequest request, RequestBody requestBody) {
+        return guarded(() -> delegate.writeGetObjectResponse(request, requestBody));
+    }
+
+    @Override
+    public ListObjectsV2Iterable listObjectsV2Paginator(ListObjectsV2Request request) {
+        return new ListObjectsV2Iterable(this, request);
+    }
+
+    @Override
+    public ListObjectVersionsIterable listObjectVersionsPaginator(ListObjectVersionsRequest request) {
+        return new ListObjectVersionsIterable(this, request);
+    }
+
+    @Override
+    public ListMultipartUploadsIterable listMultipartUploadsPaginator(ListMultipartUploadsRequest request) {
+        return new ListMultipartUploadsIterable(this, request);
+    }
+
+    @Override
+    public ListPartsIterable listPartsPaginator(ListPartsRequest request) {
+        return new ListPartsIterable(this, request);
+    }
+
+    @Override
+    public S3Waiter waiter() {
+        return S3Waiter.builder().client(this).build();
+    }
+
+    @Override
+    public S3Utilities utilities() {
+        return delegate.utilities();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        return guarded(() -> delegate.abortMultipartUpload(request));
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return guarded(() -> delegate.completeMultipartUpload(request));
+    }
+
+    @Override
+    public CopyObjectResponse copyObject(CopyObjectRequest request) {
+        return guarded(() -> delegate.copyObject(request));
+    }
+
+    @Override
+    public CreateBucketResponse createBucket(CreateBucketRequest request) {
+        return guarded(() -> delegate.createBucket(request));
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        return guarded(() -> delegate.createMultipartUpload(request));
+    }
+
+    @Override
+    public DeleteBucketResponse deleteBucket(DeleteBucketRequest request) {
+        return guarded(() -> delegate.deleteBucket(request));
+    }
+
+    @Override
+    public DeleteBucketAnalyticsConfigurationResponse deleteBucketAnalyticsConfiguration(DeleteBucketAnalyticsConfigurationRequest request) {
+        return guarded(() -> delegate.deleteBucketAnalyticsConfiguration(request));
+    }
+
+    @Override
+    public DeleteBucketCorsResponse deleteBucketCors(DeleteBucketCorsRequest request) {
+        return guarded(() -> delegate.deleteBucketCors(request));
+    }
+
+    @Override
+    public DeleteBucketEncryptionResponse deleteBucketEncryption(DeleteBucketEncryptionRequest request) {
+        return guarded(() -> delegate.deleteBucketEncryption(request));
+    }
+
+    @Override
+    public DeleteBucketIntelligentTieringConfigurationResponse deleteBucketIntelligentTieringConfiguration(DeleteBucketIntelligentTieringConfigurationRequest request) {
+        return guarded(() -> delegate.deleteBucketIntelligentTieringConfiguration(request));
+    }
+
+    @Override
+    public DeleteBucketInventoryConfigurationResponse deleteBucketInventoryConfiguration(DeleteBucketInventoryConfigurationRequest request) {
+        return guarded(() -> delegate.deleteBucketInventoryConfiguration(request));
+    }
+
+    @Override
+    public DeleteBucketLifecycleResponse deleteBucketLifecycle(DeleteBucketLifecycleRequest request) {
+        return guarded(() -> delegate.deleteBucketLifecycle(request));
+    }
+
+    @Override
+    public DeleteBucketMetricsConfigurationResponse deleteBucketMetricsConfiguration(DeleteBucketMetricsConfigurationRequest request) {
+        return guarded(() -> delegate.deleteBucketMetricsConfiguration(request));
+    }
+
+    @Override
+    public DeleteBucketOwnershipControlsResponse deleteBucketOwnershipControls(DeleteBucketOwnershipControlsRequest request) {
+        return guarded(() -> delegate.deleteBucketOwnershipControls(request));
+    }
+
+    @Override
+    public DeleteBucketPolicyResponse deleteBucketPolicy(DeleteBucketPolicyRequest request) {
+        return guarded(() -> delegate.deleteBucketPolicy(request));
+    }
+
+    @Override
+    public DeleteBucketReplicationResponse deleteBucketReplication(DeleteBucketReplicationRequest request) {
+        return guarded(() -> delegate.deleteBucketReplication(request));
+    }
+
+    @Override
+    public DeleteBucketTaggingResponse deleteBucketTagging(DeleteBucketTaggingRequest request) {
+        return guarded(() -> delegate.deleteBucketTagging(request));
+    }
+
+    @Override
+    public DeleteBucketWebsiteResponse deleteBucketWebsite(DeleteBucketWebsiteRequest request) {
+        return guarded(() -> delegate.deleteBucketWebsite(request));
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        return guarded(() -> delegate.deleteObject(request));
+    }
+
+    @Override
+    public DeleteObjectTaggingResponse deleteObjectTagging(DeleteObjectTaggingRequest request) {
+        return guarded(() -> delegate.deleteObjectTagging(request));
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+        return guarded(() -> delegate.deleteObjects(request));
+    }
+
+    @Override
+    public DeletePublicAccessBlockResponse deletePublicAccessBlock(DeletePublicAccessBlockRequest request) {
+        return guarded(() -> delegate.deletePublicAccessBlock(request));
+    }
+
+    @Override
+    public GetBucketAccelerateConfigurationResponse getBucketAccelerateConfiguration(GetBucketAccelerateConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketAccelerateConfiguration(request));
+    }
+
+    @Override
+    public GetBucketAclResponse getBucketAcl(GetBucketAclRequest request) {
+        return guarded(() -> delegate.getBucketAcl(request));
+    }
+
+    @Override
+    public GetBucketAnalyticsConfigurationResponse getBucketAnalyticsConfiguration(GetBucketAnalyticsConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketAnalyticsConfiguration(request));
+    }
+
+    @Override
+    public GetBucketCorsResponse getBucketCors(GetBucketCorsRequest request) {
+        return guarded(() -> delegate.getBucketCors(request));
+    }
+
+    @Override
+    public GetBucketEncryptionResponse getBucketEncryption(GetBucketEncryptionRequest request) {
+        return guarded(() -> delegate.getBucketEncryption(request));
+    }
+
+    @Override
+    public GetBucketIntelligentTieringConfigurationResponse getBucketIntelligentTieringConfiguration(GetBucketIntelligentTieringConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketIntelligentTieringConfiguration(request));
+    }
+
+    @Override
+    public GetBucketInventoryConfigurationResponse getBucketInventoryConfiguration(GetBucketInventoryConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketInventoryConfiguration(request));
+    }
+
+    @Override
+    public GetBucketLifecycleConfigurationResponse getBucketLifecycleConfiguration(GetBucketLifecycleConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketLifecycleConfiguration(request));
+    }
+
+    @Override
+    public GetBucketLocationResponse getBucketLocation(GetBucketLocationRequest request) {
+        return guarded(() -> delegate.getBucketLocation(request));
+    }
+
+    @Override
+    public GetBucketLoggingResponse getBucketLogging(GetBucketLoggingRequest request) {
+        return guarded(() -> delegate.getBucketLogging(request));
+    }
+
+    @Override
+    public GetBucketMetricsConfigurationResponse getBucketMetricsConfiguration(GetBucketMetricsConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketMetricsConfiguration(request));
+    }
+
+    @Override
+    public GetBucketNotificationConfigurationResponse getBucketNotificationConfiguration(GetBucketNotificationConfigurationRequest request) {
+        return guarded(() -> delegate.getBucketNotificationConfiguration(request));
+    }
+
+    @Override
+    public GetBucketOwnershipControlsResponse getBucketOwnershipControls(GetBucketOwnershipControlsRequest request) {
+        return guarded(() -> delegate.getBucketOwnershipControls(request));
+    }
+
+    @Override
+    public GetBucketPolicyResponse getBucketPolicy(GetBucketPolicyRequest request) {
+        return guarded(() -> delegate.getBucketPolicy(request));
+    }
+
+    @Override
+    public GetBucketPolicyStatusResponse getBucketPolicyStatus(GetBucketPolicyStatusRequest request) {
+        return guarded(() -> delegate.getBucketPolicyStatus(request));
+    }
+
+    @Override
+    public GetBucketReplicationResponse getBucketReplication(GetBucketReplicationRequest request) {
+        return guarded(() -> delegate.getBucketReplication(request));
+    }
+
+    @Override
+    public GetBucketRequestPaymentResponse getBucketRequestPayment(GetBucketRequestPaymentRequest request) {
+        return guarded(() -> delegate.getBucketRequestPayment(request));
+    }
+
+    @Override
+    public GetBucketTaggingResponse getBucketTagging(GetBucketTaggingRequest request) {
+        return guarded(() -> delegate.getBucketTagging(request));
+    }
+
+    @Override
+    public GetBucketVersioningResponse getBucketVersioning(GetBucketVersioningRequest request) {
+        return guarded(() -> delegate.getBucketVersioning(request));
+    }
+
+    @Override
+    public GetBucketWebsiteResponse getBucketWebsite(GetBucketWebsiteRequest request) {
+        return guarded(() -> delegate.getBucketWebsite(request));
+    }
+
+    @Override
+    public GetObjectAclResponse getObjectAcl(GetObjectAclRequest request) {
+        return guarded(() -> delegate.getObjectAcl(request));
+    }
+
+    @Override
+    public GetObjectAttributesResponse getObjectAttributes(GetObjectAttributesRequest request) {
+        return guarded(() -> delegate.getObjectAttributes(request));
+    }
+
+    @Override
+    public GetObjectLegalHoldResponse getObjectLegalHold(GetObjectLegalHoldRequest request) {
+        return guarded(() -> delegate.getObjectLegalHold(request));
+    }
+
+    @Override
+    public GetObjectLockConfigurationResponse getObjectLockConfiguration(GetObjectLockConfigurationRequest request) {
+        return guarded(() -> delegate.getObjectLockConfiguration(request));
+    }
+
+    @Override
+    public GetObjectRetentionResponse getObjectRetention(GetObjectRetentionRequest request) {
+        return guarded(() -> delegate.getObjectRetention(request));
+    }
+
+    @Override
+    public GetObjectTaggingResponse getObjectTagging(GetObjectTaggingRequest request) {
+        return guarded(() -> delegate.getObjectTagging(request));
+    }
+
+    @Override
+    public GetPublicAccessBlockResponse getPublicAccessBlock(GetPublicAccessBlockRequest request) {
+        return guarded(() -> delegate.getPublicAccessBlock(request));
+    }
+
+    @Override
+    public HeadBucketResponse headBucket(HeadBucketRequest request) {
+        return guarded(() -> delegate.headBucket(request));
+    }
+
+    @Override
+    public ListBucketAnalyticsConfigurationsResponse listBucketAnalyticsConfigurations(ListBucketAnalyticsConfigurationsRequest request) {
+        return guarded(() -> delegate.listBucketAnalyticsConfigurations(request));
+    }
+
+    @Override
+    public ListBucketIntelligentTieringConfigurationsResponse listBucketIntelligentTieringConfigurations(ListBucketIntelligentTieringConfigurationsRequest request) {
+        return guarded(() -> delegate.listBucketIntelligentTieringConfigurations(request));
+    }
+
+    @Override
+    public ListBucketInventoryConfigurationsResponse listBucketInventoryConfigurations(ListBucketInventoryConfigurationsRequest request) {
+        return guarded(() -> delegate.listBucketInventoryConfigurations(request));
+    }
+
+    @Override
+    public ListBucketMetricsConfigurationsResponse listBucketMetricsConfigurations(ListBucketMetricsConfigurationsRequest request) {
+        return guarded(() -> delegate.listBucketMetricsConfigurations(request));
+    }
+
+    @Override
+    public ListBucketsResponse listBuckets(ListBucketsRequest request) {
+        return guarded(() -> delegate.listBuckets(request));
+    }
+
+    @Override
+    public ListMultipartUploadsResponse listMultipartUploads(ListMultipartUploadsRequest request) {
+        return guarded(() -> delegate.listMultipartUploads(request));
+    }
+
+    @Override
+    public ListObjectVersionsResponse listObjectVersions(ListObjectVersionsRequest request) {
+        return guarded(() -> delegate.listObjectVersions(request));
+    }
+
+    @Override
+    public ListObjectsResponse listObjects(ListObjectsRequest request) {
+        return guarded(() -> delegate.listObjects(request));
+    }
+
+    @Override
+    public ListPartsResponse listParts(ListPartsRequest request) {
+        return guarded(() -> delegate.listParts(request));
+    }
+
+    @Override
+    public PutBucketAccelerateConfigurationResponse putBucketAccelerateConfiguration(PutBucketAccelerateConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketAccelerateConfiguration(request));
+    }
+
+    @Override
+    public PutBucketAclResponse putBucketAcl(PutBucketAclRequest request) {
+        return guarded(() -> delegate.putBucketAcl(request));
+    }
+
+    @Override
+    public PutBucketAnalyticsConfigurationResponse putBucketAnalyticsConfiguration(PutBucketAnalyticsConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketAnalyticsConfiguration(request));
+    }
+
+    @Override
+    public PutBucketCorsResponse putBucketCors(PutBucketCorsRequest request) {
+        return guarded(() -> delegate.putBucketCors(request));
+    }
+
+    @Override
+    public PutBucketEncryptionResponse putBucketEncryption(PutBucketEncryptionRequest request) {
+        return guarded(() -> delegate.putBucketEncryption(request));
+    }
+
+    @Override
+    public PutBucketIntelligentTieringConfigurationResponse putBucketIntelligentTieringConfiguration(PutBucketIntelligentTieringConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketIntelligentTieringConfiguration(request));
+    }
+
+    @Override
+    public PutBucketInventoryConfigurationResponse putBucketInventoryConfiguration(PutBucketInventoryConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketInventoryConfiguration(request));
+    }
+
+    @Override
+    public PutBucketLifecycleConfigurationResponse putBucketLifecycleConfiguration(PutBucketLifecycleConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketLifecycleConfiguration(request));
+    }
+
+    @Override
+    public PutBucketLoggingResponse putBucketLogging(PutBucketLoggingRequest request) {
+        return guarded(() -> delegate.putBucketLogging(request));
+    }
+
+    @Override
+    public PutBucketMetricsConfigurationResponse putBucketMetricsConfiguration(PutBucketMetricsConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketMetricsConfiguration(request));
+    }
+
+    @Override
+    public PutBucketNotificationConfigurationResponse putBucketNotificationConfiguration(PutBucketNotificationConfigurationRequest request) {
+        return guarded(() -> delegate.putBucketNotificationConfiguration(request));
+    }
+
+    @Override
+    public PutBucketOwnershipControlsResponse putBucketOwnershipControls(PutBucketOwnershipControlsRequest request) {
+        return guarded(() -> delegate.putBucketOwnershipControls(request));
+    }
+
+    @Override
+    public PutBucketPolicyResponse putBucketPolicy(PutBucketPolicyRequest request) {
+        return guarded(() -> delegate.putBucketPolicy(request));
+    }
+
+    @Override
+    public PutBucketReplicationResponse putBucketReplication(PutBucketReplicationRequest request) {
+        return guarded(() -> delegate.putBucketReplication(request));
+    }
+
+    @Override
+    public PutBucketRequestPaymentResponse putBucketRequestPayment(PutBucketRequestPaymentRequest request) {
+        return guarded(() -> delegate.putBucketRequestPayment(request));
+    }
+
+    @Override
+    public PutBucketTaggingResponse putBucketTagging(PutBucketTaggingRequest request) {
+        return guarded(() -> delegate.putBucketTagging(request));
+    }
+
+    @Override
+    public PutBucketVersioningResponse putBucketVersioning(PutBucketVersioningRequest request) {
+        return guarded(() -> delegate.putBucketVersioning(request));
+    }
+
+    @Override
+    public PutBucketWebsiteResponse putBucketWebsite(PutBucketWebsiteRequest request) {
+        return guarded(() -> delegate.putBucketWebsite(request));
+    }
+
+    @Override
+    public PutObjectAclResponse putObjectAcl(PutObjectAclRequest request) {
+        return guarded(() -> delegate.putObjectAcl(request));
+    }
+
+    @Override
+    public PutObjectLegalHoldResponse putObjectLegalHold(PutObjectLegalHoldRequest request) {
+        return guarded(() -> delegate.putObjectLegalHold(request));
+    }
+
+    @Override
+    public PutObjectLockConfigurationResponse putObjectLockConfiguration(PutObjectLockConfigurationRequest request) {
+        return guarded(() -> delegate.putObjectLockConfiguration(request));
+    }
+
+    @Override
+    public PutObjectRetentionResponse putObjectRetention(PutObjectRetentionRequest request) {
+        return guarded(() -> delegate.putObjectRetention(request));
+    }
+
+    @Override
+    public PutObjectTaggingResponse putObjectTagging(PutObjectTaggingRequest request) {
+        return guarded(() -> delegate.putObjectTagging(request));
+    }
+
+    @Override
+    public PutPublicAccessBlockResponse putPublicAccessBlock(PutPublicAccessBlockRequest request) {
+        return guarded(() -> delegate.putPublicAccessBlock(request));
+    }
+
+    @Override
+    public RestoreObjectResponse restoreObject(RestoreObjectRequest request) {
+        return guarded(() -> delegate.restoreObject(request));
+    }
+
+    @Override
+    public UploadPartCopyResponse uploadPartCopy(UploadPartCopyRequest request) {
+        return guarded(() -> delegate.uploadPartCopy(request));
+    }
+}
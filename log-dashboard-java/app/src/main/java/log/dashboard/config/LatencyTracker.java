@@ -0,0 +1,42 @@
+package log.dashboard.config;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quantile of recent call latencies over a fixed window of samples. The quantile is recomputed every
+ * few samples rather than on each read; concurrent updates may overwrite each other's samples, which
+ * only makes the estimate slightly noisier.
+ */
+final class LatencyTracker {
+
+    private static final int WINDOW = 1024;
+    private static final int MIN_SAMPLES = 100;
+    private static final int RECOMPUTE_EVERY = 64;
+
+    private final double quantile;
+    private final long[] samples = new long[WINDOW];
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long quantileNanos = -1;
+
+    LatencyTracker(double quantile) {
+        this.quantile = quantile;
+    }
+
+    void record(long nanos) {
+        long count = recorded.incrementAndGet();
+        samples[(int) ((count - 1) % WINDOW)] = nanos;
+        if (count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, WINDOW));
+            Arrays.sort(sorted);
+            quantileNanos = sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+        }
+    }
+
+    /**
+     * The latency quantile in nanoseconds, or -1 until enough calls have been observed.
+     */
+    long quantileNanos() {
+        return quantileNanos;
+    }
+}
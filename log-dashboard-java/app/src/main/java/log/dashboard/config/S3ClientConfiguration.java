@@ -1,5 +1,7 @@
 package log.dashboard.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import log.dashboard.config.VaultS3Properties.BucketCredentials;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +10,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.http.TlsTrustManagersProvider;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
@@ -22,7 +25,11 @@ import java.net.URI;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Configuration
@@ -31,15 +38,32 @@ public class S3ClientConfiguration {
     private static final Logger logger = LoggerFactory.getLogger(S3ClientConfiguration.class);
 
     private final VaultS3Properties vaultS3Properties;
+    private final DashboardProperties.S3 s3Properties;
     private final Map<String, S3Client> s3ClientCache = new ConcurrentHashMap<>();
-    private SdkHttpClient sharedHttpClient;
+    // Runs the attempts of hedged GETs; its size is bounded by the per-bucket slots
+    private final ExecutorService hedgeExecutor;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public S3ClientConfiguration(VaultS3Properties vaultS3Properties) {
+    public S3ClientConfiguration(VaultS3Properties vaultS3Properties, DashboardProperties dashboardProperties,
+                                 MeterRegistry meterRegistry) {
         this.vaultS3Properties = vaultS3Properties;
+        this.s3Properties = dashboardProperties.getS3();
+        this.meterRegistry = meterRegistry;
+        AtomicInteger counter = new AtomicInteger();
+        this.hedgeExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "s3-get-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeClients();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+
     private void initializeClients() {
         logger.info("Initializing S3 clients based on Vault configuration...");
         if (vaultS3Properties == null || vaultS3Properties.getBuckets() == null || vaultS3Properties.getBuckets().isEmpty()) {
@@ -48,14 +72,19 @@ public class S3ClientConfiguration {
             return;
         }
 
-        this.sharedHttpClient = buildHttpClient(vaultS3Properties.isDisableSSL());
-        logger.info("Shared SdkHttpClient created (SSL Disabled: {}).", vaultS3Properties.isDisableSSL());
+        logger.info("S3 clients use per-bucket concurrency slots (SSL Disabled: {}, connect timeout {}, socket timeout {}, call timeout {}, hedged GETs: {}).",
+                vaultS3Properties.isDisableSSL(), s3Properties.getConnectionTimeout(), s3Properties.getSocketTimeout(),
+                s3Properties.getCallTimeout(), s3Properties.isHedgeEnabled());
 
         for (BucketCredentials bucketCreds : vaultS3Properties.getBuckets()) {
             try {
-                S3Client client = createS3Client(bucketCreds, vaultS3Properties.getEndpoint(), vaultS3Properties.isPathStyleAccess());
-                s3ClientCache.put(bucketCreds.getName(), client);
-                logger.info("Successfully created and cached S3 client for bucket: {}", bucketCreds.getName());
+                // Isolation between buckets comes from GuardedS3Client's per-bucket slots, not from the HTTP client:
+                // HttpURLConnection shares the JVM-wide keep-alive cache, and all buckets use the same endpoint
+                S3Client client = createS3Client(bucketCreds, vaultS3Properties.getEndpoint(), vaultS3Properties.isPathStyleAccess(),
+                        buildHttpClient(vaultS3Properties.isDisableSSL()));
+                int maxConcurrency = s3Properties.getMaxConcurrencyPerBucket().getOrDefault(bucketCreds.getName(), s3Properties.getMaxConcurrency());
+                s3ClientCache.put(bucketCreds.getName(), new GuardedS3Client(bucketCreds.getName(), client, maxConcurrency, s3Properties, hedgeExecutor, meterRegistry));
+                logger.info("Successfully created and cached S3 client for bucket: {} (max {} concurrent calls)", bucketCreds.getName(), maxConcurrency);
             } catch (Exception e) {
                 logger.error("Failed to create S3 client for bucket {}: {}", bucketCreds.getName(), e.getMessage(), e);
                 // Decide if failure for one bucket should prevent app startup
@@ -64,7 +93,7 @@ public class S3ClientConfiguration {
         logger.info("S3 client initialization complete. {} clients cached.", s3ClientCache.size());
     }
 
-    private S3Client createS3Client(BucketCredentials creds, String endpoint, boolean pathStyleAccess) {
+    private S3Client createS3Client(BucketCredentials creds, String endpoint, boolean pathStyleAccess, SdkHttpClient httpClient) {
         StaticCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(
                 AwsBasicCredentials.create(creds.getAccessKey(), creds.getSecretKey()));
 
@@ -80,12 +109,17 @@ public class S3ClientConfiguration {
                 .endpointOverride(URI.create(endpoint))
                 .credentialsProvider(credentialsProvider)
                 .serviceConfiguration(s3Configuration)
-                .httpClient(this.sharedHttpClient) // Reuse the shared HTTP client
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(s3Properties.getCallTimeout())
+                        .build())
+                .httpClient(httpClient)
                 .build();
     }
 
     private SdkHttpClient buildHttpClient(boolean disableSSL) {
-        UrlConnectionHttpClient.Builder builder = UrlConnectionHttpClient.builder();
+        UrlConnectionHttpClient.Builder builder = UrlConnectionHttpClient.builder()
+                .connectionTimeout(s3Properties.getConnectionTimeout())
+                .socketTimeout(s3Properties.getSocketTimeout());
         if (disableSSL) {
             logger.warn("Disabling SSL certificate validation for S3 connection. This is insecure.");
             try {
@@ -106,6 +140,15 @@ public class S3ClientConfiguration {
         return s3ClientCache;
     }
 
+    /**
+     * Bulkhead and hedging counters per bucket.
+     */
+    public Map<String, S3ClientStats> clientStats() {
+        Map<String, S3ClientStats> stats = new TreeMap<>();
+        s3ClientCache.forEach((bucket, client) -> stats.put(bucket, ((GuardedS3Client) client).stats()));
+        return stats;
+    }
+
     // Simple insecure trust manager (use only if disableSSL is true)
     private static class InsecureTrustManager implements X509TrustManager {
         @Override
@@ -0,0 +1,67 @@
+package log.dashboard.config;
+
+/**
+ * Point-in-time counters of one bucket's S3 client, as returned by {@code /api/stats/s3}.
+ */
+public class S3ClientStats {
+    private final int maxConcurrency;
+    private final int inFlight;
+    private final long rejected;
+    private final long getRequests;
+    private final long hedgedRequests;
+    private final long hedgeWins;
+    private final long getLatencyQuantileMillis;
+
+    public S3ClientStats(int maxConcurrency, int inFlight, long rejected, long getRequests,
+                         long hedgedRequests, long hedgeWins, long getLatencyQuantileMillis) {
+        this.maxConcurrency = maxConcurrency;
+        this.inFlight = inFlight;
+        this.rejected = rejected;
+        this.getRequests = getRequests;
+        this.hedgedRequests = hedgedRequests;
+        this.hedgeWins = hedgeWins;
+        this.getLatencyQuantileMillis = getLatencyQuantileMillis;
+    }
+
+    // Getters
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Calls that failed because no slot became free within {@code dashboard.s3.max-wait}.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getGetRequests() {
+        return getRequests;
+    }
+
+    public long getHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Hedged GETs whose duplicate answered first.
+     */
+    public long getHedgeWins() {
+        return hedgeWins;
+    }
+
+    public double getHedgeRatio() {
+        return getRequests == 0 ? 0.0 : (double) hedgedRequests / getRequests;
+    }
+
+    /**
+     * Observed GET latency at {@code dashboard.s3.hedge-quantile}, or -1 until enough GETs were seen.
+     */
+    public long getGetLatencyQuantileMillis() {
+        return getLatencyQuantileMillis;
+    }
+}
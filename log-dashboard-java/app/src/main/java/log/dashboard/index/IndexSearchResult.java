@@ -0,0 +1,42 @@
+package log.dashboard.index;
+
+import log.dashboard.service.LogFileEntry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of asking the local index about a search scope.
+ * Keys in {@link #getMatches()} are confirmed matches; {@link #getFilesToScan()} still need a raw scan.
+ */
+public class IndexSearchResult {
+    private final boolean covered;
+    private final Map<String, Long> matches;
+    private final List<LogFileEntry> filesToScan;
+
+    IndexSearchResult(boolean covered, Map<String, Long> matches, List<LogFileEntry> filesToScan) {
+        this.covered = covered;
+        this.matches = matches;
+        this.filesToScan = filesToScan;
+    }
+
+    public static IndexSearchResult notCovered(List<LogFileEntry> logFiles) {
+        return new IndexSearchResult(false, Collections.emptyMap(), logFiles);
+    }
+
+    public boolean isCovered() {
+        return covered;
+    }
+
+    /**
+     * Matching object keys mapped to the byte offset of a line containing the query.
+     */
+    public Map<String, Long> getMatches() {
+        return matches;
+    }
+
+    public List<LogFileEntry> getFilesToScan() {
+        return filesToScan;
+    }
+}
@@ -0,0 +1,263 @@
+package log.dashboard.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import log.dashboard.config.DashboardProperties;
+import log.dashboard.config.S3ClientConfiguration;
+import log.dashboard.service.ListingCache;
+import log.dashboard.service.LogFileEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Optional local full-text index over the log objects in S3 (enable with {@code dashboard.index.enabled=true}).
+ * <p>
+ * Scopes are indexed lazily: the first search on a bucket/env/app/date answers from raw objects and queues the
+ * scope for indexing. Scopes whose date still receives uploads are re-checked periodically, listing each VM
+ * prefix from its start: sequence numbers are not zero-padded, so a new "-10.log" sorts before a known "-9.log".
+ */
+@Service
+public class LogIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogIndexService.class);
+
+    private final Map<String, S3Client> s3Clients;
+    private final DashboardProperties.Index indexProperties;
+    private final ListingCache listingCache;
+    private final Path rootDirectory;
+    private final Map<Path, ScopeIndex> scopes = new ConcurrentHashMap<>();
+    private final Set<Path> pendingSyncs = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService indexExecutor;
+
+    @Autowired
+    public LogIndexService(S3ClientConfiguration s3ClientConfiguration, DashboardProperties dashboardProperties,
+                           ListingCache listingCache) {
+        this.s3Clients = s3ClientConfiguration.s3Clients();
+        this.listingCache = listingCache;
+        this.indexProperties = dashboardProperties.getIndex();
+        this.rootDirectory = Paths.get(indexProperties.getDirectory()).toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!indexProperties.isEnabled()) {
+            logger.info("Local log index is disabled (dashboard.index.enabled=false).");
+            return;
+        }
+        // A single low-priority thread: indexing is background work and must not compete with user requests
+        indexExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-index");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        loadExistingScopes();
+        long intervalMillis = indexProperties.getRefreshInterval().toMillis();
+        indexExecutor.scheduleWithFixedDelay(this::refreshRecentScopes, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Local log index enabled at {} ({} scopes loaded, refresh every {}).",
+                rootDirectory, scopes.size(), indexProperties.getRefreshInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (indexExecutor != null) {
+            indexExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return indexExecutor != null;
+    }
+
+    /**
+     * Answers a search from the index when every listed object is indexed at its current ETag.
+     * Otherwise the result is "not covered" and the missing objects are queued for indexing.
+     */
+    public IndexSearchResult search(String bucket, String env, String appName, String date, String query,
+                                    List<LogFileEntry> logFiles) {
+        if (!isEnabled()) {
+            return IndexSearchResult.notCovered(logFiles);
+        }
+        ScopeIndex scope;
+        try {
+            scope = scopeFor(bucket, env, appName, date);
+        } catch (IOException e) {
+            logger.warn("Could not open log index for bucket={}, env={}, app={}, date={}: {}",
+                    bucket, env, appName, date, e.getMessage());
+            return IndexSearchResult.notCovered(logFiles);
+        }
+
+        List<LogFileEntry> missing = scope.uncovered(logFiles);
+        if (!missing.isEmpty()) {
+            logger.info("Log index does not cover {} of {} files for bucket={}, env={}, app={}, date={}; scanning raw objects",
+                    missing.size(), logFiles.size(), bucket, env, appName, date);
+            scheduleSync(scope, missing);
+            return IndexSearchResult.notCovered(logFiles);
+        }
+        return scope.search(query, logFiles);
+    }
+
+    private ScopeIndex scopeFor(String bucket, String env, String appName, String date) throws IOException {
+        ScopeIndex known = scopes.get(ScopeIndex.directoryFor(rootDirectory, bucket, env, appName, date));
+        if (known != null) {
+            return known;
+        }
+        ScopeIndex opened = ScopeIndex.open(rootDirectory, bucket, env, appName, date);
+        ScopeIndex existing = scopes.putIfAbsent(opened.getDirectory(), opened);
+        return existing != null ? existing : opened;
+    }
+
+    private void scheduleSync(ScopeIndex scope, List<LogFileEntry> knownEntries) {
+        if (!pendingSyncs.add(scope.getDirectory())) {
+            return; // Already queued; a later search re-checks coverage
+        }
+        indexExecutor.execute(() -> {
+            try {
+                syncScope(scope, knownEntries);
+            } finally {
+                pendingSyncs.remove(scope.getDirectory());
+            }
+        });
+    }
+
+    private void refreshRecentScopes() {
+        for (ScopeIndex scope : scopes.values()) {
+            // Same cut-off as the listing cache: a date still receiving its last uploads stays live
+            if (listingCache.isImmutable(scope.getDate())) {
+                continue;
+            }
+            if (pendingSyncs.add(scope.getDirectory())) {
+                try {
+                    syncScope(scope, List.of());
+                } finally {
+                    pendingSyncs.remove(scope.getDirectory());
+                }
+            }
+        }
+    }
+
+    private void syncScope(ScopeIndex scope, List<LogFileEntry> knownEntries) {
+        String bucket = scope.getBucket();
+        S3Client s3Client = s3Clients.get(bucket);
+        if (s3Client == null) {
+            logger.warn("No S3 client configured for bucket {}; skipping index sync", bucket);
+            return;
+        }
+        int indexed = 0;
+        try {
+            // Objects a search has just seen uncovered (including keys rewritten in place under the same name)
+            for (LogFileEntry entry : knownEntries) {
+                if (!scope.covers(entry.getKey(), entry.getEtag(), entry.getSize()) && indexObject(s3Client, scope, entry.getKey())) {
+                    indexed++;
+                }
+            }
+
+            // Objects uploaded or rewritten since the last sync, per VM prefix
+            for (String vmPrefix : listVmPrefixes(s3Client, bucket, scope.getEnv(), scope.getAppName())) {
+                String datePrefix = vmPrefix + scope.getDate() + "/";
+                ListObjectsV2Request request = ListObjectsV2Request.builder()
+                        .bucket(bucket)
+                        .prefix(datePrefix)
+                        .build();
+                ListObjectsV2Response response;
+                do {
+                    response = s3Client.listObjectsV2(request);
+                    for (S3Object s3Object : response.contents()) {
+                        if (!scope.covers(s3Object.key(), s3Object.eTag(), s3Object.size()) && indexObject(s3Client, scope, s3Object.key())) {
+                            indexed++;
+                        }
+                    }
+                    request = request.toBuilder().continuationToken(response.nextContinuationToken()).build();
+                } while (response.isTruncated());
+            }
+            if (indexed > 0) {
+                logger.info("Indexed {} objects for bucket={}, env={}, app={}, date={}",
+                        indexed, bucket, scope.getEnv(), scope.getAppName(), scope.getDate());
+            }
+        } catch (S3Exception e) {
+            logger.error("S3 Error syncing log index for bucket {}, scope {}: {} (AWS Code: {})",
+                    bucket, scope.getDirectory(), e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
+        } catch (SdkClientException e) {
+            logger.error("Error syncing log index for bucket {}, scope {}: {}", bucket, scope.getDirectory(), e.getMessage(), e);
+        } catch (Exception e) {
+            logger.error("Unexpected error syncing log index for bucket {}, scope {}: {}", bucket, scope.getDirectory(), e.getMessage(), e);
+        }
+    }
+
+    private List<String> listVmPrefixes(S3Client s3Client, String bucket, String env, String appName) {
+        List<String> vmPrefixes = new ArrayList<>();
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(String.format("%s/%s/", env, appName))
+                .delimiter("/")
+                .build();
+        ListObjectsV2Response response;
+        do {
+            response = s3Client.listObjectsV2(request);
+            for (CommonPrefix commonPrefix : response.commonPrefixes()) {
+                vmPrefixes.add(commonPrefix.prefix());
+            }
+            request = request.toBuilder().continuationToken(response.nextContinuationToken()).build();
+        } while (response.isTruncated());
+        return vmPrefixes;
+    }
+
+    private boolean indexObject(S3Client s3Client, ScopeIndex scope, String key) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(scope.getBucket())
+                .key(key)
+                .build();
+        try (ResponseInputStream<GetObjectResponse> s3ObjectStream = s3Client.getObject(getObjectRequest)) {
+            GetObjectResponse response = s3ObjectStream.response();
+            // Record the ETag of the bytes actually indexed, not the one from a possibly stale listing
+            scope.indexObject(key, response.eTag(), response.contentLength(), s3ObjectStream, indexProperties.getMaxTermsPerSegment());
+            logger.debug("Indexed s3://{}/{}", scope.getBucket(), key);
+            return true;
+        } catch (S3Exception e) {
+            logger.warn("S3 Error indexing object for bucket {}, key {}: {} (AWS Code: {})",
+                    scope.getBucket(), key, e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode());
+        } catch (IOException | SdkClientException e) {
+            logger.warn("Error indexing object for bucket {}, key {}: {}", scope.getBucket(), key, e.getMessage());
+        }
+        return false;
+    }
+
+    private void loadExistingScopes() {
+        if (!Files.isDirectory(rootDirectory)) {
+            return;
+        }
+        // root/bucket/env/app/date/scope.properties
+        try (Stream<Path> files = Files.walk(rootDirectory, 5)) {
+            files.filter(path -> path.getFileName().toString().equals(ScopeIndex.SCOPE_FILE)).forEach(scopeFile -> {
+                try {
+                    ScopeIndex scope = ScopeIndex.open(scopeFile);
+                    scopes.put(scope.getDirectory(), scope);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Ignoring unreadable log index scope {}: {}", scopeFile.getParent(), e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Error loading existing log index scopes from {}: {}", rootDirectory, e.getMessage(), e);
+        }
+    }
+}
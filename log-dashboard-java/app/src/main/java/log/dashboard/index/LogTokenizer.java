@@ -0,0 +1,138 @@
+package log.dashboard.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits raw log bytes into index terms: maximal runs of ASCII letters, digits and '_'.
+ * Everything else (whitespace, punctuation, non-ASCII bytes) separates terms.
+ * <p>
+ * Because a term is a maximal run, a query made only of term characters occurs in a line
+ * exactly when it is a substring of one of that line's terms. Queries containing separators
+ * can only be narrowed by the index and still need a raw scan to confirm.
+ */
+final class LogTokenizer {
+
+    static final int MAX_TERM_LENGTH = 256;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private LogTokenizer() {
+    }
+
+    static boolean isTermByte(int b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    /**
+     * Streams the content through the tokenizer, reporting each term with the byte offset of the line it starts on.
+     */
+    static void tokenize(InputStream in, SegmentWriter writer) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        byte[] term = new byte[MAX_TERM_LENGTH];
+        int termLength = 0;
+        boolean termOverflow = false;
+        long position = 0;
+        long lineOffset = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (isTermByte(b)) {
+                    if (termLength < term.length) {
+                        term[termLength++] = b;
+                    } else {
+                        termOverflow = true;
+                    }
+                    continue;
+                }
+                if (termLength > 0) {
+                    emit(writer, term, termLength, termOverflow, lineOffset);
+                    termLength = 0;
+                    termOverflow = false;
+                }
+                if (b == '\n') {
+                    lineOffset = position + i + 1;
+                }
+            }
+            position += read;
+        }
+        if (termLength > 0) {
+            emit(writer, term, termLength, termOverflow, lineOffset);
+        }
+    }
+
+    private static void emit(SegmentWriter writer, byte[] term, int length, boolean overflow, long lineOffset) throws IOException {
+        if (overflow) {
+            // The full term was not kept, so "no matching term" no longer proves "no match" for this object
+            writer.markLossy();
+            return;
+        }
+        writer.add(new String(term, 0, length, StandardCharsets.ISO_8859_1), lineOffset);
+    }
+
+    /**
+     * Breaks a query into the term-character runs it contains. A run bounded by a separator on a side
+     * must line up with the edge of an indexed term on that side.
+     */
+    static List<QueryTerm> analyze(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            if (!isTermChar(query.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < query.length() && isTermChar(query.charAt(i))) {
+                i++;
+            }
+            terms.add(new QueryTerm(query.substring(start, i), start > 0, i < query.length()));
+        }
+        return terms;
+    }
+
+    /**
+     * True when the query is a single run of term characters, so the index alone can answer it exactly.
+     */
+    static boolean isSingleTerm(String query) {
+        if (query.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < query.length(); i++) {
+            if (!isTermChar(query.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTermChar(char c) {
+        return c < 128 && isTermByte(c);
+    }
+
+    static final class QueryTerm {
+        private final String text;
+        private final boolean leftBounded;
+        private final boolean rightBounded;
+
+        QueryTerm(String text, boolean leftBounded, boolean rightBounded) {
+            this.text = text;
+            this.leftBounded = leftBounded;
+            this.rightBounded = rightBounded;
+        }
+
+        boolean matches(String term) {
+            if (leftBounded && rightBounded) {
+                return term.equals(text);
+            } else if (leftBounded) {
+                return term.startsWith(text);
+            } else if (rightBounded) {
+                return term.endsWith(text);
+            }
+            return term.contains(text);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package log.dashboard.index;
+
+import log.dashboard.index.LogTokenizer.QueryTerm;
+import log.dashboard.service.LogFileEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk index for one bucket/env/app/date scope.
+ * <p>
+ * Directory layout: {@code scope.properties} (the scope coordinates), {@code manifest.tsv}
+ * (indexed objects with the ETag they were indexed at) and one or more segment parts per object.
+ */
+final class ScopeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScopeIndex.class);
+
+    static final String SCOPE_FILE = "scope.properties";
+    private static final String MANIFEST_FILE = "manifest.tsv";
+
+    private final Path directory;
+    private final String bucket;
+    private final String env;
+    private final String appName;
+    private final String date;
+    private final Map<String, IndexedObject> objects = new ConcurrentHashMap<>();
+
+    private ScopeIndex(Path directory, String bucket, String env, String appName, String date) {
+        this.directory = directory;
+        this.bucket = bucket;
+        this.env = env;
+        this.appName = appName;
+        this.date = date;
+    }
+
+    /**
+     * Opens the index for a scope, loading whatever was persisted by earlier runs.
+     */
+    static ScopeIndex open(Path root, String bucket, String env, String appName, String date) throws IOException {
+        Path directory = directoryFor(root, bucket, env, appName, date);
+        ScopeIndex scope = new ScopeIndex(directory, bucket, env, appName, date);
+        scope.load();
+        return scope;
+    }
+
+    /**
+     * Re-opens a scope directory found on disk, using the coordinates recorded in its {@code scope.properties}.
+     */
+    static ScopeIndex open(Path scopeFile) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(scopeFile, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        ScopeIndex scope = new ScopeIndex(scopeFile.getParent(), props.getProperty("bucket"), props.getProperty("env"),
+                props.getProperty("appName"), props.getProperty("date"));
+        scope.load();
+        return scope;
+    }
+
+    static Path directoryFor(Path root, String bucket, String env, String appName, String date) {
+        return root.resolve(encode(bucket)).resolve(encode(env)).resolve(encode(appName)).resolve(encode(date));
+    }
+
+    // Path components come from request parameters, so never let them be interpreted as "." or ".."
+    static String encode(String component) {
+        return URLEncoder.encode(component, StandardCharsets.UTF_8).replace(".", "%2E").replace("*", "%2A");
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    String getBucket() {
+        return bucket;
+    }
+
+    String getEnv() {
+        return env;
+    }
+
+    String getAppName() {
+        return appName;
+    }
+
+    String getDate() {
+        return date;
+    }
+
+    boolean covers(String key, String etag, long size) {
+        IndexedObject indexed = objects.get(key);
+        if (indexed == null) {
+            return false;
+        }
+        return etag != null ? etag.equals(indexed.etag) : size == indexed.size;
+    }
+
+    List<LogFileEntry> uncovered(List<LogFileEntry> logFiles) {
+        List<LogFileEntry> missing = new ArrayList<>();
+        for (LogFileEntry entry : logFiles) {
+            if (!covers(entry.getKey(), entry.getEtag(), entry.getSize())) {
+                missing.add(entry);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Answers a query for objects that are all covered by this index.
+     */
+    IndexSearchResult search(String query, List<LogFileEntry> logFiles) {
+        List<QueryTerm> queryTerms = LogTokenizer.analyze(query);
+        if (queryTerms.isEmpty()) {
+            // Nothing the index can constrain on (e.g. a pure punctuation query)
+            return IndexSearchResult.notCovered(logFiles);
+        }
+        boolean exact = LogTokenizer.isSingleTerm(query);
+
+        Map<String, Long> matches = new LinkedHashMap<>();
+        List<LogFileEntry> filesToScan = new ArrayList<>();
+        for (LogFileEntry entry : logFiles) {
+            IndexedObject indexed = objects.get(entry.getKey());
+            if (indexed == null || !indexed.exact) {
+                filesToScan.add(entry);
+                continue;
+            }
+            try {
+                long lineOffset = SegmentReader.findAll(partPaths(indexed), queryTerms);
+                if (lineOffset < 0) {
+                    continue; // Some query term has no matching term: the object cannot contain the query
+                }
+                if (exact) {
+                    matches.put(entry.getKey(), lineOffset);
+                } else {
+                    filesToScan.add(entry);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read index segments for key {}, falling back to raw scan: {}", entry.getKey(), e.getMessage());
+                filesToScan.add(entry);
+            }
+        }
+        return new IndexSearchResult(true, matches, filesToScan);
+    }
+
+    /**
+     * Tokenizes the object content into fresh segment parts and records it in the manifest.
+     * Segments of a previous version of the same key are removed once the manifest points at the new ones.
+     */
+    void indexObject(String key, String etag, long size, InputStream content, int maxTermsPerSegment) throws IOException {
+        if (key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0) {
+            throw new IOException("Key cannot be recorded in the index manifest: " + key);
+        }
+        Files.createDirectories(directory);
+        String baseName = baseName(key, etag);
+        SegmentWriter writer = new SegmentWriter(directory, baseName, maxTermsPerSegment);
+        LogTokenizer.tokenize(content, writer);
+        int parts = writer.finish();
+
+        IndexedObject previous = objects.put(key, new IndexedObject(key, etag, size, baseName, parts, !writer.isLossy()));
+        saveManifest();
+        if (previous != null && !previous.baseName.equals(baseName)) {
+            for (Path part : partPaths(previous)) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private synchronized void saveManifest() throws IOException {
+        writeScopeFile();
+        writeAtomically(directory.resolve(MANIFEST_FILE), writer -> {
+            for (IndexedObject indexed : objects.values()) {
+                writer.write(String.join("\t", indexed.key, Objects.toString(indexed.etag, ""), Long.toString(indexed.size),
+                        indexed.baseName, Integer.toString(indexed.parts), Boolean.toString(indexed.exact)));
+                writer.write("\n");
+            }
+        });
+    }
+
+    private void writeScopeFile() throws IOException {
+        Path scopeFile = directory.resolve(SCOPE_FILE);
+        if (Files.exists(scopeFile)) {
+            return;
+        }
+        Properties props = new Properties();
+        props.setProperty("bucket", bucket);
+        props.setProperty("env", env);
+        props.setProperty("appName", appName);
+        props.setProperty("date", date);
+        writeAtomically(scopeFile, writer -> props.store(writer, "Log index scope"));
+    }
+
+    private void load() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 6) {
+                    logger.warn("Skipping malformed index manifest line in {}: {}", manifest, line);
+                    continue;
+                }
+                String etag = fields[1].isEmpty() ? null : fields[1];
+                objects.put(fields[0], new IndexedObject(fields[0], etag, Long.parseLong(fields[2]), fields[3],
+                        Integer.parseInt(fields[4]), Boolean.parseBoolean(fields[5])));
+            }
+        }
+        logger.debug("Opened log index scope {} with {} objects", directory, objects.size());
+    }
+
+    private List<Path> partPaths(IndexedObject indexed) {
+        List<Path> paths = new ArrayList<>(indexed.parts);
+        for (int part = 0; part < indexed.parts; part++) {
+            paths.add(SegmentWriter.partPath(directory, indexed.baseName, part));
+        }
+        return paths;
+    }
+
+    private static String baseName(String key, String etag) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Objects.toString(etag, "").getBytes(StandardCharsets.UTF_8));
+            return "obj-" + HexFormat.of().formatHex(digest.digest(), 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void writeAtomically(Path target, WriterBody body) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            body.write(writer);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @FunctionalInterface
+    private interface WriterBody {
+        void write(Writer writer) throws IOException;
+    }
+
+    private static final class IndexedObject {
+        private final String key;
+        private final String etag;
+        private final long size;
+        private final String baseName;
+        private final int parts;
+        private final boolean exact;
+
+        IndexedObject(String key, String etag, long size, String baseName, int parts, boolean exact) {
+            this.key = key;
+            this.etag = etag;
+            this.size = size;
+            this.baseName = baseName;
+            this.parts = parts;
+            this.exact = exact;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package log.dashboard.index;
+
+import log.dashboard.index.LogTokenizer.QueryTerm;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Scans segment parts written by {@link SegmentWriter}. Term dictionaries are read sequentially;
+ * posting lists of non-matching terms are skipped without being decoded.
+ */
+final class SegmentReader {
+
+    private SegmentReader() {
+    }
+
+    /**
+     * Checks whether every query term matches at least one term across the given parts.
+     *
+     * @return the line offset of the first posting of the last term matched, or -1 if some query term is absent
+     */
+    static long findAll(List<Path> parts, List<QueryTerm> queryTerms) throws IOException {
+        boolean[] matched = new boolean[queryTerms.size()];
+        int remaining = queryTerms.size();
+        long lineOffset = -1;
+
+        for (Path part : parts) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(part), 64 * 1024))) {
+                if (in.readInt() != SegmentWriter.MAGIC || in.readInt() != SegmentWriter.VERSION) {
+                    throw new IOException("Unsupported index segment format: " + part);
+                }
+                int termCount = in.readInt();
+                for (int t = 0; t < termCount; t++) {
+                    String term = in.readUTF();
+                    int postingCount = in.readInt();
+                    boolean consumed = false;
+                    for (int q = 0; q < matched.length; q++) {
+                        if (!matched[q] && queryTerms.get(q).matches(term)) {
+                            matched[q] = true;
+                            remaining--;
+                            if (!consumed && postingCount > 0) {
+                                lineOffset = in.readLong();
+                                in.skipNBytes(8L * (postingCount - 1));
+                                consumed = true;
+                            }
+                        }
+                    }
+                    if (remaining == 0) {
+                        return Math.max(lineOffset, 0);
+                    }
+                    if (!consumed) {
+                        in.skipNBytes(8L * postingCount);
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+}
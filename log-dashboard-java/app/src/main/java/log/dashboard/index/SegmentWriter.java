@@ -0,0 +1,118 @@
+package log.dashboard.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers the terms of one S3 object and writes them as sorted, immutable segment parts.
+ * <p>
+ * Part layout: MAGIC, VERSION, termCount, then per term: UTF term, postingCount, postingCount x long line offset.
+ * A part is flushed whenever the buffered dictionary reaches {@code maxTerms}, so memory stays bounded on large files.
+ */
+final class SegmentWriter {
+
+    static final int MAGIC = 0x4C494458; // "LIDX"
+    static final int VERSION = 1;
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    // Only the first few occurrences per term are kept; they point back into the object, the term itself proves a match
+    private static final int MAX_POSTINGS_PER_TERM = 64;
+
+    private final Path directory;
+    private final String baseName;
+    private final int maxTerms;
+    private final Map<String, Postings> terms = new HashMap<>();
+    private int parts;
+    private boolean lossy;
+
+    SegmentWriter(Path directory, String baseName, int maxTerms) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.maxTerms = maxTerms;
+    }
+
+    static Path partPath(Path directory, String baseName, int part) {
+        return directory.resolve(baseName + "." + part + SEGMENT_SUFFIX);
+    }
+
+    void add(String term, long lineOffset) throws IOException {
+        Postings postings = terms.get(term);
+        if (postings == null) {
+            if (terms.size() >= maxTerms) {
+                flush();
+            }
+            postings = new Postings();
+            terms.put(term, postings);
+        }
+        postings.add(lineOffset);
+    }
+
+    void markLossy() {
+        this.lossy = true;
+    }
+
+    boolean isLossy() {
+        return lossy;
+    }
+
+    /**
+     * Flushes the remaining terms and returns the number of parts written.
+     */
+    int finish() throws IOException {
+        flush();
+        return parts;
+    }
+
+    private void flush() throws IOException {
+        if (terms.isEmpty()) {
+            return;
+        }
+        Path target = partPath(directory, baseName, parts);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        List<String> sorted = new ArrayList<>(terms.keySet());
+        Collections.sort(sorted);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            for (String term : sorted) {
+                Postings postings = terms.get(term);
+                out.writeUTF(term);
+                out.writeInt(postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    out.writeLong(postings.offsets[i]);
+                }
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        parts++;
+        terms.clear();
+    }
+
+    private static final class Postings {
+        private long[] offsets = new long[2];
+        private int size;
+
+        void add(long lineOffset) {
+            // Several occurrences on one line collapse into one posting
+            if ((size > 0 && offsets[size - 1] == lineOffset) || size == MAX_POSTINGS_PER_TERM) {
+                return;
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.min(size * 2, MAX_POSTINGS_PER_TERM));
+            }
+            offsets[size++] = lineOffset;
+        }
+    }
+}
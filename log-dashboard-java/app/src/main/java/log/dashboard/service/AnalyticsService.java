@@ -0,0 +1,212 @@
+package log.dashboard.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import log.dashboard.config.DashboardProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-minute error/warn counts and log volume for a bucket/env/app/date, per VM and in total.
+ * <p>
+ * The first request for a scope scans its objects on a fork-join pool (objects in parallel, large
+ * objects split into blocks read with ranged GETs) and stores compact per-object counters on disk.
+ * Later requests are answered from memory. Scopes of today and yesterday that have been requested
+ * are refreshed in the background, scanning only objects that are new or whose ETag changed.
+ */
+@Service
+public class AnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+
+    private final LogService logService;
+    private final DashboardProperties.Analytics analyticsProperties;
+    private final Path rootDirectory;
+    private final Map<String, ScopeVolume> scopes = new ConcurrentHashMap<>();
+    // Refreshes of one scope never overlap: a second caller waits for the running one
+    private final SingleFlight<ScopeVolume> refreshFlights = new SingleFlight<>();
+    private ForkJoinPool scanPool;
+    private ScheduledExecutorService refreshExecutor;
+
+    @Autowired
+    public AnalyticsService(LogService logService, DashboardProperties dashboardProperties) {
+        this.logService = logService;
+        this.analyticsProperties = dashboardProperties.getAnalytics();
+        this.rootDirectory = Paths.get(analyticsProperties.getDirectory()).toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!analyticsProperties.isEnabled()) {
+            logger.info("Log analytics are disabled (dashboard.analytics.enabled=false).");
+            return;
+        }
+        scanPool = new ForkJoinPool(analyticsProperties.getParallelism(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("analytics-scan-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analytics-refresh");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        long intervalMillis = analyticsProperties.getRefreshInterval().toMillis();
+        refreshExecutor.scheduleWithFixedDelay(this::refreshRecentScopes, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Log analytics enabled at {} (parallelism {}, refresh every {}).",
+                rootDirectory, analyticsProperties.getParallelism(), analyticsProperties.getRefreshInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (scanPool != null) {
+            scanPool.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return scanPool != null;
+    }
+
+    /**
+     * Returns the histograms of a scope in buckets of {@code resolution} minutes, computing them on
+     * the first request.
+     *
+     * @throws IllegalArgumentException for a malformed date or resolution, or when analytics are disabled
+     */
+    public AppAnalytics getAnalytics(String bucket, String env, String appName, String date, int resolution) throws IOException {
+        if (!isEnabled()) {
+            throw new IllegalArgumentException("Log analytics are disabled");
+        }
+        if (resolution < 1 || resolution > MinuteCounters.MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Resolution must be between 1 and " + MinuteCounters.MINUTES_PER_DAY + " minutes");
+        }
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        ScopeVolume scope = scopeFor(bucket, env, appName, date);
+        if (!scope.isComputed()) {
+            try {
+                scope = refresh(bucket, env, appName, date);
+            } catch (IOException | RuntimeException e) {
+                // Not kept for background refreshes, e.g. when the bucket is not configured
+                scopes.remove(scopeKey(bucket, env, appName, date), scope);
+                throw e;
+            }
+        }
+        return scope.toAnalytics(env, appName, date, resolution);
+    }
+
+    private ScopeVolume scopeFor(String bucket, String env, String appName, String date) throws IOException {
+        String scopeKey = scopeKey(bucket, env, appName, date);
+        ScopeVolume known = scopes.get(scopeKey);
+        if (known != null) {
+            return known;
+        }
+        ScopeVolume opened = ScopeVolume.open(fileFor(bucket, env, appName, date));
+        ScopeVolume existing = scopes.putIfAbsent(scopeKey, opened);
+        return existing != null ? existing : opened;
+    }
+
+    // Brings a scope up to date with its current listing, scanning only objects it does not cover
+    private ScopeVolume refresh(String bucket, String env, String appName, String date) throws IOException {
+        String scopeKey = scopeKey(bucket, env, appName, date);
+        return refreshFlights.execute(scopeKey, () -> {
+            ScopeVolume scope = scopeFor(bucket, env, appName, date);
+            List<LogFileEntry> listed = logService.listLogFiles(bucket, env, appName, date);
+            LogLineParser parser = logService.parserFor(appName);
+            long dayStartMillis = TimestampParser.toMillis(LocalDate.parse(date).atStartOfDay());
+            long blockSize = analyticsProperties.getBlockSize().toBytes();
+
+            List<LogFileEntry> pending = new ArrayList<>();
+            List<ForkJoinTask<VolumeScanTask.BlockCounts>> scans = new ArrayList<>();
+            for (LogFileEntry entry : listed) {
+                if (!scope.covers(entry)) {
+                    pending.add(entry);
+                    scans.add(scanPool.submit(new VolumeScanTask(logService, bucket, entry, parser, dayStartMillis, blockSize)));
+                }
+            }
+            try {
+                for (int i = 0; i < scans.size(); i++) {
+                    scope.put(pending.get(i), scans.get(i).join().counters);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                for (ForkJoinTask<VolumeScanTask.BlockCounts> scan : scans) {
+                    scan.cancel(false);
+                }
+            }
+            scope.completeRefresh(listed);
+            scope.save();
+            if (!pending.isEmpty()) {
+                logger.info("Scanned {} of {} objects for analytics of bucket={}, env={}, app={}, date={}",
+                        pending.size(), listed.size(), bucket, env, appName, date);
+            }
+            return scope;
+        });
+    }
+
+    private void refreshRecentScopes() {
+        for (String scopeKey : scopes.keySet()) {
+            // bucket/env/app/date, each part URL-encoded
+            String[] parts = scopeKey.split("/");
+            String date = decode(parts[3]);
+            try {
+                // Same cut-off as the listing cache: a date still receiving its last uploads stays live
+                if (logService.isImmutableDate(date)) {
+                    continue;
+                }
+                refresh(decode(parts[0]), decode(parts[1]), decode(parts[2]), date);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Error refreshing analytics for scope {}: {}", scopeKey, e.getMessage());
+            }
+        }
+    }
+
+    private Path fileFor(String bucket, String env, String appName, String date) {
+        return rootDirectory.resolve(encode(bucket)).resolve(encode(env)).resolve(encode(appName)).resolve(encode(date) + ".volume");
+    }
+
+    private static String scopeKey(String bucket, String env, String appName, String date) {
+        return encode(bucket) + "/" + encode(env) + "/" + encode(appName) + "/" + encode(date);
+    }
+
+    // Path components come from request parameters, so never let them be interpreted as "." or ".."
+    private static String encode(String component) {
+        return URLEncoder.encode(component, StandardCharsets.UTF_8).replace(".", "%2E").replace("*", "%2A");
+    }
+
+    private static String decode(String component) {
+        return URLDecoder.decode(component, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,66 @@
+package log.dashboard.service;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Level and volume histograms of one bucket/env/app/date, in total and per VM, as of {@code updatedAt}.
+ */
+public class AppAnalytics {
+    private final String env;
+    private final String appName;
+    private final String date;
+    private final int resolutionMinutes;
+    private final int objects;
+    private final Instant updatedAt;
+    private final VolumeSeries total;
+    private final Map<String, VolumeSeries> vms;
+
+    public AppAnalytics(String env, String appName, String date, int resolutionMinutes, int objects,
+                        Instant updatedAt, VolumeSeries total, Map<String, VolumeSeries> vms) {
+        this.env = env;
+        this.appName = appName;
+        this.date = date;
+        this.resolutionMinutes = resolutionMinutes;
+        this.objects = objects;
+        this.updatedAt = updatedAt;
+        this.total = total;
+        this.vms = vms;
+    }
+
+    // Getters
+    public String getEnv() {
+        return env;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public int getResolutionMinutes() {
+        return resolutionMinutes;
+    }
+
+    /**
+     * Number of log objects summarized.
+     */
+    public int getObjects() {
+        return objects;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public VolumeSeries getTotal() {
+        return total;
+    }
+
+    public Map<String, VolumeSeries> getVms() {
+        return vms;
+    }
+}
@@ -0,0 +1,53 @@
+package log.dashboard.service;
+
+/**
+ * Point-in-time counters of one of the dashboard's caches, as returned by {@code /api/stats/caches}.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long entries;
+    private final long sizeBytes;
+
+    public CacheStats(long hits, long misses, long evictions, long entries) {
+        this(hits, misses, evictions, entries, -1);
+    }
+
+    public CacheStats(long hits, long misses, long evictions, long entries, long sizeBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.sizeBytes = sizeBytes;
+    }
+
+    // Getters
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Bytes held by the cache, or -1 when the cache does not track its size.
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
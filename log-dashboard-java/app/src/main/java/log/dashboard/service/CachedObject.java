@@ -0,0 +1,201 @@
+package log.dashboard.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A log object held in the local {@link ContentCache}. Content is read through read-only
+ * memory mappings of the cached file, so repeated reads are served from the page cache.
+ */
+class CachedObject {
+
+    // Mapping window; keeps each mapping well below the 2 GiB MappedByteBuffer limit
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path path;
+    private final String etag;
+    private final Instant lastModified;
+    private final long size;
+    private final boolean deleteOnClose;
+    private final Pin pin;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    /**
+     * Keeps the cached file from being evicted while a stream or read has it open.
+     */
+    interface Pin {
+        Pin NONE = new Pin() {
+            @Override
+            public void acquire() {
+            }
+
+            @Override
+            public void release() {
+            }
+        };
+
+        void acquire() throws IOException;
+
+        void release();
+    }
+
+    CachedObject(Path path, String etag, Instant lastModified, long size, boolean deleteOnClose) {
+        this(path, etag, lastModified, size, deleteOnClose, Pin.NONE);
+    }
+
+    CachedObject(Path path, String etag, Instant lastModified, long size, boolean deleteOnClose, Pin pin) {
+        this.path = path;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.size = size;
+        this.deleteOnClose = deleteOnClose;
+        this.pin = pin;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    Instant getLastModified() {
+        return lastModified;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Opens the content as a stream over successive memory-mapped windows of the cached file.
+     * Objects too large to be retained by the cache are deleted when the stream is closed.
+     */
+    InputStream openStream() throws IOException {
+        return openStream(0);
+    }
+
+    /**
+     * Opens the content starting at byte {@code position}.
+     */
+    InputStream openStream(long position) throws IOException {
+        pin.acquire();
+        try {
+            return new MappedInputStream(FileChannel.open(path, StandardOpenOption.READ), position);
+        } catch (IOException | RuntimeException e) {
+            pin.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads up to {@code length} bytes at {@code position}; fewer only at the end of the object.
+     */
+    int read(long position, byte[] buffer, int length) throws IOException {
+        pin.acquire();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+            while (target.hasRemaining() && channel.read(target, position + target.position()) >= 0) {
+                // positional reads until full or end of file
+            }
+            return target.position();
+        } finally {
+            pin.release();
+        }
+    }
+
+    /**
+     * Like {@link #openStream()}, but returns null if this is a not-retained object whose single read
+     * has already been claimed by another caller; such a caller needs its own download.
+     */
+    InputStream tryOpenStream() throws IOException {
+        if (deleteOnClose && !claimed.compareAndSet(false, true)) {
+            return null;
+        }
+        return openStream();
+    }
+
+    /**
+     * Gives up this object without reading it. A not-retained object nobody has claimed yet is deleted,
+     * since no stream will be closed on it.
+     */
+    void release() throws IOException {
+        if (deleteOnClose && claimed.compareAndSet(false, true)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private final class MappedInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long startPosition;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private boolean closed;
+
+        MappedInputStream(FileChannel channel, long startPosition) {
+            this.channel = channel;
+            this.startPosition = startPosition;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureWindow()) {
+                return -1;
+            }
+            return window.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!ensureWindow()) {
+                return -1;
+            }
+            int count = Math.min(length, window.remaining());
+            window.get(buffer, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return window == null ? (int) Math.min(Math.max(0, size - startPosition), Integer.MAX_VALUE) : window.remaining();
+        }
+
+        // Maps the next window once the current one is exhausted; false at end of file
+        private boolean ensureWindow() throws IOException {
+            if (window != null && window.hasRemaining()) {
+                return true;
+            }
+            long nextStart = window == null ? startPosition : windowStart + window.capacity();
+            if (nextStart >= size) {
+                return false;
+            }
+            windowStart = nextStart;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+                if (deleteOnClose) {
+                    Files.deleteIfExists(path);
+                }
+            } finally {
+                pin.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package log.dashboard.service;
+
+import jakarta.annotation.PostConstruct;
+import log.dashboard.config.DashboardProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded LRU cache of log object content on local disk, keyed by bucket + key + ETag.
+ * <p>
+ * A cached copy is served without touching S3 when the caller already knows the object's current ETag
+ * (e.g. from a listing). Otherwise it is revalidated with a conditional GET ({@code If-None-Match}),
+ * and only a changed object is downloaded again. Each cached file has a {@code .meta} sidecar so the
+ * cache survives restarts.
+ * <p>
+ * Eviction never deletes a file that is being read: every open stream or read pins its entry, and a
+ * handed-out object is leased for {@link #LEASE_NANOS} after its last use so it can still be opened.
+ * Pinned entries are skipped by eviction, and a pinned file replaced by a newer version is deleted
+ * once it is released.
+ */
+@Component
+public class ContentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentCache.class);
+    private static final String CONTENT_SUFFIX = ".log";
+    private static final String META_SUFFIX = ".meta";
+    // How long a handed-out object stays readable after it was looked up or last read
+    private static final long LEASE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final DashboardProperties.ContentCache cacheProperties;
+    private final Path directory;
+    private final long maxBytes;
+    private final LongSupplier nanoClock;
+    // Access-ordered: iteration starts at the least recently used entry; guarded by "this"
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Replaced while pinned; deleted once released. Guarded by "this"
+    private final List<Entry> retired = new ArrayList<>();
+    private boolean enabled;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ContentCache(DashboardProperties dashboardProperties) {
+        this(dashboardProperties, System::nanoTime);
+    }
+
+    // Leases run on the given clock, for tests
+    ContentCache(DashboardProperties dashboardProperties, LongSupplier nanoClock) {
+        this.cacheProperties = dashboardProperties.getContentCache();
+        this.directory = Paths.get(cacheProperties.getDirectory()).toAbsolutePath().normalize();
+        this.maxBytes = cacheProperties.getMaxSize().toBytes();
+        this.nanoClock = nanoClock;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!cacheProperties.isEnabled()) {
+            logger.info("Local content cache is disabled (dashboard.content-cache.enabled=false).");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            loadExistingEntries();
+            enabled = true;
+            logger.info("Local content cache at {} holding {} objects ({} of {} bytes).",
+                    directory, entries.size(), totalBytes, maxBytes);
+        } catch (IOException e) {
+            logger.error("Could not initialize content cache at {}, serving content straight from S3: {}",
+                    directory, e.getMessage(), e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the object's content from the cache, downloading or revalidating it as needed.
+     *
+     * @param expectedEtag the ETag the caller knows to be current, or null to revalidate against S3
+     */
+    CachedObject get(S3Client s3Client, String bucket, String key, String expectedEtag) throws IOException {
+        String cacheKey = bucket + "/" + key;
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(cacheKey);
+            if (cached != null) {
+                // Covers the revalidation below too, so a 304 never hands out an evicted file
+                cached.lease(nanoClock.getAsLong());
+            }
+        }
+        if (cached != null && expectedEtag != null && expectedEtag.equals(cached.etag)) {
+            hits.incrementAndGet();
+            return handOut(cached);
+        }
+
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key);
+        if (cached != null) {
+            request.ifNoneMatch(cached.etag);
+        }
+        try (ResponseInputStream<GetObjectResponse> s3ObjectStream = s3Client.getObject(request.build())) {
+            misses.incrementAndGet();
+            GetObjectResponse response = s3ObjectStream.response();
+            Path download = Files.createTempFile(directory, "download-", ".tmp");
+            try {
+                Files.copy(s3ObjectStream, download, StandardCopyOption.REPLACE_EXISTING);
+                return store(cacheKey, bucket, key, response.eTag(), response.lastModified(), download);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(download);
+                throw e;
+            }
+        } catch (S3Exception e) {
+            if (cached != null && e.statusCode() == 304) {
+                // Not modified: the cached copy is still current and no body was transferred
+                hits.incrementAndGet();
+                return handOut(cached);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the object is cached with the given ETag; does not count as a hit or miss.
+     */
+    boolean contains(String bucket, String key, String etag) {
+        synchronized (this) {
+            Entry cached = entries.get(bucket + "/" + key);
+            return cached != null && etag != null && etag.equals(cached.etag);
+        }
+    }
+
+    // Objects larger than the whole budget are served once and never retained
+    boolean canRetain(long size) {
+        return size <= maxBytes;
+    }
+
+    public CacheStats stats() {
+        synchronized (this) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), totalBytes);
+        }
+    }
+
+    private CachedObject store(String cacheKey, String bucket, String key, String etag, Instant lastModified,
+                               Path download) throws IOException {
+        long size = Files.size(download);
+        if (size > maxBytes) {
+            // Larger than the whole budget: serve this one read from the download, then drop it
+            logger.debug("Object s3://{}/{} ({} bytes) exceeds the content cache budget; not retained", bucket, key, size);
+            return new CachedObject(download, etag, lastModified, size, true);
+        }
+
+        String baseName = baseName(cacheKey, etag);
+        Path contentPath = directory.resolve(baseName + CONTENT_SUFFIX);
+        Files.move(download, contentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeMeta(directory.resolve(baseName + META_SUFFIX), bucket, key, etag, lastModified);
+
+        Entry entry = new Entry(cacheKey, etag, lastModified, size, contentPath);
+        List<Entry> removed;
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            entry.lease(now);
+            Entry previous = entries.put(cacheKey, entry);
+            totalBytes += size;
+            if (previous != null) {
+                totalBytes -= previous.size;
+                if (!previous.contentPath.equals(contentPath)) {
+                    retired.add(previous);
+                }
+            }
+            Iterator<Entry> lru = entries.values().iterator();
+            while (totalBytes > maxBytes && lru.hasNext()) {
+                Entry eldest = lru.next();
+                // Entries being read stay, even if that leaves the cache over budget for a while
+                if (eldest == entry || eldest.isPinned(now)) {
+                    continue;
+                }
+                lru.remove();
+                totalBytes -= eldest.size;
+                evictions.incrementAndGet();
+                retired.add(eldest);
+            }
+            removed = takeReleased(now);
+        }
+        // Files are deleted outside the lock, once nothing reads them
+        for (Entry stale : removed) {
+            deleteFiles(stale.contentPath);
+        }
+        return handOut(entry);
+    }
+
+    private CachedObject handOut(Entry entry) {
+        return new CachedObject(entry.contentPath, entry.etag, entry.lastModified, entry.size, false, new CachedObject.Pin() {
+            @Override
+            public void acquire() throws IOException {
+                synchronized (ContentCache.this) {
+                    if (entry.deleted) {
+                        throw new IOException("Cached copy of " + entry.cacheKey + " was evicted before it was read");
+                    }
+                    entry.readers++;
+                }
+            }
+
+            @Override
+            public void release() {
+                List<Entry> released;
+                synchronized (ContentCache.this) {
+                    long now = nanoClock.getAsLong();
+                    entry.readers--;
+                    entry.lease(now);
+                    released = takeReleased(now);
+                }
+                for (Entry stale : released) {
+                    deleteFiles(stale.contentPath);
+                }
+            }
+        });
+    }
+
+    // Retired entries nobody reads any more; marked deleted so a late open fails cleanly. Caller holds "this"
+    private List<Entry> takeReleased(long now) {
+        List<Entry> released = new ArrayList<>();
+        for (Iterator<Entry> it = retired.iterator(); it.hasNext(); ) {
+            Entry stale = it.next();
+            if (!stale.isPinned(now)) {
+                it.remove();
+                stale.deleted = true;
+                released.add(stale);
+            }
+        }
+        return released;
+    }
+
+    private void loadExistingEntries() throws IOException {
+        List<Path> metaFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            metaFiles = files.filter(path -> path.getFileName().toString().endsWith(META_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        List<Entry> loaded = new ArrayList<>();
+        for (Path metaFile : metaFiles) {
+            String baseName = metaFile.getFileName().toString();
+            baseName = baseName.substring(0, baseName.length() - META_SUFFIX.length());
+            Path contentPath = directory.resolve(baseName + CONTENT_SUFFIX);
+            try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+                Properties meta = new Properties();
+                meta.load(reader);
+                String lastModified = meta.getProperty("lastModified");
+                loaded.add(new Entry(meta.getProperty("bucket") + "/" + meta.getProperty("key"), meta.getProperty("etag"),
+                        lastModified == null ? null : Instant.parse(lastModified), Files.size(contentPath), contentPath));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Dropping unreadable content cache entry {}: {}", baseName, e.getMessage());
+                deleteFiles(contentPath);
+            }
+        }
+        // Oldest files first, so the most recently downloaded ones are the last to be evicted
+        loaded.sort(Comparator.comparing(entry -> lastModifiedTime(entry.contentPath)));
+        for (Entry entry : loaded) {
+            entries.put(entry.cacheKey, entry);
+            totalBytes += entry.size;
+        }
+        Iterator<Entry> lru = entries.values().iterator();
+        while (totalBytes > maxBytes && lru.hasNext()) {
+            Entry eldest = lru.next();
+            lru.remove();
+            totalBytes -= eldest.size;
+            deleteFiles(eldest.contentPath);
+        }
+        // Leftovers of downloads interrupted by a previous shutdown
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (path.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void writeMeta(Path metaFile, String bucket, String key, String etag, Instant lastModified) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("bucket", bucket);
+        meta.setProperty("key", key);
+        if (etag != null) {
+            meta.setProperty("etag", etag);
+        }
+        if (lastModified != null) {
+            meta.setProperty("lastModified", lastModified.toString());
+        }
+        try (Writer writer = Files.newBufferedWriter(metaFile, StandardCharsets.UTF_8)) {
+            meta.store(writer, "Log content cache entry");
+        }
+    }
+
+    private static void deleteFiles(Path contentPath) {
+        String fileName = contentPath.getFileName().toString();
+        Path metaFile = contentPath.resolveSibling(fileName.substring(0, fileName.length() - CONTENT_SUFFIX.length()) + META_SUFFIX);
+        try {
+            Files.deleteIfExists(metaFile);
+            Files.deleteIfExists(contentPath);
+        } catch (IOException e) {
+            logger.warn("Could not delete content cache file {}: {}", contentPath, e.getMessage());
+        }
+    }
+
+    private static String baseName(String cacheKey, String etag) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(cacheKey.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (etag != null) {
+                digest.update(etag.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String cacheKey;
+        private final String etag;
+        private final Instant lastModified;
+        private final long size;
+        private final Path contentPath;
+        // Guarded by the cache
+        private int readers;
+        private long leasedUntil;
+        private boolean deleted;
+
+        Entry(String cacheKey, String etag, Instant lastModified, long size, Path contentPath) {
+            this.cacheKey = cacheKey;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.contentPath = contentPath;
+        }
+
+        void lease(long now) {
+            leasedUntil = now + LEASE_NANOS;
+        }
+
+        boolean isPinned(long now) {
+            return readers > 0 || leasedUntil - now > 0;
+        }
+    }
+}
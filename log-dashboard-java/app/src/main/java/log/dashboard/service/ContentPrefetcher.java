@@ -0,0 +1,165 @@
+package log.dashboard.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import log.dashboard.config.DashboardProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the files adjacent to the one being viewed into the {@link ContentCache} in the
+ * background, so stepping to the next (or previous) sequence file is served locally.
+ * <p>
+ * Prefetches are grouped per bucket and VM date prefix. When another file of the same VM is opened,
+ * queued prefetches that are no longer adjacent are cancelled; one already downloading is left to
+ * finish, as it may be shared with a foreground read of the same object. The queue is bounded and
+ * excess prefetches are dropped.
+ */
+@Component
+public class ContentPrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentPrefetcher.class);
+
+    private final DashboardProperties.Prefetch prefetchProperties;
+    private final ContentCache contentCache;
+    // Pending prefetches by group, then by key; guarded by "this"
+    private final Map<String, Map<String, FutureTask<Void>>> pendingByGroup = new HashMap<>();
+    private ThreadPoolExecutor prefetchExecutor;
+
+    @Autowired
+    public ContentPrefetcher(DashboardProperties dashboardProperties, ContentCache contentCache) {
+        this.prefetchProperties = dashboardProperties.getPrefetch();
+        this.contentCache = contentCache;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!prefetchProperties.isEnabled() || !contentCache.isEnabled()) {
+            logger.info("Prefetch of neighbouring log files is disabled (needs dashboard.prefetch.enabled and the content cache).");
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        int threads = prefetchProperties.getThreads();
+        // Low priority: prefetching must not compete with requests that are actually waiting
+        prefetchExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(prefetchProperties.getQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "content-prefetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return prefetchExecutor != null;
+    }
+
+    public boolean isIncludePrevious() {
+        return prefetchProperties.isIncludePrevious();
+    }
+
+    /**
+     * Makes {@code targets} the prefetches of {@code group}: queued prefetches of the group for other
+     * objects are cancelled, and targets that are neither pending nor cached yet are queued.
+     */
+    void prefetch(String bucket, String group, List<LogFileEntry> targets, Loader loader) {
+        if (prefetchExecutor == null) {
+            return;
+        }
+        Set<String> wanted = new HashSet<>();
+        for (LogFileEntry target : targets) {
+            wanted.add(target.getKey());
+        }
+        List<FutureTask<Void>> stale = new ArrayList<>();
+        synchronized (this) {
+            Map<String, FutureTask<Void>> pending = pendingByGroup.computeIfAbsent(group, g -> new HashMap<>());
+            for (Iterator<Map.Entry<String, FutureTask<Void>>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, FutureTask<Void>> entry = it.next();
+                if (!wanted.contains(entry.getKey())) {
+                    stale.add(entry.getValue());
+                    it.remove();
+                }
+            }
+            for (LogFileEntry target : targets) {
+                if (pending.containsKey(target.getKey()) || !worthPrefetching(bucket, target)) {
+                    continue;
+                }
+                FutureTask<Void> task = newTask(group, target, loader);
+                try {
+                    prefetchExecutor.execute(task);
+                    pending.put(target.getKey(), task);
+                } catch (RejectedExecutionException e) {
+                    logger.debug("Prefetch queue full, skipping {}", target.getKey());
+                }
+            }
+            if (pending.isEmpty()) {
+                pendingByGroup.remove(group);
+            }
+        }
+        // Only tasks that have not started yet are dropped
+        for (FutureTask<Void> task : stale) {
+            if (task.cancel(false)) {
+                prefetchExecutor.remove(task);
+            }
+        }
+    }
+
+    private boolean worthPrefetching(String bucket, LogFileEntry target) {
+        return target.getSize() <= prefetchProperties.getMaxObjectSize().toBytes()
+                && contentCache.canRetain(target.getSize())
+                && !contentCache.contains(bucket, target.getKey(), target.getEtag());
+    }
+
+    private FutureTask<Void> newTask(String group, LogFileEntry target, Loader loader) {
+        return new FutureTask<>(() -> {
+            try {
+                loader.load(target);
+                logger.debug("Prefetched {}", target.getKey());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Prefetch of {} failed: {}", target.getKey(), e.getMessage());
+            }
+            return null;
+        }) {
+            @Override
+            protected void done() {
+                forget(group, target.getKey(), this);
+            }
+        };
+    }
+
+    private synchronized void forget(String group, String key, FutureTask<Void> task) {
+        Map<String, FutureTask<Void>> pending = pendingByGroup.get(group);
+        if (pending != null && pending.remove(key, task) && pending.isEmpty()) {
+            pendingByGroup.remove(group);
+        }
+    }
+
+    @FunctionalInterface
+    interface Loader {
+        void load(LogFileEntry entry) throws IOException;
+    }
+}
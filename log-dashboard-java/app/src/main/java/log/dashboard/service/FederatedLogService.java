@@ -0,0 +1,182 @@
+package log.dashboard.service;
+
+import jakarta.annotation.PreDestroy;
+import log.dashboard.config.DashboardProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs listings and searches over date ranges and sets of buckets and apps.
+ * <p>
+ * Every bucket/app/date scope is one task on a pool shared by all federated requests, so
+ * {@code dashboard.federation.max-concurrency} is a global budget. Each scope is served by
+ * {@link LogService} with that bucket's S3 client. Results are handed to the caller as soon as
+ * each scope completes, so the response can be streamed instead of waiting for the slowest scope.
+ */
+@Service
+public class FederatedLogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FederatedLogService.class);
+
+    private final LogService logService;
+    private final int maxScopes;
+    private final ExecutorService federationExecutor;
+
+    @Autowired
+    public FederatedLogService(LogService logService, DashboardProperties dashboardProperties) {
+        this.logService = logService;
+        DashboardProperties.Federation federation = dashboardProperties.getFederation();
+        this.maxScopes = federation.getMaxScopes();
+        AtomicInteger counter = new AtomicInteger();
+        this.federationExecutor = Executors.newFixedThreadPool(federation.getMaxConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "federated-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        federationExecutor.shutdownNow();
+    }
+
+    /**
+     * Expands the request into scopes, ordered by date, then bucket, then app.
+     *
+     * @throws IllegalArgumentException for unknown buckets, malformed or inverted dates, or too many scopes
+     */
+    public List<LogScope> planScopes(List<String> buckets, String env, List<String> appNames, String fromDate, String toDate) {
+        Set<String> distinctBuckets = new LinkedHashSet<>(buckets);
+        Set<String> distinctApps = new LinkedHashSet<>(appNames);
+        distinctBuckets.remove("");
+        distinctApps.remove("");
+        if (distinctBuckets.isEmpty() || distinctApps.isEmpty() || env.isEmpty()) {
+            throw new IllegalArgumentException("At least one bucket, one appName and an env are required");
+        }
+        List<String> availableBuckets = logService.getAvailableBuckets();
+        for (String bucket : distinctBuckets) {
+            if (!availableBuckets.contains(bucket)) {
+                throw new IllegalArgumentException("Invalid or unconfigured bucket specified: " + bucket);
+            }
+        }
+
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(fromDate);
+            to = LocalDate.parse(toDate);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Dates must be in YYYY-MM-DD format: " + e.getParsedString());
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("toDate must not be before fromDate");
+        }
+
+        long days = from.datesUntil(to.plusDays(1)).count();
+        long scopeCount = days * distinctBuckets.size() * distinctApps.size();
+        if (scopeCount > maxScopes) {
+            throw new IllegalArgumentException(String.format(
+                    "Query spans %d bucket/app/date combinations, the limit is %d", scopeCount, maxScopes));
+        }
+
+        List<LogScope> scopes = new ArrayList<>((int) scopeCount);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (String bucket : distinctBuckets) {
+                for (String appName : distinctApps) {
+                    scopes.add(new LogScope(bucket, env, appName, date.toString()));
+                }
+            }
+        }
+        return scopes;
+    }
+
+    public void streamLogFiles(List<LogScope> scopes, ResultSink<ScopedResult<LogFileEntry>> sink) throws IOException {
+        logger.info("Federated listing across {} scopes", scopes.size());
+        fanOut(scopes, scope -> logService.loadLogFiles(scope.getBucket(), scope.getEnv(), scope.getAppName(), scope.getDate()), sink);
+    }
+
+    public void streamSearch(List<LogScope> scopes, String query, ResultSink<ScopedResult<String>> sink) throws IOException {
+        logger.info("Federated search for {} across {} scopes", query, scopes.size());
+        fanOut(scopes, scope -> logService.searchLogs(scope.getBucket(), scope.getEnv(), scope.getAppName(), scope.getDate(), query,
+                LineFilter.NONE, logService.loadLogFiles(scope.getBucket(), scope.getEnv(), scope.getAppName(), scope.getDate())), sink);
+    }
+
+    // Hands each scope's results to the sink on the calling thread, in completion order; a scope that
+    // fails yields a single result carrying the error, so clients can tell it from a scope with no logs
+    private <T> void fanOut(List<LogScope> scopes, Function<LogScope, List<T>> task, ResultSink<ScopedResult<T>> sink) throws IOException {
+        CompletionService<List<ScopedResult<T>>> completionService = new ExecutorCompletionService<>(federationExecutor);
+        List<Future<List<ScopedResult<T>>>> futures = new ArrayList<>(scopes.size());
+        for (LogScope scope : scopes) {
+            futures.add(completionService.submit(() -> {
+                try {
+                    return task.apply(scope).stream()
+                            .map(result -> new ScopedResult<>(scope, result))
+                            .collect(Collectors.toList());
+                } catch (RuntimeException e) {
+                    // One failing scope should not abort the others
+                    logger.error("Federated query failed for scope {}: {}", scope, e.getMessage(), e);
+                    return List.of(ScopedResult.<T>failed(scope, describeFailure(e)));
+                }
+            }));
+        }
+        try {
+            for (int completed = 0; completed < futures.size(); completed++) {
+                Future<List<ScopedResult<T>>> done = completionService.take();
+                try {
+                    sink.accept(done.get());
+                } catch (ExecutionException e) {
+                    logger.error("Federated query failed for one scope: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for federated results");
+        } finally {
+            // Stops outstanding scopes when the client disconnects or the sink fails
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static String describeFailure(RuntimeException e) {
+        if (e instanceof S3Exception && ((S3Exception) e).awsErrorDetails() != null) {
+            S3Exception s3Exception = (S3Exception) e;
+            return "S3 error " + s3Exception.statusCode() + " (" + s3Exception.awsErrorDetails().errorCode() + ")";
+        }
+        if (e instanceof SdkClientException) {
+            return "S3 unreachable: " + e.getMessage();
+        }
+        Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Receives the results of one scope at a time; may throw when the client has gone away.
+     */
+    @FunctionalInterface
+    public interface ResultSink<T> {
+        void accept(List<T> results) throws IOException;
+    }
+}
@@ -0,0 +1,100 @@
+package log.dashboard.service;
+
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Passes through only the records of a log stream accepted by a {@link LineFilter}. Lines are parsed
+ * in place as bytes; continuation lines follow the decision for their record. Since lines are
+ * time-ordered, the stream ends at the first record past the filter's window without reading the rest.
+ */
+final class FilteredLineInputStream extends InputStream {
+
+    private final InputStream source;
+    private final LineReader lines;
+    private final LogLineParser parser;
+    private final LineFilter filter;
+    private final LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+    // Whether the current record passes; lines before the first timestamp count as a record with neither
+    private boolean recordAccepted;
+    private byte[] line;
+    private int linePosition;
+    private int lineEnd;
+    private boolean newlinePending;
+    private boolean finished;
+
+    FilteredLineInputStream(InputStream source, LogLineParser parser, LineFilter filter) {
+        this.source = source;
+        this.lines = new LineReader(source);
+        this.parser = parser;
+        this.filter = filter;
+        this.recordAccepted = filter.accepts(TimestampParser.NO_TIMESTAMP, null);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureLine()) {
+            return -1;
+        }
+        if (linePosition < lineEnd) {
+            return line[linePosition++] & 0xFF;
+        }
+        newlinePending = false;
+        return '\n';
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureLine()) {
+            return -1;
+        }
+        int count = Math.min(length, lineEnd - linePosition);
+        System.arraycopy(line, linePosition, buffer, offset, count);
+        linePosition += count;
+        if (count < length && newlinePending) {
+            buffer[offset + count++] = '\n';
+            newlinePending = false;
+        }
+        return count;
+    }
+
+    // Makes the next accepted line current unless the current one still has bytes (or its newline) to deliver
+    private boolean ensureLine() throws IOException {
+        if (linePosition < lineEnd || newlinePending) {
+            return true;
+        }
+        while (!finished && lines.next()) {
+            byte[] buffer = lines.buffer();
+            if (parser.parse(buffer, lines.start(), lines.end(), parsed)) {
+                if (parsed.timestamp >= filter.getToMillis()) {
+                    finished = true;
+                    break;
+                }
+                recordAccepted = filter.accepts(parsed.timestamp, parsed.level);
+            }
+            if (recordAccepted) {
+                line = buffer;
+                linePosition = lines.start();
+                lineEnd = lines.end();
+                newlinePending = true;
+                return true;
+            }
+        }
+        finished = true;
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Stopped early: drop the rest of an S3 response instead of draining it
+        if (!lines.isAtEnd() && source instanceof Abortable) {
+            ((Abortable) source).abort();
+        }
+        source.close();
+    }
+}
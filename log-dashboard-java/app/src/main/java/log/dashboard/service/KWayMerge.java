@@ -0,0 +1,80 @@
+package log.dashboard.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Merges already-sorted sources with a min-heap over one cursor per source.
+ * Ties are broken by source order, so the merge is stable with respect to the input order.
+ */
+final class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    static <T> List<T> merge(List<List<T>> sortedLists, Comparator<? super T> comparator) {
+        int total = 0;
+        List<Iterator<T>> sources = new ArrayList<>(sortedLists.size());
+        for (List<T> list : sortedLists) {
+            total += list.size();
+            sources.add(list.iterator());
+        }
+        List<T> merged = new ArrayList<>(total);
+        mergeIterators(sources, comparator).forEachRemaining(merged::add);
+        return merged;
+    }
+
+    /**
+     * Lazily merges the sources; only one element per source is held at a time.
+     */
+    static <T> Iterator<T> mergeIterators(List<? extends Iterator<T>> sources, Comparator<? super T> comparator) {
+        Comparator<Cursor<T>> byHead = (a, b) -> {
+            int order = comparator.compare(a.head, b.head);
+            return order != 0 ? order : Integer.compare(a.sourceIndex, b.sourceIndex);
+        };
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(Math.max(1, sources.size()), byHead);
+        for (int i = 0; i < sources.size(); i++) {
+            Iterator<T> source = sources.get(i);
+            if (source.hasNext()) {
+                heap.add(new Cursor<>(source.next(), source, i));
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heap.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Cursor<T> cursor = heap.poll();
+                if (cursor == null) {
+                    throw new NoSuchElementException();
+                }
+                T next = cursor.head;
+                if (cursor.source.hasNext()) {
+                    cursor.head = cursor.source.next();
+                    heap.add(cursor);
+                }
+                return next;
+            }
+        };
+    }
+
+    private static final class Cursor<T> {
+        private T head;
+        private final Iterator<T> source;
+        private final int sourceIndex;
+
+        Cursor(T head, Iterator<T> source, int sourceIndex) {
+            this.head = head;
+            this.source = source;
+            this.sourceIndex = sourceIndex;
+        }
+    }
+}
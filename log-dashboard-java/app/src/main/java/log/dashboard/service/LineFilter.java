@@ -0,0 +1,89 @@
+package log.dashboard.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Which log records to keep: a minimum level and a time window on one date. Continuation lines
+ * (stack traces and the like) are kept or dropped together with the record they belong to.
+ */
+public final class LineFilter {
+
+    public static final LineFilter NONE = new LineFilter(null, TimestampParser.NO_TIMESTAMP, Long.MAX_VALUE);
+
+    private final LogLevel minLevel;
+    private final long fromMillis;
+    private final long toMillis;
+
+    private LineFilter(LogLevel minLevel, long fromMillis, long toMillis) {
+        this.minLevel = minLevel;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    /**
+     * Builds a filter from request parameters; any of them may be null.
+     *
+     * @param level minimum level, e.g. WARN for WARN, ERROR and FATAL
+     * @param date  the date the times refer to (YYYY-MM-DD); required when {@code from} or {@code to} is given
+     * @param from  start of the window, HH:mm[:ss], inclusive
+     * @param to    end of the window, HH:mm[:ss], exclusive
+     * @throws IllegalArgumentException for malformed or missing values
+     */
+    public static LineFilter of(String level, String date, String from, String to) {
+        if (isBlank(level) && isBlank(from) && isBlank(to)) {
+            return NONE;
+        }
+        LogLevel minLevel = isBlank(level) ? null : LogLevel.fromName(level);
+        long fromMillis = TimestampParser.NO_TIMESTAMP;
+        long toMillis = Long.MAX_VALUE;
+        if (!isBlank(from) || !isBlank(to)) {
+            if (isBlank(date)) {
+                throw new IllegalArgumentException("A time window needs a date");
+            }
+            try {
+                LocalDate day = LocalDate.parse(date);
+                if (!isBlank(from)) {
+                    fromMillis = TimestampParser.toMillis(day.atTime(LocalTime.parse(from)));
+                }
+                if (!isBlank(to)) {
+                    toMillis = TimestampParser.toMillis(day.atTime(LocalTime.parse(to)));
+                }
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid date or time: " + e.getParsedString());
+            }
+        }
+        return new LineFilter(minLevel, fromMillis, toMillis);
+    }
+
+    public boolean isActive() {
+        return this != NONE;
+    }
+
+    boolean hasStartTime() {
+        return fromMillis != TimestampParser.NO_TIMESTAMP;
+    }
+
+    long getFromMillis() {
+        return fromMillis;
+    }
+
+    long getToMillis() {
+        return toMillis;
+    }
+
+    boolean accepts(long timestamp, LogLevel level) {
+        return timestamp >= fromMillis && timestamp < toMillis
+                && (minLevel == null || level != null && level.compareTo(minLevel) >= 0);
+    }
+
+    // Equal for filters that accept the same records, however their times were written
+    String cacheKey() {
+        return isActive() ? minLevel + "/" + fromMillis + "/" + toMillis : "";
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,97 @@
+package log.dashboard.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads lines from a stream into a reusable byte buffer, without decoding them or allocating per line.
+ * The current line is {@code buffer()[start(), end())}, excluding the line terminator, and stays valid
+ * until the next call to {@link #next()}. Lines longer than {@link #MAX_LINE_LENGTH} are split.
+ */
+final class LineReader {
+
+    static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    private final InputStream in;
+    private byte[] buffer = new byte[64 * 1024];
+    private int position;
+    private int limit;
+    // Bytes in [position, scanned) are known to contain no line terminator
+    private int scanned;
+    private int lineStart;
+    private int lineEnd;
+    // Bytes of the stream up to the end of the current line, terminator included
+    private long consumed;
+    private boolean eof;
+
+    LineReader(InputStream in) {
+        this.in = in;
+    }
+
+    boolean next() throws IOException {
+        while (true) {
+            for (int i = Math.max(scanned, position); i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    lineStart = position;
+                    lineEnd = i > position && buffer[i - 1] == '\r' ? i - 1 : i;
+                    position = i + 1;
+                    consumed += position - lineStart;
+                    return true;
+                }
+            }
+            scanned = limit;
+            if (eof || limit - position >= MAX_LINE_LENGTH) {
+                if (position == limit) {
+                    return false;
+                }
+                // Last line without a terminator, or an overlong line cut at the limit
+                lineStart = position;
+                lineEnd = limit;
+                position = limit;
+                consumed += position - lineStart;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int start() {
+        return lineStart;
+    }
+
+    int end() {
+        return lineEnd;
+    }
+
+    long consumed() {
+        return consumed;
+    }
+
+    boolean isAtEnd() {
+        return eof && position == limit;
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            scanned -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            byte[] larger = new byte[Math.min(buffer.length * 2, MAX_LINE_LENGTH + 1)];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
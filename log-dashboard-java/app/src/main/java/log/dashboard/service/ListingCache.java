@@ -0,0 +1,164 @@
+package log.dashboard.service;
+
+import log.dashboard.config.DashboardProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of {@link ScopeListing}s keyed by bucket/env/app/date.
+ * <p>
+ * Listings of past dates are treated as immutable and kept for {@code dashboard.listing.immutable-ttl}, once
+ * {@code dashboard.listing.immutable-after} has passed since the date ended;
+ * today's listing expires after {@code dashboard.listing.today-ttl} and is handed back to the loader so it
+ * can be refreshed incrementally (from manifests) instead of re-listed from scratch.
+ */
+@Component
+public class ListingCache {
+
+    private final DashboardProperties.Listing listingProperties;
+    private final Map<ListingKey, CachedListing> listings;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Clock clock;
+
+    @Autowired
+    public ListingCache(DashboardProperties dashboardProperties) {
+        this(dashboardProperties, Clock.systemDefaultZone());
+    }
+
+    // Expiry and date boundaries follow the given clock, for tests
+    ListingCache(DashboardProperties dashboardProperties, Clock clock) {
+        this.listingProperties = dashboardProperties.getListing();
+        this.clock = clock;
+        // Access-ordered so the least recently viewed scope is evicted first
+        this.listings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ListingKey, CachedListing> eldest) {
+                if (size() > listingProperties.getMaxEntries()) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached listing while it is fresh. Otherwise calls the loader with the expired
+     * listing (or null) and caches what it returns. Loader exceptions propagate and nothing is cached.
+     */
+    ScopeListing get(String bucket, String env, String appName, String date, Function<ScopeListing, ScopeListing> loader) {
+        ListingKey key = new ListingKey(bucket, env, appName, date);
+        Instant now = clock.instant();
+        CachedListing cached;
+        synchronized (listings) {
+            cached = listings.get(key);
+        }
+        if (cached != null && now.isBefore(cached.expiresAt)) {
+            hits.incrementAndGet();
+            return cached.listing;
+        }
+        misses.incrementAndGet();
+
+        ScopeListing loaded = loader.apply(cached != null ? cached.listing : null);
+        CachedListing fresh = new CachedListing(loaded, now.plus(ttlFor(date)));
+        synchronized (listings) {
+            listings.put(key, fresh);
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached listing if it is still fresh, without loading anything or counting a hit or miss.
+     */
+    ScopeListing peek(String bucket, String env, String appName, String date) {
+        CachedListing cached;
+        synchronized (listings) {
+            cached = listings.get(new ListingKey(bucket, env, appName, date));
+        }
+        return cached != null && clock.instant().isBefore(cached.expiresAt) ? cached.listing : null;
+    }
+
+    /**
+     * Whether a listing loaded at {@code fullyLoadedAt} may still be extended incrementally rather than re-read in full.
+     */
+    boolean allowsIncrementalRefresh(String date, Instant fullyLoadedAt) {
+        return !isImmutable(date)
+                && clock.instant().isBefore(fullyLoadedAt.plus(listingProperties.getFullRefreshInterval()));
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (listings) {
+            size = listings.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    private Duration ttlFor(String date) {
+        return isImmutable(date) ? listingProperties.getImmutableTtl() : listingProperties.getTodayTtl();
+    }
+
+    /**
+     * Whether the date receives no further uploads: it ended more than {@code dashboard.listing.immutable-after} ago.
+     */
+    public boolean isImmutable(String date) {
+        try {
+            Instant settledAt = LocalDate.parse(date).plusDays(1).atStartOfDay(clock.getZone()).toInstant()
+                    .plus(listingProperties.getImmutableAfter());
+            return !clock.instant().isBefore(settledAt);
+        } catch (DateTimeParseException e) {
+            return false; // Unknown format: never trust it for long
+        }
+    }
+
+    private static final class CachedListing {
+        private final ScopeListing listing;
+        private final Instant expiresAt;
+
+        CachedListing(ScopeListing listing, Instant expiresAt) {
+            this.listing = listing;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class ListingKey {
+        private final String bucket;
+        private final String env;
+        private final String appName;
+        private final String date;
+
+        ListingKey(String bucket, String env, String appName, String date) {
+            this.bucket = bucket;
+            this.env = env;
+            this.appName = appName;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ListingKey that = (ListingKey) o;
+            return Objects.equals(bucket, that.bucket) && Objects.equals(env, that.env)
+                    && Objects.equals(appName, that.appName) && Objects.equals(date, that.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucket, env, appName, date);
+        }
+    }
+}
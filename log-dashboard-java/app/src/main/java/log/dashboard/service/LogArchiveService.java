@@ -0,0 +1,127 @@
+package log.dashboard.service;
+
+import jakarta.annotation.PreDestroy;
+import log.dashboard.config.DashboardProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams every log object of an app/date as one ZIP archive, with entries named {@code vmIP/fileName}.
+ * <p>
+ * The archive is written straight to the response while the next objects are already being fetched:
+ * a window of {@code dashboard.archive.read-ahead-files} objects is read concurrently, each into a
+ * bounded buffer of {@code dashboard.archive.read-ahead-buffer}. Memory per download is therefore
+ * fixed regardless of the archive size, and the first bytes go out as soon as the first object starts.
+ */
+@Service
+public class LogArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogArchiveService.class);
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private final LogService logService;
+    private final DashboardProperties.Archive archiveProperties;
+    // One fetch per read-ahead slot; unbounded since slots are bounded per download and downloads by the request pool
+    private final ExecutorService fetchExecutor;
+
+    @Autowired
+    public LogArchiveService(LogService logService, DashboardProperties dashboardProperties) {
+        this.logService = logService;
+        this.archiveProperties = dashboardProperties.getArchive();
+        AtomicInteger counter = new AtomicInteger();
+        this.fetchExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "archive-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * Writes the ZIP archive of {@code logFiles} (as listed by {@link LogService#listLogFiles}) to {@code out}.
+     * An object that cannot be fetched at all is replaced by a {@code .error} entry; a failure in the
+     * middle of an object aborts the archive, as its entry cannot be completed.
+     */
+    public void writeZip(String bucket, List<LogFileEntry> logFiles, OutputStream out) throws IOException {
+        int window = Math.max(1, archiveProperties.getReadAheadFiles());
+        int chunkCount = Math.max(1, (int) (archiveProperties.getReadAheadBuffer().toBytes() / CHUNK_SIZE));
+        Deque<InputStream> pending = new ArrayDeque<>();
+        int next = 0;
+        long started = System.currentTimeMillis();
+        try (ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8)) {
+            for (LogFileEntry entry : logFiles) {
+                while (next < logFiles.size() && pending.size() < window) {
+                    pending.addLast(open(bucket, logFiles.get(next++), chunkCount));
+                }
+                try (InputStream content = pending.removeFirst()) {
+                    writeEntry(zip, entry, content);
+                }
+            }
+            zip.finish();
+        } finally {
+            for (InputStream stream : pending) {
+                stream.close();
+            }
+        }
+        logger.info("Streamed archive of {} objects from bucket {} in {} ms", logFiles.size(), bucket, System.currentTimeMillis() - started);
+    }
+
+    private InputStream open(String bucket, LogFileEntry entry, int chunkCount) {
+        if (entry.getSize() == 0) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        // Read directly rather than through the content cache, which an archive would only flush
+        return new ReadAheadInputStream(() -> logService.openLogRange(bucket, entry, 0), fetchExecutor, CHUNK_SIZE, chunkCount);
+    }
+
+    private void writeEntry(ZipOutputStream zip, LogFileEntry entry, InputStream content) throws IOException {
+        String name = entryName(entry);
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int read;
+        try {
+            read = content.read(buffer);
+        } catch (IOException e) {
+            logger.warn("Could not fetch {} for archive: {}", entry.getKey(), e.getMessage());
+            zip.putNextEntry(new ZipEntry(name + ".error"));
+            zip.write(("Could not fetch " + entry.getKey() + ": " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            return;
+        }
+        ZipEntry zipEntry = new ZipEntry(name);
+        if (entry.getLastModified() != null) {
+            zipEntry.setTime(entry.getLastModified().toEpochMilli());
+        }
+        zip.putNextEntry(zipEntry);
+        while (read >= 0) {
+            zip.write(buffer, 0, read);
+            read = content.read(buffer);
+        }
+        zip.closeEntry();
+    }
+
+    // env/app/vmIP/date/file -> vmIP/file
+    private static String entryName(LogFileEntry entry) {
+        String[] parts = entry.getKey().split("/");
+        return parts.length == 5 ? parts[2] + "/" + parts[4] : entry.getKey();
+    }
+}
@@ -0,0 +1,60 @@
+package log.dashboard.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * An open log object: its content stream plus the S3 metadata needed to serve it.
+ * The caller owns the stream and must close it. A "not modified" result carries only the
+ * validators and no stream.
+ */
+public class LogContent implements Closeable {
+    private final InputStream stream;
+    private final String etag;
+    private final Instant lastModified;
+    private final long size;
+
+    public LogContent(InputStream stream, String etag, Instant lastModified, long size) {
+        this.stream = stream;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    static LogContent notModified(String etag, Instant lastModified) {
+        return new LogContent(null, etag, lastModified, -1);
+    }
+
+    /**
+     * True when the client's {@code If-None-Match} matched; there is no content to send.
+     */
+    public boolean isNotModified() {
+        return stream == null;
+    }
+
+    // Getters
+    public InputStream getStream() {
+        return stream;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
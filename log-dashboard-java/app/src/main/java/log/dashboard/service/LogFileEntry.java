@@ -12,13 +12,15 @@ public class LogFileEntry {
     private final Instant lastModified;
     private final long size;
     private final int sequence;
+    private final String etag;
 
-    public LogFileEntry(String key, String fileName, Instant lastModified, long size, int sequence) {
+    public LogFileEntry(String key, String fileName, Instant lastModified, long size, int sequence, String etag) {
         this.key = key;
         this.fileName = fileName;
         this.lastModified = lastModified;
         this.size = size;
         this.sequence = sequence;
+        this.etag = etag;
     }
 
     // Getters
@@ -42,6 +44,10 @@ public class LogFileEntry {
         return sequence;
     }
 
+    public String getEtag() {
+        return etag;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -58,8 +64,8 @@ public class LogFileEntry {
     @Override
     public String toString() {
         // Rewritten toString using String.format for robustness
-        return String.format("LogFileEntry{key=	%s	, fileName=	%s	, lastModified=%s, size=%d, sequence=%d}",
-                key, fileName, lastModified, size, sequence);
+        return String.format("LogFileEntry{key=	%s	, fileName=	%s	, lastModified=%s, size=%d, sequence=%d, etag=%s}",
+                key, fileName, lastModified, size, sequence, etag);
     }
 }
 
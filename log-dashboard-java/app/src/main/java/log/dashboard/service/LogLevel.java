@@ -0,0 +1,57 @@
+package log.dashboard.service;
+
+import java.util.Locale;
+
+/**
+ * Severity of a log record, in increasing order.
+ */
+public enum LogLevel {
+    TRACE, DEBUG, INFO, WARN, ERROR, FATAL;
+
+    /**
+     * Recognizes a level name in the ASCII bytes {@code [start, end)} (case-sensitive, as loggers print
+     * them); {@code WARNING} and {@code SEVERE} are accepted as WARN and ERROR. Returns null otherwise.
+     */
+    static LogLevel parse(byte[] text, int start, int end) {
+        switch (end - start) {
+            case 4:
+                if (matches(text, start, "INFO")) return INFO;
+                if (matches(text, start, "WARN")) return WARN;
+                return null;
+            case 5:
+                if (matches(text, start, "ERROR")) return ERROR;
+                if (matches(text, start, "DEBUG")) return DEBUG;
+                if (matches(text, start, "TRACE")) return TRACE;
+                if (matches(text, start, "FATAL")) return FATAL;
+                return null;
+            case 6:
+                return matches(text, start, "SEVERE") ? ERROR : null;
+            case 7:
+                return matches(text, start, "WARNING") ? WARN : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Parses a level given by a user, e.g. in a request parameter.
+     *
+     * @throws IllegalArgumentException for an unknown level
+     */
+    public static LogLevel fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + name);
+        }
+    }
+
+    private static boolean matches(byte[] text, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (text[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,220 @@
+package log.dashboard.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses log lines held as bytes into timestamp, level, thread and logger without decoding or
+ * allocating, driven by a layout such as {@code %d %-5p [%t] %c - %m}: {@code %d} timestamp,
+ * {@code %p} level, {@code %t} thread, {@code %c} logger, {@code %m} message; width modifiers are
+ * ignored and everything else is literal text. Lines that do not fit the layout fall back to a
+ * leading timestamp and the first level name among the next few words.
+ * <p>
+ * Instances are immutable and may be shared; results go to a caller-owned {@link ParsedLine}.
+ */
+final class LogLineParser {
+
+    // How far into a line the lenient fallback looks for a level name
+    private static final int LEVEL_SCAN_LIMIT = 128;
+
+    private final byte[] prefix;
+    private final char[] fields;
+    private final byte[][] literals;
+
+    LogLineParser(String layout) {
+        List<Character> fieldList = new ArrayList<>();
+        List<byte[]> literalList = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        byte[] leading = null;
+        for (int i = 0; i < layout.length(); i++) {
+            char c = layout.charAt(i);
+            if (c != '%' || i + 1 == layout.length()) {
+                literal.append(c);
+                continue;
+            }
+            int j = i + 1;
+            while (j < layout.length() && (layout.charAt(j) == '-' || Character.isDigit(layout.charAt(j)))) {
+                j++; // width modifiers such as %-5p
+            }
+            if (j == layout.length() || "dptcm".indexOf(layout.charAt(j)) < 0) {
+                throw new IllegalArgumentException("Unsupported conversion in log layout: " + layout.substring(i));
+            }
+            byte[] text = literal.toString().getBytes(StandardCharsets.UTF_8);
+            if (leading == null) {
+                leading = text;
+            } else {
+                literalList.add(text);
+            }
+            literal.setLength(0);
+            fieldList.add(layout.charAt(j));
+            i = j;
+        }
+        if (leading == null) {
+            throw new IllegalArgumentException("Log layout has no conversions: " + layout);
+        }
+        literalList.add(literal.toString().getBytes(StandardCharsets.UTF_8));
+        this.prefix = leading;
+        this.fields = new char[fieldList.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fieldList.get(i);
+        }
+        this.literals = literalList.toArray(new byte[0][]);
+    }
+
+    /**
+     * Parses the bytes {@code [start, end)} of one line into {@code out}.
+     *
+     * @return whether the line has a timestamp, i.e. starts a new record rather than continuing one
+     */
+    boolean parse(byte[] line, int start, int end, ParsedLine out) {
+        out.reset();
+        if (!parseLayout(line, start, end, out)) {
+            out.reset();
+            parseLenient(line, start, end, out);
+        }
+        return out.timestamp != TimestampParser.NO_TIMESTAMP;
+    }
+
+    private boolean parseLayout(byte[] line, int start, int end, ParsedLine out) {
+        if (!regionMatches(line, start, end, prefix)) {
+            return false;
+        }
+        int position = start + prefix.length;
+        for (int i = 0; i < fields.length; i++) {
+            byte[] literal = literals[i];
+            int fieldEnd;
+            switch (fields[i]) {
+                case 'd':
+                    fieldEnd = TimestampParser.timestampEnd(line, position, end);
+                    if (fieldEnd < 0) {
+                        return false;
+                    }
+                    out.timestamp = TimestampParser.parseAt(line, position, end);
+                    if (out.timestamp == TimestampParser.NO_TIMESTAMP) {
+                        return false;
+                    }
+                    break;
+                case 'm':
+                    out.messageStart = position;
+                    fieldEnd = literal.length == 0 ? end : indexOf(line, position, end, literal);
+                    break;
+                default:
+                    fieldEnd = literal.length == 0 ? end : indexOf(line, position, end, literal);
+                    if (fieldEnd < 0) {
+                        return false;
+                    }
+                    if (fields[i] == 'p') {
+                        int levelStart = skipSpaces(line, position, fieldEnd);
+                        int levelEnd = trimSpaces(line, levelStart, fieldEnd);
+                        out.level = LogLevel.parse(line, levelStart, levelEnd);
+                        if (out.level == null) {
+                            return false;
+                        }
+                    } else if (fields[i] == 't') {
+                        out.threadStart = position;
+                        out.threadEnd = fieldEnd;
+                    } else {
+                        out.loggerStart = position;
+                        out.loggerEnd = fieldEnd;
+                    }
+            }
+            if (fieldEnd < 0 || !regionMatches(line, fieldEnd, end, literal)) {
+                return false;
+            }
+            position = fieldEnd + literal.length;
+        }
+        return true;
+    }
+
+    private static void parseLenient(byte[] line, int start, int end, ParsedLine out) {
+        out.timestamp = TimestampParser.parseLeading(line, start, end);
+        out.messageStart = start;
+        int limit = Math.min(end, start + LEVEL_SCAN_LIMIT);
+        int position = start;
+        while (position < limit) {
+            while (position < limit && !isUpper(line[position])) {
+                position++;
+            }
+            int wordStart = position;
+            while (position < limit && isUpper(line[position])) {
+                position++;
+            }
+            // Only whole words: "INFO" but not the "INFO" in "INFORMATION"
+            if (position == end || position < end && !isLetter(line[position])) {
+                LogLevel level = LogLevel.parse(line, wordStart, position);
+                if (level != null && (wordStart == start || !isLetter(line[wordStart - 1]))) {
+                    out.level = level;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean regionMatches(byte[] line, int position, int end, byte[] literal) {
+        if (end - position < literal.length) {
+            return false;
+        }
+        for (int i = 0; i < literal.length; i++) {
+            if (line[position + i] != literal[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] line, int from, int end, byte[] literal) {
+        outer:
+        for (int i = from; i <= end - literal.length; i++) {
+            for (int j = 0; j < literal.length; j++) {
+                if (line[i + j] != literal[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(byte[] line, int position, int end) {
+        while (position < end && line[position] == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int trimSpaces(byte[] line, int start, int end) {
+        while (end > start && line[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isUpper(byte b) {
+        return b >= 'A' && b <= 'Z';
+    }
+
+    private static boolean isLetter(byte b) {
+        return isUpper(b) || b >= 'a' && b <= 'z';
+    }
+
+    /**
+     * Mutable result of {@link #parse}; field positions index into the parsed line's byte array
+     * and are -1 when the layout did not provide them.
+     */
+    static final class ParsedLine {
+        long timestamp;
+        LogLevel level;
+        int threadStart;
+        int threadEnd;
+        int loggerStart;
+        int loggerEnd;
+        int messageStart;
+
+        void reset() {
+            timestamp = TimestampParser.NO_TIMESTAMP;
+            level = null;
+            threadStart = threadEnd = loggerStart = loggerEnd = messageStart = -1;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package log.dashboard.service;
+
+import java.util.List;
+
+/**
+ * Whole lines of a log object starting at or after a byte offset. {@code nextOffset} is where the
+ * following page starts, and equals {@code size} on the last page; offsets are byte positions, so a
+ * client can jump anywhere in an object of any size without knowing its line count.
+ */
+public class LogPage {
+    private final String key;
+    private final String etag;
+    private final long size;
+    private final long offset;
+    private final long nextOffset;
+    private final List<String> lines;
+
+    public LogPage(String key, String etag, long size, long offset, long nextOffset, List<String> lines) {
+        this.key = key;
+        this.etag = etag;
+        this.size = size;
+        this.offset = offset;
+        this.nextOffset = nextOffset;
+        this.lines = lines;
+    }
+
+    // Getters
+    public String getKey() {
+        return key;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+}
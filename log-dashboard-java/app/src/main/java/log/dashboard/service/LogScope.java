@@ -0,0 +1,56 @@
+package log.dashboard.service;
+
+import java.util.Objects;
+
+/**
+ * One bucket/env/app/date combination, the unit a federated query fans out over.
+ */
+public class LogScope {
+    private final String bucket;
+    private final String env;
+    private final String appName;
+    private final String date;
+
+    public LogScope(String bucket, String env, String appName, String date) {
+        this.bucket = bucket;
+        this.env = env;
+        this.appName = appName;
+        this.date = date;
+    }
+
+    // Getters
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getEnv() {
+        return env;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LogScope that = (LogScope) o;
+        return Objects.equals(bucket, that.bucket) && Objects.equals(env, that.env)
+                && Objects.equals(appName, that.appName) && Objects.equals(date, that.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bucket, env, appName, date);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LogScope{bucket=%s, env=%s, appName=%s, date=%s}", bucket, env, appName, date);
+    }
+}
@@ -1,7 +1,18 @@
 package log.dashboard.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import log.dashboard.config.DashboardProperties;
 import log.dashboard.config.S3ClientConfiguration;
+import log.dashboard.config.S3ClientStats;
 import log.dashboard.config.VaultS3Properties;
+import log.dashboard.index.IndexSearchResult;
+import log.dashboard.index.LogIndexService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +24,26 @@ import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -28,15 +53,82 @@ public class LogService {
 
     private static final Logger logger = LoggerFactory.getLogger(LogService.class);
     private final Map<String, S3Client> s3Clients;
+    private final S3ClientConfiguration s3ClientConfiguration;
     private final VaultS3Properties vaultS3Properties;
+    private final LogIndexService logIndexService;
+    private final ListingCache listingCache;
+    private final ContentCache contentCache;
+    private final ContentPrefetcher contentPrefetcher;
+    private final SearchCache searchCache;
+    private final ExecutorService listingExecutor;
+    private final SingleFlight<ScopeListing> listingFlights = new SingleFlight<>();
+    private final SingleFlight<CachedObject> contentFlights = new SingleFlight<>();
+    private final DashboardProperties.Parsing parsingProperties;
+    private final DashboardProperties.Listing listingProperties;
+    private final Map<String, LogLineParser> parsers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary searchResults;
+    private final Counter manifestListings;
+    private final Counter fallbackListings;
 
     // Regex to extract sequence number N from filenames like service-DD-MM-YYYY-N.log
     private static final Pattern SEQUENCE_PATTERN = Pattern.compile(".*?-(\\d+)\\.log$");
+    // Bytes read past the end of a page to complete its last line
+    private static final int PAGE_LINE_TAIL = 64 * 1024;
+    static final Comparator<LogFileEntry> BY_SEQUENCE = Comparator.comparingInt(LogFileEntry::getSequence);
 
     @Autowired
-    public LogService(S3ClientConfiguration s3ClientConfiguration, VaultS3Properties vaultS3Properties) {
+    public LogService(S3ClientConfiguration s3ClientConfiguration, VaultS3Properties vaultS3Properties,
+                      DashboardProperties dashboardProperties, LogIndexService logIndexService,
+                      ListingCache listingCache, ContentCache contentCache, ContentPrefetcher contentPrefetcher,
+                      SearchCache searchCache, MeterRegistry meterRegistry) {
         this.s3Clients = s3ClientConfiguration.s3Clients();
+        this.s3ClientConfiguration = s3ClientConfiguration;
         this.vaultS3Properties = vaultS3Properties;
+        this.logIndexService = logIndexService;
+        this.listingCache = listingCache;
+        this.contentCache = contentCache;
+        this.contentPrefetcher = contentPrefetcher;
+        this.searchCache = searchCache;
+        this.parsingProperties = dashboardProperties.getParsing();
+        this.listingProperties = dashboardProperties.getListing();
+        this.listingExecutor = newDaemonPool("s3-listing", dashboardProperties.getListing().getParallelism());
+        this.meterRegistry = meterRegistry;
+        this.searchResults = DistributionSummary.builder("dashboard.search.results")
+                .description("Matching files per search")
+                .register(meterRegistry);
+        this.manifestListings = Counter.builder("dashboard.listing.prefixes")
+                .description("VM date prefixes listed")
+                .tag("source", "manifest")
+                .register(meterRegistry);
+        this.fallbackListings = Counter.builder("dashboard.listing.prefixes")
+                .description("VM date prefixes listed")
+                .tag("source", "list")
+                .register(meterRegistry);
+        registerCacheMeters();
+    }
+
+    // Cache counters are read from the caches' own stats when scraped, so lookups stay uninstrumented
+    private void registerCacheMeters() {
+        for (String cache : getCacheStats().keySet()) {
+            FunctionCounter.builder("dashboard.cache.hits", this, service -> service.getCacheStats().get(cache).getHits())
+                    .tag("cache", cache)
+                    .register(meterRegistry);
+            FunctionCounter.builder("dashboard.cache.misses", this, service -> service.getCacheStats().get(cache).getMisses())
+                    .tag("cache", cache)
+                    .register(meterRegistry);
+            FunctionCounter.builder("dashboard.cache.evictions", this, service -> service.getCacheStats().get(cache).getEvictions())
+                    .tag("cache", cache)
+                    .register(meterRegistry);
+            Gauge.builder("dashboard.cache.entries", this, service -> service.getCacheStats().get(cache).getEntries())
+                    .tag("cache", cache)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        listingExecutor.shutdownNow();
     }
 
     public List<String> getAvailableBuckets() {
@@ -49,48 +141,9 @@ public class LogService {
     public List<LogFileEntry> listLogFiles(String bucket, String env, String appName, String date) {
         S3Client s3Client = getClientForBucket(bucket);
         String prefix = String.format("%s/%s/%s/%s/", env, appName, "*", date); // Use * for VM IP initially
-        logger.info("Listing objects in bucket 	{}	 with prefix: {}", bucket, prefix);
-
         List<LogFileEntry> logFiles = new ArrayList<>();
         try {
-            // Need to handle potential multiple VM IPs under the appName
-            // First list common prefixes (VM IPs) under env/appName/
-            ListObjectsV2Request listVmsRequest = ListObjectsV2Request.builder()
-                    .bucket(bucket)
-                    .prefix(String.format("%s/%s/", env, appName))
-                    .delimiter("/")
-                    .build();
-
-            ListObjectsV2Response listVmsResponse = s3Client.listObjectsV2(listVmsRequest);
-            logger.debug("Found VM IP prefixes: {}", listVmsResponse.commonPrefixes());
-
-            for (CommonPrefix vmPrefix : listVmsResponse.commonPrefixes()) {
-                String fullPrefix = vmPrefix.prefix() + date + "/"; // Construct full prefix including date
-                logger.debug("Listing logs with full prefix: {}", fullPrefix);
-
-                ListObjectsV2Request listLogsRequest = ListObjectsV2Request.builder()
-                        .bucket(bucket)
-                        .prefix(fullPrefix)
-                        .build();
-
-                // Paginate through results if necessary
-                ListObjectsV2Response listResponse;
-                do {
-                    listResponse = s3Client.listObjectsV2(listLogsRequest);
-                    for (S3Object s3Object : listResponse.contents()) {
-                        String key = s3Object.key();
-                        String fileName = key.substring(key.lastIndexOf("/") + 1);
-                        int sequence = extractSequenceNumber(fileName);
-                        logFiles.add(new LogFileEntry(key, fileName, s3Object.lastModified(), s3Object.size(), sequence));
-                    }
-                    listLogsRequest = listLogsRequest.toBuilder().continuationToken(listResponse.nextContinuationToken()).build();
-                } while (listResponse.isTruncated());
-            }
-
-            // Sort by sequence number
-            logFiles.sort(Comparator.comparingInt(LogFileEntry::getSequence));
-            logger.info("Found {} log files for bucket={}, prefix={}", logFiles.size(), bucket, prefix);
-
+            logFiles = loadLogFilesChecked(s3Client, bucket, env, appName, date);
         } catch (S3Exception e) {
             logger.error("S3 Error listing logs for bucket {}, prefix {}: {} (AWS Code: {})",
                     bucket, prefix, e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
@@ -103,82 +156,771 @@ public class LogService {
         return logFiles;
     }
 
-    public String getLogContent(String bucket, String key) {
+    /**
+     * Like {@link #listLogFiles} but lets S3 and client failures propagate, for callers that must tell
+     * a failed listing from an empty one.
+     */
+    public List<LogFileEntry> loadLogFiles(String bucket, String env, String appName, String date) {
+        S3Client s3Client = getClientForBucket(bucket);
+        try {
+            return loadLogFilesChecked(s3Client, bucket, env, appName, date);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<LogFileEntry> loadLogFilesChecked(S3Client s3Client, String bucket, String env, String appName,
+                                                   String date) throws IOException {
+        String prefix = String.format("%s/%s/%s/%s/", env, appName, "*", date); // Use * for VM IP initially
+        logger.info("Listing objects in bucket {} with prefix: {}", bucket, prefix);
+        // Served from the listing cache while fresh; an expired listing of today is extended incrementally
+        // Concurrent viewers of the same scope share a single load
+        ScopeListing listing = listingFlights.execute(String.join("/", "list", bucket, env, appName, date),
+                () -> listingCache.get(bucket, env, appName, date,
+                        previous -> loadListing(s3Client, bucket, env, appName, date, previous)));
+        List<LogFileEntry> logFiles = listing.getEntries();
+        logger.info("Found {} log files for bucket={}, prefix={}", logFiles.size(), bucket, prefix);
+        return logFiles;
+    }
+
+    private ScopeListing loadListing(S3Client s3Client, String bucket, String env, String appName, String date,
+                                     ScopeListing previous) {
+        boolean incremental = previous != null && listingCache.allowsIncrementalRefresh(date, previous.getFullyLoadedAt());
+        Instant fullyLoadedAt = incremental ? previous.getFullyLoadedAt() : Instant.now();
+
+        // Need to handle potential multiple VM IPs under the appName
+        // First list common prefixes (VM IPs) under env/appName/
+        List<String> vmPrefixes = listVmPrefixes(s3Client, bucket, env, appName);
+        logger.debug("Found {} VM IP prefixes: {}", vmPrefixes.size(), vmPrefixes);
+
+        // Then list each VM's date prefix, fanned out on the bounded listing pool
+        List<String> fullPrefixes = new ArrayList<>(vmPrefixes.size());
+        List<Future<List<LogFileEntry>>> vmListings = new ArrayList<>(vmPrefixes.size());
+        for (String vmPrefix : vmPrefixes) {
+            String fullPrefix = vmPrefix + date + "/"; // Construct full prefix including date
+            List<LogFileEntry> known = incremental ? previous.getEntriesByVmPrefix().get(fullPrefix) : null;
+            fullPrefixes.add(fullPrefix);
+            vmListings.add(listingExecutor.submit(() -> listVmLogFiles(s3Client, bucket, fullPrefix, known)));
+        }
+        List<List<LogFileEntry>> vmEntries = awaitAll(vmListings);
+
+        Map<String, List<LogFileEntry>> entriesByVmPrefix = new LinkedHashMap<>();
+        for (int i = 0; i < fullPrefixes.size(); i++) {
+            entriesByVmPrefix.put(fullPrefixes.get(i), vmEntries.get(i));
+        }
+        // Each VM's list is already in sequence order, so merge rather than re-sort the whole day
+        List<LogFileEntry> logFiles = KWayMerge.merge(vmEntries, BY_SEQUENCE);
+        return new ScopeListing(entriesByVmPrefix, List.copyOf(logFiles), fullyLoadedAt);
+    }
+
+    private List<String> listVmPrefixes(S3Client s3Client, String bucket, String env, String appName) {
+        ListObjectsV2Request listVmsRequest = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(String.format("%s/%s/", env, appName))
+                .delimiter("/")
+                .build();
+
+        // Paginate: apps with more VMs than fit in one page must not lose the rest
+        List<String> vmPrefixes = new ArrayList<>();
+        ListObjectsV2Response listVmsResponse;
+        do {
+            listVmsResponse = s3Client.listObjectsV2(listVmsRequest);
+            for (CommonPrefix vmPrefix : listVmsResponse.commonPrefixes()) {
+                vmPrefixes.add(vmPrefix.prefix());
+            }
+            listVmsRequest = listVmsRequest.toBuilder().continuationToken(listVmsResponse.nextContinuationToken()).build();
+        } while (listVmsResponse.isTruncated());
+        return vmPrefixes;
+    }
+
+    /**
+     * Lists one VM date prefix, in sequence order. A full load always uses LIST, so a file whose manifest
+     * update failed still shows up within one full-refresh interval. With {@code known} entries from an
+     * earlier listing the agent's manifest is read instead when there is one, and added to those entries.
+     * LIST always starts at the beginning of the prefix: sequence numbers are not zero-padded, so a new
+     * "-10.log" sorts before a known "-9.log" and {@code StartAfter} the last known key would miss it.
+     */
+    private List<LogFileEntry> listVmLogFiles(S3Client s3Client, String bucket, String fullPrefix, List<LogFileEntry> known) {
+        if (known != null && listingProperties.isUseManifests()) {
+            List<LogFileEntry> manifestEntries = readVmManifest(s3Client, bucket, fullPrefix);
+            if (manifestEntries != null) {
+                manifestListings.increment();
+                return mergeByKey(known, manifestEntries);
+            }
+        }
+        fallbackListings.increment();
+        List<LogFileEntry> vmEntries = new ArrayList<>();
+        logger.debug("Listing logs with full prefix: {}", fullPrefix);
+
+        ListObjectsV2Request listLogsRequest = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(fullPrefix)
+                .build();
+
+        // Paginate through results if necessary
+        ListObjectsV2Response listResponse;
+        do {
+            listResponse = s3Client.listObjectsV2(listLogsRequest);
+            for (S3Object s3Object : listResponse.contents()) {
+                vmEntries.add(toLogFileEntry(s3Object));
+            }
+            listLogsRequest = listLogsRequest.toBuilder().continuationToken(listResponse.nextContinuationToken()).build();
+        } while (listResponse.isTruncated());
+
+        if (known != null && logger.isDebugEnabled()) {
+            Set<String> knownKeys = known.stream().map(LogFileEntry::getKey).collect(Collectors.toSet());
+            logger.debug("Refreshed {}: {} new of {} files", fullPrefix,
+                    vmEntries.stream().filter(entry -> !knownKeys.contains(entry.getKey())).count(), vmEntries.size());
+        }
+        // S3 returns keys lexicographically ("-10.log" before "-2.log"); one VM's day is small enough to sort
+        vmEntries.sort(BY_SEQUENCE);
+        return List.copyOf(vmEntries);
+    }
+
+    // Known entries updated with those of a manifest, in sequence order; the manifest wins for a key in both
+    private static List<LogFileEntry> mergeByKey(List<LogFileEntry> known, List<LogFileEntry> manifestEntries) {
+        Map<String, LogFileEntry> byKey = new LinkedHashMap<>();
+        for (LogFileEntry entry : known) {
+            byKey.put(entry.getKey(), entry);
+        }
+        for (LogFileEntry entry : manifestEntries) {
+            byKey.put(entry.getKey(), entry);
+        }
+        List<LogFileEntry> merged = new ArrayList<>(byKey.values());
+        merged.sort(BY_SEQUENCE);
+        return List.copyOf(merged);
+    }
+
+    // A VM's files from its manifest (one small GET), or null when it has none or it cannot be read
+    private List<LogFileEntry> readVmManifest(S3Client s3Client, String bucket, String fullPrefix) {
+        String manifestKey = UploadManifest.keyFor(fullPrefix);
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(manifestKey)
+                .build();
+        try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getObjectRequest)) {
+            return UploadManifest.parse(in, fullPrefix);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null; // VM not running a manifest-writing agent (yet)
+            }
+            throw e;
+        } catch (IOException e) {
+            logger.warn("Unreadable manifest s3://{}/{}, listing instead: {}", bucket, manifestKey, e.getMessage());
+            return null;
+        }
+    }
+
+    // Waits for every task; the first failure cancels the rest and is rethrown as-is when unchecked
+    private static <T> List<T> awaitAll(List<Future<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for S3 listings", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private LogFileEntry toLogFileEntry(S3Object s3Object) {
+        String key = s3Object.key();
+        String fileName = key.substring(key.lastIndexOf("/") + 1);
+        int sequence = extractSequenceNumber(fileName);
+        return new LogFileEntry(key, fileName, s3Object.lastModified(), s3Object.size(), sequence, s3Object.eTag());
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("listing", listingCache.stats());
+        stats.put("content", contentCache.stats());
+        stats.put("search", searchCache.stats());
+        stats.put("listingFlights", listingFlights.stats());
+        stats.put("contentFlights", contentFlights.stats());
+        return stats;
+    }
+
+    public Map<String, S3ClientStats> getS3ClientStats() {
+        return s3ClientConfiguration.clientStats();
+    }
+
+    /**
+     * Opens a log object for streaming; the caller closes the returned content.
+     * <p>
+     * When {@code ifNoneMatch} matches the object's current ETag, a "not modified" result is returned
+     * instead. For past dates the ETag from a cached listing is trusted, so no S3 request is made at all.
+     *
+     * @param ifNoneMatch the client's {@code If-None-Match} header, or null
+     * @throws IllegalArgumentException for an unconfigured bucket
+     */
+    public LogContent openLogContent(String bucket, String key, String ifNoneMatch) throws IOException {
         S3Client s3Client = getClientForBucket(bucket);
         logger.info("Fetching content for bucket={}, key={}", bucket, key);
+        LogContent content = openLogContent(s3Client, bucket, key, ifNoneMatch);
+        // Queued only once the requested object is available, so prefetching never delays it
+        prefetchNeighbours(s3Client, bucket, key);
+        return content;
+    }
+
+    private LogContent openLogContent(S3Client s3Client, String bucket, String key, String ifNoneMatch) throws IOException {
+        LogFileEntry listed = isImmutableKey(key) ? findListedObject(bucket, key) : null;
+        String knownEtag = listed != null ? listed.getEtag() : null;
+        if (knownEtag != null && etagMatches(ifNoneMatch, knownEtag)) {
+            logger.debug("Content of key={} not modified, answered from the listing cache", key);
+            return LogContent.notModified(knownEtag, listed.getLastModified());
+        }
 
+        if (contentCache.isEnabled()) {
+            if (knownEtag == null && ifNoneMatch != null) {
+                // The client holds a copy: a conditional HEAD answers a 304 without downloading anything,
+                // and otherwise yields the current ETag, so a cached copy needs no revalidation
+                try {
+                    knownEtag = s3Client.headObject(HeadObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .ifNoneMatch(ifNoneMatch)
+                            .build()).eTag();
+                } catch (S3Exception e) {
+                    if (e.statusCode() == 304) {
+                        return LogContent.notModified(ifNoneMatch, null);
+                    }
+                    throw e;
+                }
+            }
+            // Without a trusted ETag a cached copy is revalidated with a conditional GET
+            CachedObject cached = getCachedContent(s3Client, bucket, key, knownEtag);
+            if (etagMatches(ifNoneMatch, cached.getEtag())) {
+                cached.release();
+                return LogContent.notModified(cached.getEtag(), cached.getLastModified());
+            }
+            InputStream stream = cached.tryOpenStream();
+            if (stream == null) {
+                cached = contentCache.get(s3Client, bucket, key, knownEtag);
+                stream = cached.openStream();
+            }
+            return new LogContent(stream, cached.getEtag(), cached.getLastModified(), cached.getSize());
+        }
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(bucket)
                 .key(key)
+                .ifNoneMatch(ifNoneMatch)
                 .build();
+        try {
+            ResponseInputStream<GetObjectResponse> s3ObjectStream = s3Client.getObject(getObjectRequest);
+            GetObjectResponse response = s3ObjectStream.response();
+            return new LogContent(s3ObjectStream, response.eTag(), response.lastModified(), response.contentLength());
+        } catch (S3Exception e) {
+            if (ifNoneMatch != null && e.statusCode() == 304) {
+                return LogContent.notModified(ifNoneMatch, null);
+            }
+            throw e;
+        }
+    }
 
-        try (ResponseInputStream<GetObjectResponse> s3ObjectStream = s3Client.getObject(getObjectRequest);
-             InputStreamReader streamReader = new InputStreamReader(s3ObjectStream, StandardCharsets.UTF_8);
-             BufferedReader reader = new BufferedReader(streamReader)) {
+    /**
+     * Opens only the records of a log object accepted by {@code filter}. With a start time, the
+     * window is found by binary search: on the cached copy if there is one, otherwise with ranged
+     * GETs, so the object is not downloaded from its beginning.
+     * <p>
+     * The result carries no validators: the object's ETag and Last-Modified describe the whole object,
+     * not the filtered view of it.
+     */
+    public LogContent openLogContent(String bucket, String key, LineFilter filter) throws IOException {
+        S3Client s3Client = getClientForBucket(bucket);
+        logger.info("Fetching filtered content for bucket={}, key={}", bucket, key);
+        LogFileEntry entry = describeObject(s3Client, bucket, key);
+        return new LogContent(openFiltered(s3Client, bucket, entry, filter), null, null, -1);
+    }
 
-            // Read line by line for potentially large files
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
+    /**
+     * Reads the whole lines starting in {@code [offset, offset + maxBytes)}; a line already under way at
+     * {@code offset} belongs to the previous page. Only that byte range is fetched (from the cached copy
+     * when there is one), so the first page of a huge object is as quick as that of a small one.
+     * Lines longer than {@link #PAGE_LINE_TAIL} that cross a page end are cut there.
+     */
+    public LogPage readLogPage(String bucket, String key, long offset, int maxBytes) throws IOException {
+        S3Client s3Client = getClientForBucket(bucket);
+        LogFileEntry entry = describeObject(s3Client, bucket, key);
+        long size = entry.getSize();
+        if (offset >= size) {
+            return new LogPage(key, entry.getEtag(), size, size, size, List.of());
+        }
+        // One byte early, to tell whether offset starts a line
+        long readFrom = Math.max(0, offset - 1);
+        long readTo = Math.min(size, offset + maxBytes + PAGE_LINE_TAIL);
+        List<String> lines = new ArrayList<>();
+        long pageStart;
+        long pageEnd;
+        try (InputStream in = openRange(s3Client, bucket, entry, readFrom, readTo)) {
+            LineReader reader = new LineReader(in);
+            if (offset > 0) {
+                reader.next(); // the rest of the line under way, or just its terminator
+            }
+            pageStart = readFrom + reader.consumed();
+            pageEnd = pageStart;
+            while (pageEnd < offset + maxBytes && reader.next()) {
+                long lineEnd = readFrom + reader.consumed();
+                int length = reader.end() - reader.start();
+                boolean terminated = lineEnd - pageEnd > length;
+                // A line cut by the end of the range is left to the next page, unless the page would be empty
+                if (!terminated && lineEnd < size && !lines.isEmpty() && length < LineReader.MAX_LINE_LENGTH) {
+                    break;
+                }
+                lines.add(new String(reader.buffer(), reader.start(), length, StandardCharsets.UTF_8));
+                pageEnd = lineEnd;
             }
-            logger.info("Successfully fetched content for key={}", key);
-            return content.toString();
+        }
+        return new LogPage(key, entry.getEtag(), size, pageStart, pageEnd, lines);
+    }
 
-        } catch (S3Exception e) {
-            logger.error("S3 Error getting object for bucket {}, key {}: {} (AWS Code: {})",
-                    bucket, key, e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
-            return "Error fetching log content from S3: " + e.getMessage();
-        } catch (IOException | SdkClientException e) {
-            logger.error("Error reading S3 object stream for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
-            return "Error reading log content: " + e.getMessage();
-        } catch (Exception e) {
-            logger.error("Unexpected error getting log content for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
-            return "Unexpected error fetching log content: " + e.getMessage();
+    /**
+     * Byte offset of the first line starting at or after {@code offset} that contains {@code query}, or -1.
+     * Reads from {@code offset} up to the hit only, so a viewer can step through the hits of a large object.
+     */
+    public long findInLog(String bucket, String key, String query, long offset) throws IOException {
+        S3Client s3Client = getClientForBucket(bucket);
+        LogFileEntry entry = describeObject(s3Client, bucket, key);
+        if (offset >= entry.getSize()) {
+            return -1;
+        }
+        byte[] needle = query.getBytes(StandardCharsets.UTF_8);
+        long readFrom = Math.max(0, offset - 1);
+        try (InputStream in = openRange(s3Client, bucket, entry, readFrom, entry.getSize())) {
+            LineReader reader = new LineReader(in);
+            if (offset > 0) {
+                reader.next(); // the rest of the line under way, or just its terminator
+            }
+            long lineStart = readFrom + reader.consumed();
+            while (reader.next()) {
+                if (indexOf(reader.buffer(), reader.start(), reader.end(), needle) >= 0) {
+                    return lineStart;
+                }
+                lineStart = readFrom + reader.consumed();
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] line, int start, int end, byte[] needle) {
+        if (needle.length == 0) {
+            return start;
+        }
+        byte first = needle[0];
+        for (int i = start; i <= end - needle.length; i++) {
+            if (line[i] != first) {
+                continue;
+            }
+            int matched = 1;
+            while (matched < needle.length && line[i + matched] == needle[matched]) {
+                matched++;
+            }
+            if (matched == needle.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Bytes [first, last) of a listed object: from the cached copy if there is one, otherwise with a
+    // bounded ranged GET. Does not add the object to the cache, which would mean downloading all of it.
+    private InputStream openRange(S3Client s3Client, String bucket, LogFileEntry entry, long first, long last) throws IOException {
+        if (contentCache.isEnabled() && contentCache.contains(bucket, entry.getKey(), entry.getEtag())) {
+            return getCachedContent(s3Client, bucket, entry.getKey(), entry.getEtag()).openStream(first);
+        }
+        return s3Client.getObject(rangeRequest(bucket, entry, first, last - 1));
+    }
+
+    /**
+     * The YYYY-MM-DD date segment of a key laid out as env/app/vmIP/date/file, or null.
+     */
+    public static String dateOfKey(String key) {
+        String[] parts = key.split("/");
+        return parts.length == 5 ? parts[3] : null;
+    }
+
+    private InputStream openFiltered(S3Client s3Client, String bucket, LogFileEntry entry, LineFilter filter) throws IOException {
+        String key = entry.getKey();
+        LogLineParser parser = parserFor(key.split("/")[1]);
+        long size = entry.getSize();
+        if (!filter.hasStartTime() || size <= 4L * TimeSeeker.PROBE_SIZE) {
+            return new FilteredLineInputStream(openContent(s3Client, bucket, key, entry.getEtag()), parser, filter);
+        }
+        if (contentCache.isEnabled() && contentCache.contains(bucket, key, entry.getEtag())) {
+            CachedObject cached = getCachedContent(s3Client, bucket, key, entry.getEtag());
+            long offset = TimeSeeker.seek(cached::read, cached.getSize(), filter.getFromMillis(), parser);
+            return new FilteredLineInputStream(cached.openStream(offset), parser, filter);
+        }
+        // Not cached: probe with small ranged GETs, then stream only from the window's start
+        long offset = TimeSeeker.seek(rangeReader(s3Client, bucket, entry), size, filter.getFromMillis(), parser);
+        logger.debug("Time window of key={} starts at byte {} of {}", key, offset, size);
+        return new FilteredLineInputStream(s3Client.getObject(rangeRequest(bucket, entry, offset, size - 1)), parser, filter);
+    }
+
+    /**
+     * A line-start offset in a listed object before which every record is older than {@code fromMillis}
+     * (see {@link TimeSeeker#seek}), found on the cached copy if there is one, otherwise with ranged GETs.
+     */
+    long seekTime(String bucket, LogFileEntry entry, long fromMillis) throws IOException {
+        if (entry.getSize() <= 4L * TimeSeeker.PROBE_SIZE) {
+            return 0;
+        }
+        LogLineParser parser = parserFor(entry.getKey().split("/")[1]);
+        return TimeSeeker.seek(probeReader(bucket, entry), entry.getSize(), fromMillis, parser);
+    }
+
+    /**
+     * Timestamp of the first record of a listed object, read from its first bytes only; see {@link TimeSeeker#firstTimestamp}.
+     */
+    long firstTimestamp(String bucket, LogFileEntry entry) throws IOException {
+        if (entry.getSize() == 0) {
+            return TimestampParser.NO_TIMESTAMP;
+        }
+        LogLineParser parser = parserFor(entry.getKey().split("/")[1]);
+        return TimeSeeker.firstTimestamp(probeReader(bucket, entry), entry.getSize(), parser);
+    }
+
+    private TimeSeeker.RangeReader probeReader(String bucket, LogFileEntry entry) throws IOException {
+        S3Client s3Client = getClientForBucket(bucket);
+        if (contentCache.isEnabled() && contentCache.contains(bucket, entry.getKey(), entry.getEtag())) {
+            return getCachedContent(s3Client, bucket, entry.getKey(), entry.getEtag())::read;
+        }
+        return rangeReader(s3Client, bucket, entry);
+    }
+
+    private static TimeSeeker.RangeReader rangeReader(S3Client s3Client, String bucket, LogFileEntry entry) {
+        return (position, buffer, length) -> {
+            try (ResponseInputStream<GetObjectResponse> range = s3Client.getObject(rangeRequest(bucket, entry, position, position + length - 1))) {
+                return range.readNBytes(buffer, 0, length);
+            }
+        };
+    }
+
+    // If-Match keeps every range of one read on the same version of the object
+    private static GetObjectRequest rangeRequest(String bucket, LogFileEntry entry, long first, long last) {
+        return GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(entry.getKey())
+                .range("bytes=" + first + "-" + last)
+                .ifMatch(entry.getEtag())
+                .build();
+    }
+
+    // Size and ETag of an object, from a cached listing when possible, otherwise with a HEAD request
+    private LogFileEntry describeObject(S3Client s3Client, String bucket, String key) {
+        LogFileEntry listed = findListedObject(bucket, key);
+        if (listed != null) {
+            return listed;
+        }
+        HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build());
+        String fileName = key.substring(key.lastIndexOf("/") + 1);
+        return new LogFileEntry(key, fileName, head.lastModified(), head.contentLength(), extractSequenceNumber(fileName), head.eTag());
+    }
+
+    LogLineParser parserFor(String appName) {
+        return parsers.computeIfAbsent(appName,
+                app -> new LogLineParser(parsingProperties.getLayouts().getOrDefault(app, parsingProperties.getDefaultLayout())));
+    }
+
+    /**
+     * Whether the object under {@code key} (env/app/vmIP/date/file) belongs to a past date and so can no longer change.
+     */
+    public boolean isImmutableKey(String key) {
+        String date = dateOfKey(key);
+        return date != null && listingCache.isImmutable(date);
+    }
+
+    public boolean isImmutableDate(String date) {
+        return listingCache.isImmutable(date);
+    }
+
+    // Looks the key up in a fresh cached listing of its scope; never calls S3
+    private LogFileEntry findListedObject(String bucket, String key) {
+        List<LogFileEntry> vmEntries = findListedVmEntries(bucket, key);
+        if (vmEntries == null) {
+            return null;
+        }
+        for (LogFileEntry entry : vmEntries) {
+            if (entry.getKey().equals(key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // The cached listing of the key's VM date prefix, in sequence order, or null
+    private List<LogFileEntry> findListedVmEntries(String bucket, String key) {
+        String[] parts = key.split("/");
+        if (parts.length != 5) {
+            return null;
+        }
+        ScopeListing listing = listingCache.peek(bucket, parts[0], parts[1], parts[3]);
+        if (listing == null) {
+            return null;
+        }
+        return listing.getEntriesByVmPrefix().get(key.substring(0, key.lastIndexOf('/') + 1));
+    }
+
+    // Viewers step through a VM's files in sequence order, so warm the content cache with the neighbours
+    private void prefetchNeighbours(S3Client s3Client, String bucket, String key) {
+        if (!contentPrefetcher.isEnabled()) {
+            return;
+        }
+        List<LogFileEntry> vmEntries = findListedVmEntries(bucket, key);
+        if (vmEntries == null) {
+            return;
+        }
+        int index = -1;
+        for (int i = 0; i < vmEntries.size(); i++) {
+            if (vmEntries.get(i).getKey().equals(key)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return;
+        }
+        List<LogFileEntry> neighbours = new ArrayList<>(2);
+        if (index + 1 < vmEntries.size()) {
+            neighbours.add(vmEntries.get(index + 1));
+        }
+        if (contentPrefetcher.isIncludePrevious() && index > 0) {
+            neighbours.add(vmEntries.get(index - 1));
         }
+        String vmPrefix = key.substring(0, key.lastIndexOf('/') + 1);
+        contentPrefetcher.prefetch(bucket, bucket + "/" + vmPrefix, neighbours,
+                entry -> getCachedContent(s3Client, bucket, entry.getKey(), entry.getEtag()));
+    }
+
+    // If-None-Match may list several (possibly weak) ETags, or be "*"
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String current = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public List<String> searchLogs(String bucket, String env, String appName, String date, String query) {
+        return searchLogs(bucket, env, appName, date, query, LineFilter.NONE);
+    }
+
+    /**
+     * Searches only the records accepted by {@code filter}; a filtered search always scans (the index
+     * knows neither levels nor times), starting each file at the filter's time window.
+     */
+    public List<String> searchLogs(String bucket, String env, String appName, String date, String query, LineFilter filter) {
+        return searchLogs(bucket, env, appName, date, query, filter, listLogFiles(bucket, env, appName, date));
+    }
+
+    /**
+     * Searches the given listing of the scope; federated search passes one obtained with {@link #loadLogFiles}.
+     */
+    List<String> searchLogs(String bucket, String env, String appName, String date, String query, LineFilter filter,
+                            List<LogFileEntry> logFiles) {
+        long started = System.nanoTime();
         S3Client s3Client = getClientForBucket(bucket);
-        List<LogFileEntry> logFiles = listLogFiles(bucket, env, appName, date); // Reuse listing logic
-        List<String> matchingFiles = new ArrayList<>();
 
         logger.info("Searching for 	{}	 across {} files in bucket={}, env={}, app={}, date={}",
                 query, logFiles.size(), bucket, env, appName, date);
 
+        // Objects decided by an earlier identical search, at the version listed now, are not searched again
+        Map<String, SearchCache.Outcome> cached = searchCache.isEnabled()
+                ? searchCache.get(bucket, env, appName, date, query, filter, logFiles)
+                : Map.of();
+        Map<String, SearchCache.Outcome> outcomes = new HashMap<>();
+        List<LogFileEntry> undecided = new ArrayList<>();
         for (LogFileEntry entry : logFiles) {
-            String key = entry.getKey();
-            logger.debug("Searching within file: {}", key);
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucket)
-                    .key(key)
-                    .build();
-
-            try (ResponseInputStream<GetObjectResponse> s3ObjectStream = s3Client.getObject(getObjectRequest);
-                 InputStreamReader streamReader = new InputStreamReader(s3ObjectStream, StandardCharsets.UTF_8);
-                 BufferedReader reader = new BufferedReader(streamReader)) {
-
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.contains(query)) {
-                        logger.info("Found query 	{}	 in file: {}", query, entry.getFileName());
-                        matchingFiles.add(entry.getFileName());
-                        break; // Found a match, move to the next file
-                    }
+            SearchCache.Outcome outcome = cached.get(entry.getKey());
+            if (outcome != null && outcome.isCurrent(entry)) {
+                outcomes.put(entry.getKey(), outcome);
+            } else {
+                undecided.add(entry);
+            }
+        }
+        if (!cached.isEmpty()) {
+            logger.info("Search cache decided {} of {} files", outcomes.size(), logFiles.size());
+        }
+        int fromCache = outcomes.size();
+        int scanned = 0;
+        ScanTally tally = new ScanTally();
+
+        if (!undecided.isEmpty()) {
+            // Answer from the local index where it covers the scope; only what it cannot decide is scanned raw
+            IndexSearchResult indexResult = filter.isActive()
+                    ? IndexSearchResult.notCovered(undecided)
+                    : logIndexService.search(bucket, env, appName, date, query, undecided);
+            if (indexResult.isCovered()) {
+                logger.info("Log index answered {} matches, {} of {} files still need a raw scan",
+                        indexResult.getMatches().size(), indexResult.getFilesToScan().size(), undecided.size());
+                indexResult.getMatches().forEach((key, lineOffset) -> logger.debug("Index hit in {} at line offset {}", key, lineOffset));
+            }
+            Set<String> toScan = new HashSet<>();
+            for (LogFileEntry entry : indexResult.getFilesToScan()) {
+                toScan.add(entry.getKey());
+            }
+            for (LogFileEntry entry : undecided) {
+                if (indexResult.getMatches().containsKey(entry.getKey())) {
+                    outcomes.put(entry.getKey(), new SearchCache.Outcome(entry, true));
+                } else if (!toScan.contains(entry.getKey())) {
+                    outcomes.put(entry.getKey(), new SearchCache.Outcome(entry, false));
                 }
-            } catch (S3Exception e) {
-                logger.error("S3 Error searching object for bucket {}, key {}: {} (AWS Code: {})",
-                        bucket, key, e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
-            } catch (IOException | SdkClientException e) {
-                logger.error("Error reading S3 object stream during search for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
-            } catch (Exception e) {
-                logger.error("Unexpected error searching log content for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
+            }
+            for (LogFileEntry entry : indexResult.getFilesToScan()) {
+                scanned++;
+                ScanResult result = fileContains(s3Client, bucket, entry, query, filter, tally);
+                // An object that could not be read is left out of the cache and searched again next time
+                if (result != ScanResult.FAILED) {
+                    outcomes.put(entry.getKey(), new SearchCache.Outcome(entry, result == ScanResult.MATCH));
+                }
+            }
+            if (searchCache.isEnabled()) {
+                searchCache.put(bucket, env, appName, date, query, filter, outcomes);
             }
         }
-        logger.info("Search complete. Found {} matching files.", matchingFiles.size());
+
+        List<String> matchingFiles = logFiles.stream()
+                .filter(entry -> {
+                    SearchCache.Outcome outcome = outcomes.get(entry.getKey());
+                    return outcome != null && outcome.isMatched();
+                })
+                .map(LogFileEntry::getFileName)
+                .collect(Collectors.toList());
+        long elapsedNanos = System.nanoTime() - started;
+        logger.info("Search complete. Found {} matching files; scanned {} files, {} bytes, {} lines ({} lines/s).",
+                matchingFiles.size(), scanned, tally.bytes, tally.lines,
+                elapsedNanos == 0 ? 0 : tally.lines * 1_000_000_000L / elapsedNanos);
+        Counter.builder("dashboard.search.bytes.scanned")
+                .tag("bucket", bucket)
+                .baseUnit("bytes")
+                .description("Bytes of log content read by search scans; compare with dashboard.s3.bytes.downloaded")
+                .register(meterRegistry)
+                .increment(tally.bytes);
+        Counter.builder("dashboard.search.lines.scanned")
+                .tag("bucket", bucket)
+                .description("Log lines compared against a search query")
+                .register(meterRegistry)
+                .increment(tally.lines);
+        meterRegistry.counter("dashboard.search.files", "source", "cache").increment(fromCache);
+        meterRegistry.counter("dashboard.search.files", "source", "index").increment(logFiles.size() - fromCache - scanned);
+        meterRegistry.counter("dashboard.search.files", "source", "scan").increment(scanned);
+        searchResults.record(matchingFiles.size());
+        Timer.builder("dashboard.search")
+                .tag("bucket", bucket)
+                .tag("filtered", String.valueOf(filter.isActive()))
+                .description("Searches from listing to result")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
         return matchingFiles;
     }
 
+    private enum ScanResult { MATCH, NO_MATCH, FAILED }
+
+    // What the scans of one search read, published once the search is done
+    private static final class ScanTally {
+        long bytes;
+        long lines;
+    }
+
+    private ScanResult fileContains(S3Client s3Client, String bucket, LogFileEntry entry, String query, LineFilter filter,
+                                    ScanTally tally) {
+        String key = entry.getKey();
+        logger.debug("Searching within file: {}", key);
+        CountingInputStream counted = null;
+        long lines = 0;
+        // The listing's ETag lets an up-to-date cached copy be scanned without any S3 request
+        try (InputStream contentStream = filter.isActive()
+                ? openFiltered(s3Client, bucket, entry, filter)
+                : openContent(s3Client, bucket, key, entry.getEtag());
+             CountingInputStream countingStream = counted = new CountingInputStream(contentStream);
+             InputStreamReader streamReader = new InputStreamReader(countingStream, StandardCharsets.UTF_8);
+             BufferedReader reader = new BufferedReader(streamReader)) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                if (line.contains(query)) {
+                    logger.info("Found query 	{}	 in file: {}", query, entry.getFileName());
+                    return ScanResult.MATCH; // Found a match, move to the next file
+                }
+            }
+            return ScanResult.NO_MATCH;
+        } catch (S3Exception e) {
+            logger.error("S3 Error searching object for bucket {}, key {}: {} (AWS Code: {})",
+                    bucket, key, e.awsErrorDetails().errorMessage(), e.awsErrorDetails().errorCode(), e);
+        } catch (IOException | SdkClientException e) {
+            logger.error("Error reading S3 object stream during search for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
+        } catch (Exception e) {
+            logger.error("Unexpected error searching log content for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
+        } finally {
+            // Tallied once per file to keep the line loop free of shared counters
+            tally.lines += lines;
+            if (counted != null) {
+                tally.bytes += counted.getCount();
+            }
+        }
+        return ScanResult.FAILED;
+    }
+
+    /**
+     * Opens a listed object for reading, through the content cache when it is enabled.
+     */
+    InputStream openLogStream(String bucket, LogFileEntry entry) throws IOException {
+        return openContent(getClientForBucket(bucket), bucket, entry.getKey(), entry.getEtag());
+    }
+
+    /**
+     * Opens a listed object from byte {@code position} on: from the local copy if one is cached,
+     * otherwise with a ranged GET pinned to the listed ETag. Does not add the object to the cache.
+     */
+    InputStream openLogRange(String bucket, LogFileEntry entry, long position) throws IOException {
+        if (contentCache.isEnabled() && contentCache.contains(bucket, entry.getKey(), entry.getEtag())) {
+            S3Client s3Client = getClientForBucket(bucket);
+            return getCachedContent(s3Client, bucket, entry.getKey(), entry.getEtag()).openStream(position);
+        }
+        return getClientForBucket(bucket).getObject(rangeRequest(bucket, entry, position, entry.getSize() - 1));
+    }
+
+    // Reads go through the local content cache when it is enabled, otherwise straight to S3
+    private InputStream openContent(S3Client s3Client, String bucket, String key, String etag) throws IOException {
+        if (contentCache.isEnabled()) {
+            InputStream stream = getCachedContent(s3Client, bucket, key, etag).tryOpenStream();
+            return stream != null ? stream : contentCache.get(s3Client, bucket, key, etag).openStream();
+        }
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build();
+        return s3Client.getObject(getObjectRequest);
+    }
+
+    // Concurrent reads of the same object share one download into the content cache; each reader then
+    // opens its own stream. A download too large to be retained can only be read once, so whoever finds
+    // it already claimed (tryOpenStream() returning null) fetches a private copy.
+    private CachedObject getCachedContent(S3Client s3Client, String bucket, String key, String etag) throws IOException {
+        return contentFlights.execute("get/" + bucket + "/" + key, () -> contentCache.get(s3Client, bucket, key, etag));
+    }
+
     private S3Client getClientForBucket(String bucket) {
         S3Client client = s3Clients.get(bucket);
         if (client == null) {
@@ -188,7 +930,16 @@ public class LogService {
         return client;
     }
 
-    private int extractSequenceNumber(String fileName) {
+    private static ExecutorService newDaemonPool(String name, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static int extractSequenceNumber(String fileName) {
         Matcher matcher = SEQUENCE_PATTERN.matcher(fileName);
         if (matcher.matches()) {
             try {
@@ -0,0 +1,39 @@
+package log.dashboard.service;
+
+/**
+ * One log record of the merged cross-VM view: a timestamped line plus any continuation
+ * lines (e.g. a stack trace) that followed it in the same file.
+ */
+public class MergedLine {
+    private final String vmIp;
+    private final String fileName;
+    private final String timestamp;
+    private final String text;
+
+    public MergedLine(String vmIp, String fileName, String timestamp, String text) {
+        this.vmIp = vmIp;
+        this.fileName = fileName;
+        this.timestamp = timestamp;
+        this.text = text;
+    }
+
+    // Getters
+    public String getVmIp() {
+        return vmIp;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * ISO local date-time of the record, or null for lines before the first timestamp of a VM's day.
+     */
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
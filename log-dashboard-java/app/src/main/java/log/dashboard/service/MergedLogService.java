@@ -0,0 +1,320 @@
+package log.dashboard.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Timestamp-ordered view of one app/date across all of its VMs.
+ * <p>
+ * Each VM's files are read in sequence order as one stream of records (a timestamped line plus its
+ * continuation lines), and the streams are k-way merged by timestamp. Only one open file and one
+ * record per VM are held at a time, so memory depends on the number of VMs and the page size, not on
+ * the amount of data. Pages are bounded by a time window and continue from an opaque cursor.
+ * <p>
+ * A page starting at a time (a window start or a cursor) does not re-read each VM from its first file:
+ * files are binary-searched by the timestamp of their first record, and reading starts in the last file
+ * that begins before that time, at the offset {@link TimeSeeker} finds in it.
+ */
+@Service
+public class MergedLogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MergedLogService.class);
+    // Caps a record's continuation lines so one runaway stack trace cannot hold a whole file in memory
+    private static final int MAX_RECORD_LINES = 1000;
+    private static final Comparator<Record> BY_TIMESTAMP = Comparator.comparingLong(record -> record.timestamp);
+
+    private final LogService logService;
+
+    @Autowired
+    public MergedLogService(LogService logService) {
+        this.logService = logService;
+    }
+
+    /**
+     * Returns up to {@code limit} records in timestamp order.
+     *
+     * @param from   start of the window (HH:mm[:ss] on {@code date}, inclusive), or null for the start of the day
+     * @param to     end of the window (exclusive), or null for the end of the data
+     * @param cursor the {@code nextCursor} of the previous page, or null
+     * @throws IllegalArgumentException for malformed dates, times or cursors
+     */
+    public MergedPage readMerged(String bucket, String env, String appName, String date,
+                                 String from, String to, String cursor, int limit) throws IOException {
+        LocalDate day;
+        long fromMillis;
+        long toMillis;
+        try {
+            day = LocalDate.parse(date);
+            fromMillis = from == null ? TimestampParser.NO_TIMESTAMP : TimestampParser.toMillis(day.atTime(LocalTime.parse(from)));
+            toMillis = to == null ? Long.MAX_VALUE : TimestampParser.toMillis(day.atTime(LocalTime.parse(to)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date or time: " + e.getParsedString());
+        }
+
+        // The cursor is "<timestamp>:<records at that timestamp already returned>"
+        long cursorMillis = TimestampParser.NO_TIMESTAMP;
+        int cursorSkip = 0;
+        if (cursor != null) {
+            int separator = cursor.indexOf(':');
+            try {
+                cursorMillis = Long.parseLong(cursor.substring(0, separator));
+                cursorSkip = Integer.parseInt(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        long startMillis = Math.max(fromMillis, cursorMillis);
+        int toSkip = startMillis == cursorMillis ? cursorSkip : 0;
+
+        Map<String, List<LogFileEntry>> filesByVm = new LinkedHashMap<>();
+        for (LogFileEntry entry : logService.listLogFiles(bucket, env, appName, date)) {
+            String vmIp = entry.getKey().split("/")[2];
+            filesByVm.computeIfAbsent(vmIp, ip -> new ArrayList<>()).add(entry);
+        }
+        logger.info("Merging {} VMs for bucket={}, env={}, app={}, date={} (from={}, to={}, cursor={})",
+                filesByVm.size(), bucket, env, appName, date, from, to, cursor);
+
+        // Records are split by the app's layout, as in seekTime and firstTimestamp, so all three agree
+        LogLineParser parser = logService.parserFor(appName);
+        List<VmRecords> sources = new ArrayList<>(filesByVm.size());
+        filesByVm.forEach((vmIp, files) -> sources.add(new VmRecords(bucket, vmIp, files, parser, startMillis)));
+        try {
+            Iterator<Record> merged = KWayMerge.mergeIterators(sources, BY_TIMESTAMP);
+            List<MergedLine> lines = new ArrayList<>(Math.min(limit, 1024));
+            long lastMillis = startMillis;
+            int sameTimestamp = toSkip;
+            String nextCursor = null;
+            while (merged.hasNext()) {
+                Record record = merged.next();
+                if (record.timestamp < startMillis) {
+                    continue;
+                }
+                if (record.timestamp == startMillis && toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                if (record.timestamp >= toMillis) {
+                    break;
+                }
+                if (lines.size() == limit) {
+                    nextCursor = lastMillis + ":" + sameTimestamp;
+                    break;
+                }
+                lines.add(record.toMergedLine());
+                if (record.timestamp == lastMillis) {
+                    sameTimestamp++;
+                } else {
+                    lastMillis = record.timestamp;
+                    sameTimestamp = 1;
+                }
+            }
+            return new MergedPage(lines, nextCursor);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (VmRecords source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    private static final class Record {
+        private final long timestamp;
+        private final String vmIp;
+        private final String fileName;
+        private final String text;
+
+        Record(long timestamp, String vmIp, String fileName, String text) {
+            this.timestamp = timestamp;
+            this.vmIp = vmIp;
+            this.fileName = fileName;
+            this.text = text;
+        }
+
+        MergedLine toMergedLine() {
+            String formatted = timestamp == TimestampParser.NO_TIMESTAMP
+                    ? null : TimestampParser.toLocalDateTime(timestamp).toString();
+            return new MergedLine(vmIp, fileName, formatted, text);
+        }
+    }
+
+    /**
+     * One VM's files, in sequence order, read lazily as a single stream of records.
+     */
+    private final class VmRecords implements Iterator<Record>, Closeable {
+        private final String bucket;
+        private final String vmIp;
+        private final List<LogFileEntry> files;
+        private final LogLineParser parser;
+        private final LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+        private final long startMillis;
+        // Index of the next file to open, and where to start reading it; set by the first read
+        private int nextFile = -1;
+        private long nextOffset;
+        private LogFileEntry currentFile;
+        private BufferedReader reader;
+        // First line of the next record, read while looking for the end of the current one
+        private String pendingLine;
+        // Lines without a timestamp of their own belong to the last timestamp seen
+        private long lastTimestamp = TimestampParser.NO_TIMESTAMP;
+        private Record next;
+
+        VmRecords(String bucket, String vmIp, List<LogFileEntry> files, LogLineParser parser, long startMillis) {
+            this.bucket = bucket;
+            this.vmIp = vmIp;
+            this.files = files;
+            this.parser = parser;
+            this.startMillis = startMillis;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = readRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Record record = next;
+            next = null;
+            return record;
+        }
+
+        private Record readRecord() throws IOException {
+            String head = pendingLine;
+            pendingLine = null;
+            if (head == null) {
+                head = readLine(true);
+                if (head == null) {
+                    return null;
+                }
+            }
+            long timestamp = timestampOf(head);
+            if (timestamp == TimestampParser.NO_TIMESTAMP) {
+                timestamp = lastTimestamp;
+            } else {
+                lastTimestamp = timestamp;
+            }
+            String fileName = currentFile.getFileName();
+
+            // Continuation lines never span files: a record ends with the file it started in
+            StringBuilder text = null;
+            for (int lines = 1; lines < MAX_RECORD_LINES; lines++) {
+                String line = readLine(false);
+                if (line == null) {
+                    break;
+                }
+                if (timestampOf(line) != TimestampParser.NO_TIMESTAMP) {
+                    pendingLine = line;
+                    break;
+                }
+                if (text == null) {
+                    text = new StringBuilder(head);
+                }
+                text.append('\n').append(line);
+            }
+            return new Record(timestamp, vmIp, fileName, text == null ? head : text.toString());
+        }
+
+        // The line's timestamp, or NO_TIMESTAMP for a continuation line
+        private long timestampOf(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            return parser.parse(bytes, 0, bytes.length, parsed) ? parsed.timestamp : TimestampParser.NO_TIMESTAMP;
+        }
+
+        // Next line of the current file; with advance, moves on through the following files at end of file
+        private String readLine(boolean advance) throws IOException {
+            while (true) {
+                if (reader != null) {
+                    String line = reader.readLine();
+                    if (line != null) {
+                        return line;
+                    }
+                    if (!advance) {
+                        return null;
+                    }
+                    reader.close();
+                    reader = null;
+                }
+                if (nextFile < 0) {
+                    seekStart();
+                }
+                if (nextFile >= files.size()) {
+                    return null;
+                }
+                currentFile = files.get(nextFile++);
+                long offset = nextOffset;
+                nextOffset = 0;
+                reader = new BufferedReader(new InputStreamReader(offset > 0
+                        ? logService.openLogRange(bucket, currentFile, offset)
+                        : logService.openLogStream(bucket, currentFile), StandardCharsets.UTF_8));
+            }
+        }
+
+        // Finds the first file and offset that can hold records at or after startMillis. The files before
+        // the last one starting earlier than startMillis only hold records up to its first one, all older.
+        private void seekStart() throws IOException {
+            nextFile = 0;
+            if (startMillis == TimestampParser.NO_TIMESTAMP || files.isEmpty()) {
+                return;
+            }
+            int low = 0;
+            int high = files.size() - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                long first = logService.firstTimestamp(bucket, files.get(middle));
+                // A file without a recognizable first timestamp is never skipped past
+                if (first != TimestampParser.NO_TIMESTAMP && first < startMillis) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            nextFile = low;
+            nextOffset = logService.seekTime(bucket, files.get(low), startMillis);
+            if (low > 0 || nextOffset > 0) {
+                logger.debug("Merged read of VM {} starts in file {} of {} at byte {}", vmIp, low + 1, files.size(), nextOffset);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    logger.debug("Error closing {}: {}", currentFile.getKey(), e.getMessage());
+                }
+                reader = null;
+            }
+        }
+    }
+}
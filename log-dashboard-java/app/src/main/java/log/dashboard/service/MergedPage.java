@@ -0,0 +1,26 @@
+package log.dashboard.service;
+
+import java.util.List;
+
+/**
+ * A page of the merged cross-VM view. {@code nextCursor} continues exactly after the last
+ * record of this page, or is null when the requested time window is exhausted.
+ */
+public class MergedPage {
+    private final List<MergedLine> lines;
+    private final String nextCursor;
+
+    public MergedPage(List<MergedLine> lines, String nextCursor) {
+        this.lines = lines;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<MergedLine> getLines() {
+        return lines;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
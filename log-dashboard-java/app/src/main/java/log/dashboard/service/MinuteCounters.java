@@ -0,0 +1,121 @@
+package log.dashboard.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Per-minute counters of one day: lines and bytes (volume), WARN and ERROR-or-worse records.
+ * Only the range of minutes actually seen is stored, so a rotated file covering an hour costs an
+ * hour of counters rather than a day's.
+ */
+final class MinuteCounters {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Minute of day of index 0 of the arrays, or -1 while empty
+    private int firstMinute = -1;
+    private int[] lines = new int[0];
+    private long[] bytes = new long[0];
+    private int[] warnings = new int[0];
+    private int[] errors = new int[0];
+
+    void add(int minute, int lineCount, long byteCount, LogLevel recordLevel) {
+        int index = ensureMinute(minute);
+        lines[index] += lineCount;
+        bytes[index] += byteCount;
+        if (recordLevel == LogLevel.WARN) {
+            warnings[index]++;
+        } else if (recordLevel != null && recordLevel.compareTo(LogLevel.ERROR) >= 0) {
+            errors[index]++;
+        }
+    }
+
+    void addAll(MinuteCounters other) {
+        for (int i = 0; i < other.lines.length; i++) {
+            int index = ensureMinute(other.firstMinute + i);
+            lines[index] += other.lines[i];
+            bytes[index] += other.bytes[i];
+            warnings[index] += other.warnings[i];
+            errors[index] += other.errors[i];
+        }
+    }
+
+    /**
+     * Adds these counters into day-long series bucketed by {@code resolution} minutes.
+     */
+    void addTo(VolumeSeries series, int resolution) {
+        for (int i = 0; i < lines.length; i++) {
+            int bucket = (firstMinute + i) / resolution;
+            series.getLines()[bucket] += lines[i];
+            series.getBytes()[bucket] += bytes[i];
+            series.getWarnings()[bucket] += warnings[i];
+            series.getErrors()[bucket] += errors[i];
+        }
+    }
+
+    boolean isEmpty() {
+        return firstMinute < 0;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeShort(firstMinute);
+        out.writeShort(lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            out.writeInt(lines[i]);
+            out.writeLong(bytes[i]);
+            out.writeInt(warnings[i]);
+            out.writeInt(errors[i]);
+        }
+    }
+
+    static MinuteCounters readFrom(DataInput in) throws IOException {
+        MinuteCounters counters = new MinuteCounters();
+        int first = in.readShort();
+        int length = in.readShort();
+        if (length < 0 || length > MINUTES_PER_DAY || (length > 0 && (first < 0 || first + length > MINUTES_PER_DAY))) {
+            throw new IOException("Corrupt minute counters");
+        }
+        counters.firstMinute = length == 0 ? -1 : first;
+        counters.lines = new int[length];
+        counters.bytes = new long[length];
+        counters.warnings = new int[length];
+        counters.errors = new int[length];
+        for (int i = 0; i < length; i++) {
+            counters.lines[i] = in.readInt();
+            counters.bytes[i] = in.readLong();
+            counters.warnings[i] = in.readInt();
+            counters.errors[i] = in.readInt();
+        }
+        return counters;
+    }
+
+    // Widens the stored range to include minute and returns its index
+    private int ensureMinute(int minute) {
+        if (firstMinute < 0) {
+            firstMinute = minute;
+        }
+        int shift = Math.max(0, firstMinute - minute);
+        int length = Math.max(lines.length, minute - firstMinute + 1) + shift;
+        if (length != lines.length) {
+            lines = widen(lines, shift, length);
+            bytes = widen(bytes, shift, length);
+            warnings = widen(warnings, shift, length);
+            errors = widen(errors, shift, length);
+            firstMinute -= shift;
+        }
+        return minute - firstMinute;
+    }
+
+    private static int[] widen(int[] values, int shift, int length) {
+        int[] widened = new int[length];
+        System.arraycopy(values, 0, widened, shift, values.length);
+        return widened;
+    }
+
+    private static long[] widen(long[] values, int shift, int length) {
+        long[] widened = new long[length];
+        System.arraycopy(values, 0, widened, shift, values.length);
+        return widened;
+    }
+}
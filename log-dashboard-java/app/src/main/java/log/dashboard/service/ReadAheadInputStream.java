@@ -0,0 +1,131 @@
+package log.dashboard.service;
+
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a source stream ahead on another thread into a bounded queue of chunks, so the source is
+ * already being fetched while the consumer is still busy with something else. At most
+ * {@code chunkCount} chunks of {@code chunkSize} bytes are buffered; beyond that the fetching thread
+ * waits for the consumer. Errors of the source are rethrown by {@link #read}.
+ */
+final class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks;
+    private final int chunkSize;
+    private volatile InputStream source;
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private byte[] chunk = new byte[0];
+    private int position;
+    private boolean ended;
+
+    ReadAheadInputStream(Opener opener, Executor executor, int chunkSize, int chunkCount) {
+        this.chunkSize = chunkSize;
+        this.chunks = new ArrayBlockingQueue<>(chunkCount + 1); // one more for the end marker
+        executor.execute(() -> fetch(opener));
+    }
+
+    private void fetch(Opener opener) {
+        try (InputStream in = opener.open()) {
+            source = in;
+            while (!closed) {
+                byte[] buffer = in.readNBytes(chunkSize);
+                if (buffer.length > 0 && !offer(buffer)) {
+                    return;
+                }
+                if (buffer.length < chunkSize) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        offer(END);
+    }
+
+    // Waits for room, giving up once the consumer has closed the stream
+    private boolean offer(byte[] buffer) {
+        try {
+            while (!closed) {
+                if (chunks.offer(buffer, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureChunk()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureChunk()) {
+            return -1;
+        }
+        int count = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    private boolean ensureChunk() throws IOException {
+        if (position < chunk.length) {
+            return true;
+        }
+        if (ended) {
+            return false;
+        }
+        try {
+            chunk = chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for read-ahead data");
+        }
+        position = 0;
+        if (chunk == END) {
+            ended = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear();
+        // Unblocks a fetch stuck in the middle of a large S3 response
+        InputStream in = source;
+        if (!ended && in instanceof Abortable) {
+            ((Abortable) in).abort();
+        }
+    }
+
+    @FunctionalInterface
+    interface Opener {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,40 @@
+package log.dashboard.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of listing one bucket/env/app/date scope.
+ * Keeps the per-VM listings (each in sequence order) next to the merged view so a refresh of
+ * today's listing can add a VM's manifest entries to what was listed before.
+ */
+class ScopeListing {
+    private final Map<String, List<LogFileEntry>> entriesByVmPrefix;
+    private final List<LogFileEntry> entries;
+    private final Instant fullyLoadedAt;
+
+    ScopeListing(Map<String, List<LogFileEntry>> entriesByVmPrefix, List<LogFileEntry> entries, Instant fullyLoadedAt) {
+        this.entriesByVmPrefix = entriesByVmPrefix;
+        this.entries = entries;
+        this.fullyLoadedAt = fullyLoadedAt;
+    }
+
+    /**
+     * Per-VM listings keyed by the VM date prefix ({@code env/app/ip/date/}).
+     */
+    Map<String, List<LogFileEntry>> getEntriesByVmPrefix() {
+        return entriesByVmPrefix;
+    }
+
+    /**
+     * All entries ordered by sequence number.
+     */
+    List<LogFileEntry> getEntries() {
+        return entries;
+    }
+
+    Instant getFullyLoadedAt() {
+        return fullyLoadedAt;
+    }
+}
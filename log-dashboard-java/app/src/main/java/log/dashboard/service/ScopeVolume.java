@@ -0,0 +1,137 @@
+package log.dashboard.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minute counters of every object of one bucket/env/app/date, kept per object with the ETag they
+ * were computed at, so a refresh only scans objects that are new or were rewritten. Persisted as one
+ * small binary file per scope.
+ */
+final class ScopeVolume {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final Map<String, ObjectVolume> objects = new ConcurrentHashMap<>();
+    private volatile Instant updatedAt;
+
+    private ScopeVolume(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the summary stored in {@code file}, or an empty one if there is none yet.
+     */
+    static ScopeVolume open(Path file) throws IOException {
+        ScopeVolume scope = new ScopeVolume(file);
+        if (!Files.exists(file)) {
+            return scope;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return scope; // Written by another version; recomputed on the next refresh
+            }
+            scope.updatedAt = Instant.ofEpochMilli(in.readLong());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                String etag = in.readUTF();
+                long size = in.readLong();
+                scope.objects.put(key, new ObjectVolume(etag.isEmpty() ? null : etag, size, MinuteCounters.readFrom(in)));
+            }
+        }
+        return scope;
+    }
+
+    boolean isComputed() {
+        return updatedAt != null;
+    }
+
+    Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    boolean covers(LogFileEntry entry) {
+        ObjectVolume volume = objects.get(entry.getKey());
+        if (volume == null) {
+            return false;
+        }
+        return entry.getEtag() != null ? entry.getEtag().equals(volume.etag) : entry.getSize() == volume.size;
+    }
+
+    void put(LogFileEntry entry, MinuteCounters counters) {
+        objects.put(entry.getKey(), new ObjectVolume(entry.getEtag(), entry.getSize(), counters));
+    }
+
+    /**
+     * Drops objects that are no longer listed and marks the summary as current.
+     */
+    void completeRefresh(Collection<LogFileEntry> listed) {
+        Set<String> keys = new HashSet<>();
+        for (LogFileEntry entry : listed) {
+            keys.add(entry.getKey());
+        }
+        objects.keySet().retainAll(keys);
+        updatedAt = Instant.now();
+    }
+
+    AppAnalytics toAnalytics(String env, String appName, String date, int resolution) {
+        int buckets = (MinuteCounters.MINUTES_PER_DAY + resolution - 1) / resolution;
+        VolumeSeries total = new VolumeSeries(buckets);
+        Map<String, VolumeSeries> vms = new TreeMap<>();
+        for (Map.Entry<String, ObjectVolume> object : objects.entrySet()) {
+            // env/app/vmIP/date/file
+            String vmIp = object.getKey().split("/")[2];
+            MinuteCounters counters = object.getValue().counters;
+            counters.addTo(total, resolution);
+            counters.addTo(vms.computeIfAbsent(vmIp, ip -> new VolumeSeries(buckets)), resolution);
+        }
+        return new AppAnalytics(env, appName, date, resolution, objects.size(), updatedAt, total, new LinkedHashMap<>(vms));
+    }
+
+    void save() throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            Map<String, ObjectVolume> snapshot = new TreeMap<>(objects);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(updatedAt.toEpochMilli());
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, ObjectVolume> object : snapshot.entrySet()) {
+                ObjectVolume volume = object.getValue();
+                out.writeUTF(object.getKey());
+                out.writeUTF(volume.etag == null ? "" : volume.etag);
+                out.writeLong(volume.size);
+                volume.counters.writeTo(out);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class ObjectVolume {
+        private final String etag;
+        private final long size;
+        private final MinuteCounters counters;
+
+        ObjectVolume(String etag, long size, MinuteCounters counters) {
+            this.etag = etag;
+            this.size = size;
+            this.counters = counters;
+        }
+    }
+}
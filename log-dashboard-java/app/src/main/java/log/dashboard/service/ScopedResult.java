@@ -0,0 +1,42 @@
+package log.dashboard.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A result of a federated query, tagged with the scope it came from.
+ * Streamed to the client as one JSON object per line. A scope that could not be queried yields a
+ * single line with {@code error} set and no {@code result}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScopedResult<T> {
+    private final LogScope scope;
+    private final T result;
+    private final String error;
+
+    public ScopedResult(LogScope scope, T result) {
+        this(scope, result, null);
+    }
+
+    private ScopedResult(LogScope scope, T result, String error) {
+        this.scope = scope;
+        this.result = result;
+        this.error = error;
+    }
+
+    public static <T> ScopedResult<T> failed(LogScope scope, String error) {
+        return new ScopedResult<>(scope, null, error);
+    }
+
+    // Getters
+    public LogScope getScope() {
+        return scope;
+    }
+
+    public T getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,151 @@
+package log.dashboard.service;
+
+import log.dashboard.config.DashboardProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of search outcomes keyed by bucket/env/app/date, query and line filter.
+ * <p>
+ * Outcomes are kept per object together with the ETag (or, without one, the size) they were decided
+ * at, so a repeated search only scans objects that appeared or were rewritten since, and a repeated
+ * search over a past date needs no scan at all. Objects that could not be read are never cached.
+ */
+@Component
+public class SearchCache {
+
+    private final DashboardProperties.SearchCache searchCacheProperties;
+    private final Map<SearchKey, Map<String, Outcome>> searches;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public SearchCache(DashboardProperties dashboardProperties) {
+        this.searchCacheProperties = dashboardProperties.getSearchCache();
+        // Access-ordered so the least recently repeated search is evicted first
+        this.searches = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SearchKey, Map<String, Outcome>> eldest) {
+                if (size() > searchCacheProperties.getMaxEntries()) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return searchCacheProperties.isEnabled();
+    }
+
+    /**
+     * Cached outcomes of a search, by object key; callers check {@link Outcome#isCurrent} per listed object.
+     * A search counts as a hit when every listed object has a current outcome.
+     */
+    Map<String, Outcome> get(String bucket, String env, String appName, String date, String query, LineFilter filter,
+                             List<LogFileEntry> logFiles) {
+        Map<String, Outcome> cached;
+        synchronized (searches) {
+            cached = searches.get(new SearchKey(bucket, env, appName, date, query, filter.cacheKey()));
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            return Collections.emptyMap();
+        }
+        for (LogFileEntry entry : logFiles) {
+            Outcome outcome = cached.get(entry.getKey());
+            if (outcome == null || !outcome.isCurrent(entry)) {
+                misses.incrementAndGet();
+                return cached;
+            }
+        }
+        hits.incrementAndGet();
+        return cached;
+    }
+
+    /**
+     * Replaces the outcomes of a search; {@code outcomes} should cover the objects listed now.
+     */
+    void put(String bucket, String env, String appName, String date, String query, LineFilter filter,
+             Map<String, Outcome> outcomes) {
+        SearchKey key = new SearchKey(bucket, env, appName, date, query, filter.cacheKey());
+        Map<String, Outcome> snapshot = Collections.unmodifiableMap(new HashMap<>(outcomes));
+        synchronized (searches) {
+            searches.put(key, snapshot);
+        }
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (searches) {
+            size = searches.size();
+        }
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    /**
+     * Whether one object matched, as decided at a given version of it.
+     */
+    static final class Outcome {
+        private final String etag;
+        private final long size;
+        private final boolean matched;
+
+        Outcome(LogFileEntry entry, boolean matched) {
+            this.etag = entry.getEtag();
+            this.size = entry.getSize();
+            this.matched = matched;
+        }
+
+        boolean isCurrent(LogFileEntry entry) {
+            return entry.getEtag() != null ? entry.getEtag().equals(etag) : etag == null && entry.getSize() == size;
+        }
+
+        boolean isMatched() {
+            return matched;
+        }
+    }
+
+    private static final class SearchKey {
+        private final String bucket;
+        private final String env;
+        private final String appName;
+        private final String date;
+        private final String query;
+        private final String filter;
+
+        SearchKey(String bucket, String env, String appName, String date, String query, String filter) {
+            this.bucket = bucket;
+            this.env = env;
+            this.appName = appName;
+            this.date = date;
+            this.query = query;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SearchKey that = (SearchKey) o;
+            return Objects.equals(bucket, that.bucket) && Objects.equals(env, that.env)
+                    && Objects.equals(appName, that.appName) && Objects.equals(date, that.date)
+                    && Objects.equals(query, that.query) && Objects.equals(filter, that.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucket, env, appName, date, query, filter);
+        }
+    }
+}
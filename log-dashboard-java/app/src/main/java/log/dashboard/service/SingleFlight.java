@@ -0,0 +1,75 @@
+package log.dashboard.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical calls: while a call for a key is in flight, further callers with
+ * the same key wait for it and receive its result (or its exception) instead of issuing their own.
+ * Nothing is kept once the call completes; caching is left to the caller.
+ */
+final class SingleFlight<T> {
+
+    private final ConcurrentMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    T execute(String key, Call<T> call) throws IOException {
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.incrementAndGet();
+            return await(existing);
+        }
+
+        executed.incrementAndGet();
+        try {
+            T result = call.call();
+            flight.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Calls that went to S3 count as misses, callers that joined one as hits.
+     */
+    CacheStats stats() {
+        return new CacheStats(shared.get(), executed.get(), 0, inFlight.size());
+    }
+
+    private static <T> T await(CompletableFuture<T> flight) throws IOException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shared S3 call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws IOException;
+    }
+}
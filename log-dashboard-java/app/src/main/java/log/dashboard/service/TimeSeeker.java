@@ -0,0 +1,94 @@
+package log.dashboard.service;
+
+import java.io.IOException;
+
+/**
+ * Finds where a time window starts in a time-ordered log object by binary search over byte offsets,
+ * reading only small probe windows (e.g. ranged GETs) instead of scanning from the start.
+ */
+final class TimeSeeker {
+
+    static final int PROBE_SIZE = 64 * 1024;
+
+    private TimeSeeker() {
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code position} (fewer only at the end of the object).
+     */
+    @FunctionalInterface
+    interface RangeReader {
+        int read(long position, byte[] buffer, int length) throws IOException;
+    }
+
+    /**
+     * Returns a line-start offset such that every record before it is older than {@code fromMillis}.
+     * Reading from there and dropping older records yields exactly the records from {@code fromMillis} on.
+     */
+    static long seek(RangeReader reader, long size, long fromMillis, LogLineParser parser) throws IOException {
+        LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+        byte[] probe = new byte[PROBE_SIZE];
+        long low = 0;
+        long high = size;
+        while (high - low > PROBE_SIZE) {
+            long middle = low + (high - low) / 2;
+            int length = reader.read(middle, probe, PROBE_SIZE);
+            // The first complete line in the probe whose timestamp is known
+            long lineStart = -1;
+            long timestamp = TimestampParser.NO_TIMESTAMP;
+            int start = indexOfNewline(probe, 0, length) + 1;
+            while (start > 0 && start < length) {
+                int end = indexOfNewline(probe, start, length);
+                if (end < 0) {
+                    break;
+                }
+                if (parser.parse(probe, start, end, parsed)) {
+                    lineStart = middle + start;
+                    timestamp = parsed.timestamp;
+                    break;
+                }
+                start = end + 1;
+            }
+            if (lineStart < 0 || timestamp >= fromMillis) {
+                high = middle;
+            } else {
+                low = lineStart;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Timestamp of the first timestamped line in the object's first probe window, or
+     * {@link TimestampParser#NO_TIMESTAMP} if there is none.
+     */
+    static long firstTimestamp(RangeReader reader, long size, LogLineParser parser) throws IOException {
+        LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+        byte[] probe = new byte[(int) Math.min(PROBE_SIZE, size)];
+        int length = reader.read(0, probe, probe.length);
+        int start = 0;
+        while (start < length) {
+            int end = indexOfNewline(probe, start, length);
+            if (end < 0) {
+                end = length == size ? length : -1; // a cut-off last line is only whole at the end of the object
+                if (end < 0) {
+                    break;
+                }
+            }
+            if (parser.parse(probe, start, end, parsed)) {
+                return parsed.timestamp;
+            }
+            start = end + 1;
+        }
+        return TimestampParser.NO_TIMESTAMP;
+    }
+
+    private static int indexOfNewline(byte[] buffer, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,141 @@
+package log.dashboard.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Reads the timestamp a log line starts with, e.g. {@code 2024-05-17 14:03:07,123} or
+ * {@code [2024-05-17T14:03:07.123]}. Fractions are optional and read to millisecond precision.
+ * <p>
+ * Timestamps are returned as milliseconds of the local date-time taken as if it were UTC: the value
+ * orders lines correctly and maps back via {@link #toLocalDateTime(long)}, whatever zone the apps log in.
+ */
+final class TimestampParser {
+
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private TimestampParser() {
+    }
+
+    static long parseLeading(CharSequence line) {
+        int offset = 0;
+        if (line.length() > 0 && line.charAt(0) == '[') {
+            offset = 1;
+        }
+        // yyyy-MM-dd?HH:mm:ss is 19 characters
+        if (line.length() < offset + 19
+                || line.charAt(offset + 4) != '-' || line.charAt(offset + 7) != '-'
+                || (line.charAt(offset + 10) != ' ' && line.charAt(offset + 10) != 'T')
+                || line.charAt(offset + 13) != ':' || line.charAt(offset + 16) != ':') {
+            return NO_TIMESTAMP;
+        }
+        int millis = 0;
+        int position = offset + 19;
+        if (position < line.length() && (line.charAt(position) == '.' || line.charAt(position) == ',')) {
+            int scale = 100;
+            for (position++; position < line.length() && isDigit(line.charAt(position)); position++) {
+                millis += (line.charAt(position) - '0') * scale;
+                scale /= 10;
+            }
+        }
+        return compose(digits(line, offset, 4), digits(line, offset + 5, 2), digits(line, offset + 8, 2),
+                digits(line, offset + 11, 2), digits(line, offset + 14, 2), digits(line, offset + 17, 2), millis);
+    }
+
+    /**
+     * Same as {@link #parseLeading(CharSequence)} for the ASCII bytes {@code [start, end)}, without decoding them.
+     */
+    static long parseLeading(byte[] line, int start, int end) {
+        return parseAt(line, start < end && line[start] == '[' ? start + 1 : start, end);
+    }
+
+    /**
+     * Parses a timestamp starting exactly at {@code start}, or returns {@link #NO_TIMESTAMP}.
+     */
+    static long parseAt(byte[] line, int start, int end) {
+        int timestampEnd = timestampEnd(line, start, end);
+        if (timestampEnd < 0) {
+            return NO_TIMESTAMP;
+        }
+        int millis = 0;
+        int scale = 100;
+        for (int position = start + 20; position < timestampEnd; position++) {
+            millis += (line[position] - '0') * scale;
+            scale /= 10;
+        }
+        return compose(digits(line, start, 4), digits(line, start + 5, 2), digits(line, start + 8, 2),
+                digits(line, start + 11, 2), digits(line, start + 14, 2), digits(line, start + 17, 2), millis);
+    }
+
+    /**
+     * Index just past the timestamp syntax starting at {@code start} (including any fraction), or -1.
+     * Only the shape is checked; {@link #parseAt(byte[], int, int)} validates the values.
+     */
+    static int timestampEnd(byte[] line, int start, int end) {
+        if (end - start < 19
+                || line[start + 4] != '-' || line[start + 7] != '-'
+                || (line[start + 10] != ' ' && line[start + 10] != 'T')
+                || line[start + 13] != ':' || line[start + 16] != ':') {
+            return -1;
+        }
+        int position = start + 19;
+        if (position < end && (line[position] == '.' || line[position] == ',')) {
+            for (position++; position < end && line[position] >= '0' && line[position] <= '9'; position++) {
+                // fraction digits
+            }
+        }
+        return position;
+    }
+
+    private static long compose(int year, int month, int day, int hour, int minute, int second, int millis) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NO_TIMESTAMP;
+        }
+        long epochDay;
+        try {
+            epochDay = LocalDate.of(year, month, day).toEpochDay();
+        } catch (RuntimeException e) {
+            return NO_TIMESTAMP; // e.g. February 30th
+        }
+        return ((epochDay * 24 + hour) * 60 + minute) * 60_000L + second * 1_000L + millis;
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    // Parses a fixed-width run of ASCII digits; -1 if any character is not a digit
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int digits(byte[] text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            byte c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
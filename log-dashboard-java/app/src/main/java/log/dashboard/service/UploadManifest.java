@@ -0,0 +1,61 @@
+package log.dashboard.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The manifest the log agent keeps per VM and date: a JSON list of the key, size, sequence, ETag and
+ * last-modified time of every uploaded file. The manifest of {@code env/app/ip/date/} is stored as
+ * {@code env/app/ip/date.manifest.json}, outside the date prefix, so LIST results never include it.
+ */
+final class UploadManifest {
+
+    static final String SUFFIX = ".manifest.json";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private UploadManifest() {
+    }
+
+    /**
+     * Manifest key of a VM date prefix ({@code env/app/ip/date/}).
+     */
+    static String keyFor(String vmDatePrefix) {
+        return vmDatePrefix.substring(0, vmDatePrefix.length() - 1) + SUFFIX;
+    }
+
+    /**
+     * Entries listed by a manifest, in sequence order; keys outside {@code vmDatePrefix} are ignored.
+     */
+    static List<LogFileEntry> parse(InputStream in, String vmDatePrefix) throws IOException {
+        JsonNode files = MAPPER.readTree(in).path("files");
+        if (!files.isArray()) {
+            throw new IOException("Manifest of " + vmDatePrefix + " has no files array");
+        }
+        List<LogFileEntry> entries = new ArrayList<>(files.size());
+        for (JsonNode file : files) {
+            String key = file.path("key").asText(null);
+            if (key == null || !key.startsWith(vmDatePrefix)) {
+                continue;
+            }
+            String fileName = key.substring(key.lastIndexOf("/") + 1);
+            // Agents leave it out for names without one; derived from the name then, as for LIST results
+            int sequence = file.path("sequence").isInt() ? file.get("sequence").asInt() : LogService.extractSequenceNumber(fileName);
+            String etag = file.path("etag").isTextual() ? file.get("etag").asText() : null;
+            Instant lastModified;
+            try {
+                lastModified = Instant.parse(file.path("lastModified").asText());
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid lastModified for " + key + " in manifest", e);
+            }
+            entries.add(new LogFileEntry(key, fileName, lastModified, file.path("size").asLong(), sequence, etag));
+        }
+        entries.sort(LogService.BY_SEQUENCE);
+        return List.copyOf(entries);
+    }
+}
@@ -0,0 +1,135 @@
+package log.dashboard.service;
+
+import software.amazon.awssdk.http.Abortable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts lines, bytes and WARN/ERROR records per minute over a byte range of one log object. Ranges
+ * larger than the block size are split in half and scanned in parallel; each half reads its own
+ * ranged stream. A line belongs to the block its first byte is in, so block edges need no overlap.
+ * <p>
+ * Continuation lines count towards the minute of their record. When a block starts inside a record,
+ * its leading continuation lines are handed to the preceding block's last record when the halves are
+ * combined.
+ */
+final class VolumeScanTask extends RecursiveTask<VolumeScanTask.BlockCounts> {
+
+    private static final long serialVersionUID = 1L;
+
+    // State of a block's last record when it was outside the summarized day
+    private static final int OUTSIDE_DAY = -2;
+
+    private final LogService logService;
+    private final String bucket;
+    private final LogFileEntry entry;
+    private final LogLineParser parser;
+    private final long dayStartMillis;
+    private final long blockSize;
+    private final long start;
+    private final long end;
+
+    VolumeScanTask(LogService logService, String bucket, LogFileEntry entry, LogLineParser parser,
+                   long dayStartMillis, long blockSize) {
+        this(logService, bucket, entry, parser, dayStartMillis, blockSize, 0, entry.getSize());
+    }
+
+    private VolumeScanTask(LogService logService, String bucket, LogFileEntry entry, LogLineParser parser,
+                           long dayStartMillis, long blockSize, long start, long end) {
+        this.logService = logService;
+        this.bucket = bucket;
+        this.entry = entry;
+        this.parser = parser;
+        this.dayStartMillis = dayStartMillis;
+        this.blockSize = blockSize;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected BlockCounts compute() {
+        if (end - start <= blockSize) {
+            try {
+                return scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        long middle = start + (end - start) / 2;
+        VolumeScanTask right = new VolumeScanTask(logService, bucket, entry, parser, dayStartMillis, blockSize, middle, end);
+        right.fork();
+        BlockCounts left = new VolumeScanTask(logService, bucket, entry, parser, dayStartMillis, blockSize, start, middle).compute();
+        return left.append(right.join());
+    }
+
+    private BlockCounts scan() throws IOException {
+        BlockCounts block = new BlockCounts();
+        if (start >= end) {
+            return block;
+        }
+        LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+        // From the byte before the block: the (possibly empty) line ending there belongs to the previous block
+        long base = start == 0 ? 0 : start - 1;
+        InputStream stream = logService.openLogRange(bucket, entry, base);
+        LineReader lines = new LineReader(stream);
+        try {
+            if (start > 0 && !lines.next()) {
+                return block;
+            }
+            long lineStart = base + lines.consumed();
+            while (lineStart < end && lines.next()) {
+                long lineBytes = base + lines.consumed() - lineStart;
+                lineStart += lineBytes;
+                if (parser.parse(lines.buffer(), lines.start(), lines.end(), parsed)) {
+                    long minute = Math.floorDiv(parsed.timestamp - dayStartMillis, 60_000L);
+                    block.lastMinute = minute >= 0 && minute < MinuteCounters.MINUTES_PER_DAY ? (int) minute : OUTSIDE_DAY;
+                    if (block.lastMinute >= 0) {
+                        block.counters.add(block.lastMinute, 1, lineBytes, parsed.level);
+                    }
+                } else {
+                    block.addContinuation(1, lineBytes);
+                }
+            }
+        } finally {
+            // Stopped at the block's end: drop the rest of an S3 response instead of draining it
+            if (!lines.isAtEnd() && stream instanceof Abortable) {
+                ((Abortable) stream).abort();
+            }
+            stream.close();
+        }
+        return block;
+    }
+
+    static final class BlockCounts {
+        final MinuteCounters counters = new MinuteCounters();
+        // Continuation lines before the block's first record, whose minute only the previous block knows
+        private int leadingLines;
+        private long leadingBytes;
+        // Minute of the block's last record, -1 if it has none, or OUTSIDE_DAY
+        private int lastMinute = -1;
+
+        private void addContinuation(int lines, long bytes) {
+            if (lines == 0) {
+                return;
+            }
+            if (lastMinute >= 0) {
+                counters.add(lastMinute, lines, bytes, null);
+            } else if (lastMinute == -1) {
+                leadingLines += lines;
+                leadingBytes += bytes;
+            }
+        }
+
+        private BlockCounts append(BlockCounts next) {
+            addContinuation(next.leadingLines, next.leadingBytes);
+            counters.addAll(next.counters);
+            if (next.lastMinute != -1) {
+                lastMinute = next.lastMinute;
+            }
+            return this;
+        }
+    }
+}
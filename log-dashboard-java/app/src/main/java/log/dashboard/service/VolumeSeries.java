@@ -0,0 +1,41 @@
+package log.dashboard.service;
+
+/**
+ * Counters of a day split into buckets of {@code resolution} minutes; index 0 starts at midnight.
+ */
+public class VolumeSeries {
+    private final long[] lines;
+    private final long[] bytes;
+    private final long[] warnings;
+    private final long[] errors;
+
+    public VolumeSeries(int buckets) {
+        this.lines = new long[buckets];
+        this.bytes = new long[buckets];
+        this.warnings = new long[buckets];
+        this.errors = new long[buckets];
+    }
+
+    // Getters
+    public long[] getLines() {
+        return lines;
+    }
+
+    public long[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * WARN records per bucket.
+     */
+    public long[] getWarnings() {
+        return warnings;
+    }
+
+    /**
+     * ERROR and FATAL records per bucket.
+     */
+    public long[] getErrors() {
+        return errors;
+    }
+}
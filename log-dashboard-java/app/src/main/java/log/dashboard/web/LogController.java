@@ -1,31 +1,89 @@
 package log.dashboard.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import log.dashboard.config.DashboardProperties;
+import log.dashboard.config.S3ClientStats;
+import log.dashboard.service.AnalyticsService;
+import log.dashboard.service.AppAnalytics;
+import log.dashboard.service.CacheStats;
+import log.dashboard.service.FederatedLogService;
+import log.dashboard.service.LineFilter;
+import log.dashboard.service.LogArchiveService;
+import log.dashboard.service.LogContent;
 import log.dashboard.service.LogFileEntry;
+import log.dashboard.service.LogPage;
+import log.dashboard.service.LogScope;
 import log.dashboard.service.LogService;
+import log.dashboard.service.MergedLogService;
+import log.dashboard.service.MergedPage;
+import log.dashboard.service.ScopedResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class LogController {
 
     private static final Logger logger = LoggerFactory.getLogger(LogController.class);
+    private static final int MAX_MERGED_PAGE_SIZE = 5000;
+    private static final int MAX_LOG_PAGE_BYTES = 4 * 1024 * 1024;
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType("text", "plain", StandardCharsets.UTF_8);
+    private static final MediaType APPLICATION_ZIP = new MediaType("application", "zip");
     private final LogService logService;
+    private final FederatedLogService federatedLogService;
+    private final MergedLogService mergedLogService;
+    private final AnalyticsService analyticsService;
+    private final LogArchiveService logArchiveService;
+    private final ObjectMapper objectMapper;
+    private final Duration immutableMaxAge;
+    private final Duration archiveTimeout;
 
     @Autowired
-    public LogController(LogService logService) {
+    public LogController(LogService logService, FederatedLogService federatedLogService, MergedLogService mergedLogService,
+                         AnalyticsService analyticsService, LogArchiveService logArchiveService,
+                         ObjectMapper objectMapper, DashboardProperties dashboardProperties) {
         this.logService = logService;
+        this.federatedLogService = federatedLogService;
+        this.mergedLogService = mergedLogService;
+        this.analyticsService = analyticsService;
+        this.logArchiveService = logArchiveService;
+        this.objectMapper = objectMapper;
+        this.immutableMaxAge = dashboardProperties.getHttpCache().getImmutableMaxAge();
+        this.archiveTimeout = dashboardProperties.getArchive().getTimeout();
     }
 
     @GetMapping("/config/buckets")
@@ -39,82 +97,398 @@ public class LogController {
         }
     }
 
+    // The log endpoints return Callables: S3 work runs on the bounded request pool (AsyncRequestConfiguration)
+    // and the Tomcat thread is released immediately.
+
     @GetMapping("/logs")
-    public ResponseEntity<List<LogFileEntry>> listLogs(
+    public Callable<ResponseEntity<List<LogFileEntry>>> listLogs(
             @RequestParam String bucket,
             @RequestParam String env,
             @RequestParam String appName,
             @RequestParam String date) { // Expecting YYYY-MM-DD format
-        try {
-            // Basic validation
-            if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date)");
-            }
-            // Add more specific date format validation if needed
-
-            List<LogFileEntry> logFiles = logService.listLogFiles(bucket, env, appName, date);
-            return ResponseEntity.ok(logFiles);
-        } catch (IllegalArgumentException e) {
-            logger.warn("Bad request for listing logs: {}", e.getMessage());
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        } catch (Exception e) {
-            logger.error("Error listing log files for bucket={}, env={}, app={}, date={}: {}",
-                    bucket, env, appName, date, e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error listing log files");
+        // Basic validation
+        if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date)");
         }
+        // Add more specific date format validation if needed
+
+        return () -> {
+            try {
+                List<LogFileEntry> logFiles = logService.listLogFiles(bucket, env, appName, date);
+                // With validators set, Spring answers a matching If-None-Match / If-Modified-Since with 304
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                        .eTag(listingEtag(logFiles))
+                        .cacheControl(logFiles.isEmpty() ? CacheControl.noCache() : cacheControlFor(logService.isImmutableDate(date)));
+                logFiles.stream()
+                        .map(LogFileEntry::getLastModified)
+                        .filter(Objects::nonNull)
+                        .max(Comparator.naturalOrder())
+                        .ifPresent(response::lastModified);
+                return response.body(logFiles);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Bad request for listing logs: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error listing log files for bucket={}, env={}, app={}, date={}: {}",
+                        bucket, env, appName, date, e.getMessage(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error listing log files");
+            }
+        };
     }
 
+    // Opened, checked against the conditional headers and written inside one task, so the content is
+    // closed on every path: a 304 or 412 never leaves an unread stream or a pinned cache entry behind
     @GetMapping(value = "/log-content", produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<String> getLogContent(
+    public Callable<Void> getLogContent(
             @RequestParam String bucket,
-            @RequestParam String key) {
-        try {
-            if (bucket.isEmpty() || key.isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, key)");
-            }
-            String content = logService.getLogContent(bucket, key);
-            // Check if service returned an error message
-            if (content.startsWith("Error")) {
-                 // Logged in service, return appropriate status
-                 if (content.contains("Invalid or unconfigured bucket")) {
-                     throw new ResponseStatusException(HttpStatus.BAD_REQUEST, content);
-                 } else {
-                     throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, content);
-                 }
+            @RequestParam String key,
+            @RequestParam(required = false) String level, // minimum level, e.g. WARN
+            @RequestParam(required = false) String from, // HH:mm[:ss] on the key's date, inclusive
+            @RequestParam(required = false) String to, // HH:mm[:ss], exclusive
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        if (bucket.isEmpty() || key.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, key)");
+        }
+        LineFilter filter = lineFilter(level, LogService.dateOfKey(key), from, to);
+        return () -> {
+            // Opened before the response is committed, so S3 errors still map to a status code
+            try (LogContent content = openLogContent(bucket, key, filter, ifNoneMatch)) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControlFor(logService.isImmutableKey(key)).getHeaderValue());
+                // Filtered content has no known length and no validators of its own
+                if (content.getEtag() != null) {
+                    response.setHeader(HttpHeaders.ETAG, content.getEtag());
+                }
+                if (content.getLastModified() != null) {
+                    response.setDateHeader(HttpHeaders.LAST_MODIFIED, content.getLastModified().toEpochMilli());
+                }
+                if (content.isNotModified()) {
+                    response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                    return null;
+                }
+                // If-Modified-Since, If-Match and If-Unmodified-Since, answered as Spring would for a ResponseEntity
+                long lastModified = content.getLastModified() != null ? content.getLastModified().toEpochMilli() : -1;
+                if (new ServletWebRequest(request, response).checkNotModified(content.getEtag(), lastModified)) {
+                    return null;
+                }
+                response.setContentType(TEXT_PLAIN_UTF8.toString());
+                if (content.getSize() >= 0) {
+                    response.setContentLengthLong(content.getSize());
+                }
+                // Copied straight to the client instead of being built up as one String on the heap
+                content.getStream().transferTo(response.getOutputStream());
+                return null;
             }
-            return ResponseEntity.ok(content);
+        };
+    }
+
+    private LogContent openLogContent(String bucket, String key, LineFilter filter, String ifNoneMatch) {
+        try {
+            return filter.isActive()
+                    ? logService.openLogContent(bucket, key, filter)
+                    : logService.openLogContent(bucket, key, ifNoneMatch);
         } catch (IllegalArgumentException e) {
             logger.warn("Bad request for getting log content: {}", e.getMessage());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        } catch (ResponseStatusException rse) {
-            throw rse; // Re-throw exceptions already mapped to status codes
+        } catch (S3Exception e) {
+            if (e.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Log object not found: " + key);
+            }
+            logger.error("S3 Error getting object for bucket {}, key {}: {}", bucket, key, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching log content from S3");
         } catch (Exception e) {
             logger.error("Error getting log content for bucket={}, key={}: {}", bucket, key, e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error retrieving log content");
         }
     }
 
+    @GetMapping("/log-page")
+    public Callable<ResponseEntity<LogPage>> readLogPage(
+            @RequestParam String bucket,
+            @RequestParam String key,
+            @RequestParam(defaultValue = "0") long offset, // byte offset; the page starts at the next line start
+            @RequestParam(defaultValue = "262144") int limit) { // bytes of lines per page
+        if (bucket.isEmpty() || key.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, key)");
+        }
+        if (offset < 0 || limit < 1 || limit > MAX_LOG_PAGE_BYTES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "offset must not be negative and limit must be between 1 and " + MAX_LOG_PAGE_BYTES);
+        }
+        return () -> {
+            try {
+                LogPage page = logService.readLogPage(bucket, key, offset, limit);
+                return ResponseEntity.ok()
+                        .cacheControl(cacheControlFor(logService.isImmutableKey(key)))
+                        .body(page);
+            } catch (Exception e) {
+                throw pageError("reading log page", bucket, key, e);
+            }
+        };
+    }
+
+    @GetMapping("/log-find")
+    public Callable<ResponseEntity<Map<String, Long>>> findInLog(
+            @RequestParam String bucket,
+            @RequestParam String key,
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") long offset) { // first line start to consider
+        if (bucket.isEmpty() || key.isEmpty() || query.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, key, query)");
+        }
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset must not be negative");
+        }
+        return () -> {
+            try {
+                return ResponseEntity.ok(Map.of("offset", logService.findInLog(bucket, key, query, offset)));
+            } catch (Exception e) {
+                throw pageError("finding in log", bucket, key, e);
+            }
+        };
+    }
+
+    private ResponseStatusException pageError(String action, String bucket, String key, Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            logger.warn("Bad request for {}: {}", action, e.getMessage());
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (e instanceof S3Exception) {
+            int status = ((S3Exception) e).statusCode();
+            if (status == HttpStatus.NOT_FOUND.value()) {
+                return new ResponseStatusException(HttpStatus.NOT_FOUND, "Log object not found: " + key);
+            }
+            // Pages are pinned to the listed ETag; the viewer reloads the object when it changed
+            if (status == HttpStatus.PRECONDITION_FAILED.value()) {
+                return new ResponseStatusException(HttpStatus.CONFLICT, "Log object changed: " + key);
+            }
+        }
+        logger.error("Error {} for bucket={}, key={}: {}", action, bucket, key, e.getMessage(), e);
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error " + action);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<List<String>> searchLogs(
+    public Callable<ResponseEntity<List<String>>> searchLogs(
+            @RequestParam String bucket,
+            @RequestParam String env,
+            @RequestParam String appName,
+            @RequestParam String date,
+            @RequestParam String query,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty() || query.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date, query)");
+        }
+        LineFilter filter = lineFilter(level, date, from, to);
+        return () -> {
+            try {
+                List<String> matchingFiles = logService.searchLogs(bucket, env, appName, date, query, filter);
+                return ResponseEntity.ok(matchingFiles);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Bad request for searching logs: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error searching logs for bucket={}, env={}, app={}, date={}, query={}: {}",
+                        bucket, env, appName, date, query, e.getMessage(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error searching logs");
+            }
+        };
+    }
+
+    private static LineFilter lineFilter(String level, String date, String from, String to) {
+        try {
+            return LineFilter.of(level, date, from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/merged")
+    public Callable<ResponseEntity<MergedPage>> readMerged(
             @RequestParam String bucket,
             @RequestParam String env,
             @RequestParam String appName,
             @RequestParam String date,
+            @RequestParam(required = false) String from, // HH:mm[:ss], inclusive
+            @RequestParam(required = false) String to, // HH:mm[:ss], exclusive
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int limit) {
+        if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date)");
+        }
+        if (limit < 1 || limit > MAX_MERGED_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_MERGED_PAGE_SIZE);
+        }
+        return () -> {
+            try {
+                return ResponseEntity.ok(mergedLogService.readMerged(bucket, env, appName, date, from, to, cursor, limit));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Bad request for merged view: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error reading merged view for bucket={}, env={}, app={}, date={}: {}",
+                        bucket, env, appName, date, e.getMessage(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error reading merged log view");
+            }
+        };
+    }
+
+    @GetMapping("/analytics")
+    public Callable<ResponseEntity<AppAnalytics>> getAnalytics(
+            @RequestParam String bucket,
+            @RequestParam String env,
+            @RequestParam String appName,
+            @RequestParam String date,
+            @RequestParam(defaultValue = "1") int resolution) { // minutes per bucket
+        if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date)");
+        }
+        return () -> {
+            try {
+                return ResponseEntity.ok(analyticsService.getAnalytics(bucket, env, appName, date, resolution));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Bad request for analytics: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error computing analytics for bucket={}, env={}, app={}, date={}: {}",
+                        bucket, env, appName, date, e.getMessage(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error computing log analytics");
+            }
+        };
+    }
+
+    // Written straight to the response inside one async task, so the whole download runs under
+    // dashboard.archive.timeout rather than dashboard.requests.timeout
+    @GetMapping("/archive")
+    public WebAsyncTask<Void> downloadArchive(
+            @RequestParam String bucket,
+            @RequestParam String env,
+            @RequestParam String appName,
+            @RequestParam String date,
+            HttpServletResponse response) {
+        if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date)");
+        }
+        return new WebAsyncTask<>(archiveTimeout.toMillis(), () -> {
+            List<LogFileEntry> logFiles;
+            try {
+                // Listed before the response is committed, so errors still map to a status code; a failed
+                // listing must not pass for an empty one and download as an empty archive
+                logFiles = logService.loadLogFiles(bucket, env, appName, date);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Bad request for archive: {}", e.getMessage());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            } catch (S3Exception e) {
+                if (e.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Bucket not found: " + bucket);
+                }
+                logger.error("S3 Error listing log files for archive of bucket={}, env={}, app={}, date={}: {}",
+                        bucket, env, appName, date, e.getMessage(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error listing log files from S3");
+            } catch (Exception e) {
+                logger.error("Error listing log files for archive of bucket={}, env={}, app={}, date={}: {}",
+                        bucket, env, appName, date, e.getMessage(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error listing log files");
+            }
+            response.setContentType(APPLICATION_ZIP.toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(env + "-" + appName + "-" + date + ".zip", StandardCharsets.UTF_8)
+                    .build()
+                    .toString());
+            logArchiveService.writeZip(bucket, logFiles, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @GetMapping("/stats/caches")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        return ResponseEntity.ok(logService.getCacheStats());
+    }
+
+    @GetMapping("/stats/s3")
+    public ResponseEntity<Map<String, S3ClientStats>> getS3ClientStats() {
+        return ResponseEntity.ok(logService.getS3ClientStats());
+    }
+
+    // Federated endpoints stream one JSON object per line as each bucket/app/date scope completes
+
+    @GetMapping("/federated/logs")
+    public ResponseEntity<StreamingResponseBody> listLogsFederated(
+            @RequestParam List<String> buckets,
+            @RequestParam String env,
+            @RequestParam List<String> appNames,
+            @RequestParam String fromDate, // YYYY-MM-DD, inclusive
+            @RequestParam String toDate) {
+        List<LogScope> scopes = planScopes(buckets, env, appNames, fromDate, toDate);
+        StreamingResponseBody body = out -> federatedLogService.streamLogFiles(scopes, results -> writeLines(out, results));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/federated/search")
+    public ResponseEntity<StreamingResponseBody> searchLogsFederated(
+            @RequestParam List<String> buckets,
+            @RequestParam String env,
+            @RequestParam List<String> appNames,
+            @RequestParam String fromDate,
+            @RequestParam String toDate,
             @RequestParam String query) {
+        if (query.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameter (query)");
+        }
+        List<LogScope> scopes = planScopes(buckets, env, appNames, fromDate, toDate);
+        StreamingResponseBody body = out -> federatedLogService.streamSearch(scopes, query, results -> writeLines(out, results));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Past dates never change and may be cached for long; today's data must be revalidated on every view
+    private CacheControl cacheControlFor(boolean immutable) {
+        return immutable ? CacheControl.maxAge(immutableMaxAge).cachePrivate().immutable() : CacheControl.noCache();
+    }
+
+    // Weak validator over the listed keys and their ETags; changes whenever an object is added or replaced
+    private static String listingEtag(List<LogFileEntry> logFiles) {
         try {
-            if (bucket.isEmpty() || env.isEmpty() || appName.isEmpty() || date.isEmpty() || query.isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing required parameters (bucket, env, appName, date, query)");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (LogFileEntry entry : logFiles) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                if (entry.getEtag() != null) {
+                    digest.update(entry.getEtag().getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) '\n');
             }
-            List<String> matchingFiles = logService.searchLogs(bucket, env, appName, date, query);
-            return ResponseEntity.ok(matchingFiles);
+            return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private List<LogScope> planScopes(List<String> buckets, String env, List<String> appNames, String fromDate, String toDate) {
+        try {
+            return federatedLogService.planScopes(buckets, env, appNames, fromDate, toDate);
         } catch (IllegalArgumentException e) {
-            logger.warn("Bad request for searching logs: {}", e.getMessage());
+            logger.warn("Bad request for federated query: {}", e.getMessage());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
-        } catch (Exception e) {
-            logger.error("Error searching logs for bucket={}, env={}, app={}, date={}, query={}: {}",
-                    bucket, env, appName, date, query, e.getMessage(), e);
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error searching logs");
         }
     }
-}
 
+    private void writeLines(OutputStream out, List<? extends ScopedResult<?>> results) throws IOException {
+        if (results.isEmpty()) {
+            return;
+        }
+        for (ScopedResult<?> result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    // The request pool and its queue are full; tell the client to back off rather than queueing without bound
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException e) {
+        logger.warn("Rejecting log request, request pool is saturated: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many concurrent log requests, please retry");
+    }
+}
@@ -0,0 +1,233 @@
+package log.dashboard.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.Abortable;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuardedS3ClientTest {
+
+    private static final String BUCKET = "logs";
+    private static final GetObjectRequest GET = GetObjectRequest.builder().bucket(BUCKET).key("app.log").build();
+    private static final PutObjectRequest PUT = PutObjectRequest.builder().bucket(BUCKET).key("app.log").build();
+    // Enough fast GETs for the latency quantile to be computed
+    private static final int WARM_UP_GETS = 128;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final StubS3Client delegate = new StubS3Client();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test void hedgeAnswersFirstAndThePrimaryIsAborted() throws Exception {
+        GuardedS3Client client = hedgingClient();
+        warmUp(client);
+        CountDownLatch primaryAborted = new CountDownLatch(1);
+        delegate.gets = call -> {
+            if (call == WARM_UP_GETS + 1) {
+                await(release);
+                return stream("primary", primaryAborted::countDown);
+            }
+            return stream("hedge", () -> { });
+        };
+
+        assertEquals("hedge", read(client.getObject(GET)));
+        release.countDown();
+        assertTrue(primaryAborted.await(5, TimeUnit.SECONDS));
+        S3ClientStats stats = awaitIdle(client);
+        assertEquals(1, stats.getHedgedRequests());
+        assertEquals(1, stats.getHedgeWins());
+    }
+
+    @Test void primaryAnswersFirstAndTheHedgeIsAborted() throws Exception {
+        GuardedS3Client client = hedgingClient();
+        warmUp(client);
+        CountDownLatch hedgeSent = new CountDownLatch(1);
+        CountDownLatch hedgeAborted = new CountDownLatch(1);
+        delegate.gets = call -> {
+            if (call == WARM_UP_GETS + 1) {
+                await(hedgeSent);
+                return stream("primary", () -> { });
+            }
+            hedgeSent.countDown();
+            await(release);
+            return stream("hedge", hedgeAborted::countDown);
+        };
+
+        assertEquals("primary", read(client.getObject(GET)));
+        release.countDown();
+        assertTrue(hedgeAborted.await(5, TimeUnit.SECONDS));
+        S3ClientStats stats = awaitIdle(client);
+        assertEquals(1, stats.getHedgedRequests());
+        assertEquals(0, stats.getHedgeWins());
+    }
+
+    @Test void noHedgeWithoutAFreeSlot() throws Exception {
+        DashboardProperties.S3 properties = hedgeProperties();
+        GuardedS3Client client = new GuardedS3Client(BUCKET, delegate, 1, properties, executor, new SimpleMeterRegistry());
+        warmUp(client);
+        delegate.gets = call -> {
+            sleep(50);
+            return stream("primary", () -> { });
+        };
+
+        assertEquals("primary", read(client.getObject(GET)));
+        assertEquals(0, awaitIdle(client).getHedgedRequests());
+        assertEquals(WARM_UP_GETS + 1, delegate.getCalls.get());
+    }
+
+    @Test void fullBulkheadRejectsAfterMaxWait() throws Exception {
+        DashboardProperties.S3 properties = new DashboardProperties.S3();
+        properties.setMaxWait(Duration.ofMillis(50));
+        GuardedS3Client client = new GuardedS3Client(BUCKET, delegate, 1, properties, executor, new SimpleMeterRegistry());
+        Future<?> blocked = holdTheOnlySlot(client);
+
+        // Whole-object reads take the same slots as streamed ones
+        long start = System.nanoTime();
+        assertThrows(SdkClientException.class, () -> client.getObjectAsBytes(GET));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, delegate.getCalls.get());
+        assertEquals(1, client.stats().getRejected());
+        assertEquals(1, client.stats().getInFlight());
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        assertEquals("body", client.getObjectAsBytes(GET).asUtf8String());
+        assertEquals(0, client.stats().getInFlight());
+    }
+
+    @Test void slotFreedWithinMaxWaitIsTaken() throws Exception {
+        DashboardProperties.S3 properties = new DashboardProperties.S3();
+        properties.setMaxWait(Duration.ofSeconds(5));
+        GuardedS3Client client = new GuardedS3Client(BUCKET, delegate, 1, properties, executor, new SimpleMeterRegistry());
+        Future<?> blocked = holdTheOnlySlot(client);
+
+        executor.execute(() -> {
+            sleep(50);
+            release.countDown();
+        });
+        assertEquals("body", read(client.getObject(GET)));
+        blocked.get(5, TimeUnit.SECONDS);
+        assertEquals(0, client.stats().getRejected());
+    }
+
+    private GuardedS3Client hedgingClient() {
+        return new GuardedS3Client(BUCKET, delegate, 4, hedgeProperties(), executor, new SimpleMeterRegistry());
+    }
+
+    private static DashboardProperties.S3 hedgeProperties() {
+        DashboardProperties.S3 properties = new DashboardProperties.S3();
+        properties.setHedgeEnabled(true);
+        properties.setHedgeMinDelay(Duration.ofMillis(10));
+        return properties;
+    }
+
+    private static void warmUp(GuardedS3Client client) throws IOException {
+        for (int i = 0; i < WARM_UP_GETS; i++) {
+            read(client.getObject(GET));
+        }
+        assertTrue(client.stats().getGetLatencyQuantileMillis() >= 0);
+    }
+
+    // A PUT, forwarded like every call the dashboard does not make itself, that holds its slot until release
+    private Future<?> holdTheOnlySlot(GuardedS3Client client) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        delegate.onPut = () -> {
+            started.countDown();
+            await(release);
+        };
+        Future<?> blocked = executor.submit(() -> client.putObject(PUT, RequestBody.fromString("line\n")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocked;
+    }
+
+    private static S3ClientStats awaitIdle(GuardedS3Client client) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (client.stats().getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, client.stats().getInFlight());
+        return client.stats();
+    }
+
+    private static String read(ResponseInputStream<GetObjectResponse> response) throws IOException {
+        try (response) {
+            return new String(response.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static ResponseInputStream<GetObjectResponse> stream(String body, Abortable abortable) {
+        return new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), abortable));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Answers GETs by their 1-based call number and PUTs after onPut
+    private static final class StubS3Client implements S3Client {
+        final AtomicInteger getCalls = new AtomicInteger();
+        volatile IntFunction<ResponseInputStream<GetObjectResponse>> gets = call -> stream("body", () -> { });
+        volatile Runnable onPut = () -> { };
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            return gets.apply(getCalls.incrementAndGet());
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+            onPut.run();
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package log.dashboard.index;
+
+import log.dashboard.config.DashboardProperties;
+import log.dashboard.config.S3ClientConfiguration;
+import log.dashboard.service.ListingCache;
+import log.dashboard.service.LogFileEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogIndexServiceTest {
+
+    private static final String BUCKET = "logs";
+    // Still receiving uploads, unlike a date long past
+    private static final String TODAY = LocalDate.now().toString();
+    private static final String PAST = "2024-05-01";
+
+    @TempDir
+    Path root;
+
+    private final Map<String, String> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+    private final DashboardProperties properties = new DashboardProperties();
+    private LogIndexService indexService;
+
+    @BeforeEach
+    void setUp() {
+        properties.getIndex().setEnabled(true);
+        properties.getIndex().setDirectory(root.toString());
+        properties.getIndex().setRefreshInterval(Duration.ofMillis(50));
+        S3ClientConfiguration s3ClientConfiguration = mock(S3ClientConfiguration.class);
+        when(s3ClientConfiguration.s3Clients()).thenReturn(Map.of(BUCKET, new InMemoryS3Client()));
+        indexService = new LogIndexService(s3ClientConfiguration, properties, new ListingCache(properties));
+        indexService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        indexService.stop();
+    }
+
+    @Test void firstSearchScansAndQueuesTheScope() {
+        upload(TODAY, 1, "INFO checkout_completed\n");
+        List<LogFileEntry> files = listing(TODAY);
+
+        IndexSearchResult first = search(TODAY, "checkout", files);
+        assertFalse(first.isCovered());
+        assertEquals(files, first.getFilesToScan());
+
+        await(() -> reads(TODAY, 1) == 1);
+        IndexSearchResult indexed = search(TODAY, "checkout", files);
+        assertTrue(indexed.isCovered());
+        assertEquals(Map.of(key(TODAY, 1), 0L), indexed.getMatches());
+        assertTrue(indexed.getFilesToScan().isEmpty());
+        // Listing the VM prefix afterwards does not fetch it a second time
+        awaitRefresh();
+        assertEquals(1, reads(TODAY, 1));
+    }
+
+    @Test void mutableScopeIndexesNewUploadsBeforeTheNextSearch() {
+        upload(TODAY, 1, "INFO started\n");
+        awaitCovered(TODAY, listing(TODAY));
+
+        // Never listed by a search
+        upload(TODAY, 10, "ERROR refund_failed\n");
+        await(() -> reads(TODAY, 10) == 1);
+        IndexSearchResult result = search(TODAY, "refund", listing(TODAY));
+        assertTrue(result.isCovered());
+        assertEquals(Map.of(key(TODAY, 10), 0L), result.getMatches());
+    }
+
+    @Test void rewrittenObjectIsIndexedAgain() {
+        upload(TODAY, 1, "INFO started\n");
+        awaitCovered(TODAY, listing(TODAY));
+
+        upload(TODAY, 1, "WARN restarted\n");
+        await(() -> reads(TODAY, 1) == 2);
+        assertEquals(Map.of(key(TODAY, 1), 0L), search(TODAY, "restart", listing(TODAY)).getMatches());
+    }
+
+    @Test void settledScopeIsNotRefreshed() {
+        upload(PAST, 1, "INFO started\n");
+        awaitCovered(PAST, listing(PAST));
+
+        upload(PAST, 2, "INFO late\n");
+        awaitRefresh();
+        assertEquals(0, reads(PAST, 2));
+        // Only a search that lists the new object brings it into the index
+        assertFalse(search(PAST, "late", listing(PAST)).isCovered());
+        await(() -> reads(PAST, 2) == 1);
+    }
+
+    @Test void disabledIndexCoversNothing() {
+        indexService.stop();
+        properties.getIndex().setEnabled(false);
+        LogIndexService disabled = new LogIndexService(mock(S3ClientConfiguration.class), properties, new ListingCache(properties));
+        disabled.start();
+
+        assertFalse(disabled.isEnabled());
+        upload(TODAY, 1, "INFO started\n");
+        assertFalse(disabled.search(BUCKET, "prod", "app", TODAY, "started", listing(TODAY)).isCovered());
+    }
+
+    private IndexSearchResult search(String date, String query, List<LogFileEntry> files) {
+        return indexService.search(BUCKET, "prod", "app", date, query, files);
+    }
+
+    private void awaitCovered(String date, List<LogFileEntry> files) {
+        await(() -> search(date, "anything", files).isCovered());
+    }
+
+    private void awaitRefresh() {
+        long deadline = System.nanoTime() + 5 * properties.getIndex().getRefreshInterval().toNanos();
+        await(() -> System.nanoTime() >= deadline);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+
+    private void upload(String date, int sequence, String content) {
+        objects.put(key(date, sequence), content);
+    }
+
+    private int reads(String date, int sequence) {
+        AtomicInteger count = reads.get(key(date, sequence));
+        return count == null ? 0 : count.get();
+    }
+
+    private List<LogFileEntry> listing(String date) {
+        String prefix = "prod/app/10.0.0.1/" + date + "/";
+        return objects.entrySet().stream()
+                .filter(object -> object.getKey().startsWith(prefix))
+                .map(object -> new LogFileEntry(object.getKey(), object.getKey().substring(prefix.length()), Instant.EPOCH,
+                        object.getValue().length(), 0, etag(object.getValue())))
+                .collect(Collectors.toList());
+    }
+
+    private static String key(String date, int sequence) {
+        return "prod/app/10.0.0.1/" + date + "/app-" + sequence + ".log";
+    }
+
+    private static String etag(String content) {
+        return "\"" + content.hashCode() + "\"";
+    }
+
+    // One bucket of small text objects, listed in a single page
+    private final class InMemoryS3Client implements S3Client {
+
+        @Override
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+            ListObjectsV2Response.Builder response = ListObjectsV2Response.builder().isTruncated(false);
+            List<String> matching = objects.keySet().stream()
+                    .filter(key -> key.startsWith(request.prefix()))
+                    .collect(Collectors.toList());
+            if (request.delimiter() != null) {
+                TreeSet<String> prefixes = new TreeSet<>();
+                for (String key : matching) {
+                    int end = key.indexOf(request.delimiter(), request.prefix().length());
+                    if (end >= 0) {
+                        prefixes.add(key.substring(0, end + 1));
+                    }
+                }
+                return response.commonPrefixes(prefixes.stream()
+                        .map(prefix -> CommonPrefix.builder().prefix(prefix).build())
+                        .collect(Collectors.toList())).build();
+            }
+            return response.contents(matching.stream()
+                    .map(key -> S3Object.builder()
+                            .key(key)
+                            .size((long) objects.get(key).length())
+                            .eTag(etag(objects.get(key)))
+                            .build())
+                    .collect(Collectors.toList())).build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            String content = objects.get(request.key());
+            byte[] body = content.getBytes(StandardCharsets.UTF_8);
+            GetObjectResponse response = GetObjectResponse.builder()
+                    .eTag(etag(content))
+                    .contentLength((long) body.length)
+                    .build();
+            // Counted on close, by which time the object has been taken into the index
+            AtomicInteger closes = reads.computeIfAbsent(request.key(), key -> new AtomicInteger());
+            return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(body) {
+                @Override
+                public void close() {
+                    closes.incrementAndGet();
+                }
+            }));
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
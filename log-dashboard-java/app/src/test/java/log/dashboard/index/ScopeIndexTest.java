@@ -0,0 +1,131 @@
+package log.dashboard.index;
+
+import log.dashboard.service.LogFileEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScopeIndexTest {
+
+    private static final String PREFIX = "prod/app/10.0.0.1/2024-05-01/";
+    private static final String FIRST_LINE = "INFO request started\n";
+    private static final String CONTENT = FIRST_LINE + "ERROR payment_timeout at gateway\n";
+
+    @TempDir
+    Path root;
+
+    private ScopeIndex scope;
+    private LogFileEntry entry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        scope = ScopeIndex.open(root, "logs", "prod", "app", "2024-05-01");
+        entry = index("app-1.log", "\"e1\"", CONTENT);
+    }
+
+    @Test void singleTermQueryMatchesAnyPartOfATerm() {
+        long secondLine = FIRST_LINE.length();
+        // A prefix, a suffix, and the middle of "payment_timeout"
+        assertEquals(Map.of(entry.getKey(), secondLine), search("payment").getMatches());
+        assertEquals(Map.of(entry.getKey(), secondLine), search("timeout").getMatches());
+        assertEquals(Map.of(entry.getKey(), secondLine), search("ment_time").getMatches());
+        assertEquals(Map.of(entry.getKey(), 0L), search("quest").getMatches());
+
+        IndexSearchResult absent = search("refund");
+        assertTrue(absent.isCovered());
+        assertTrue(absent.getMatches().isEmpty());
+        assertTrue(absent.getFilesToScan().isEmpty());
+    }
+
+    @Test void queryWithSeparatorsNarrowsButIsStillScanned() {
+        // "ERROR" must end a term and "pay" must start one
+        IndexSearchResult result = search("ERROR pay");
+        assertTrue(result.isCovered());
+        assertTrue(result.getMatches().isEmpty());
+        assertEquals(List.of(entry), result.getFilesToScan());
+
+        // No term ends with "payment", none starts with "timeout", and none equals "ment_time"
+        assertTrue(search("payment at").getFilesToScan().isEmpty());
+        assertTrue(search(" timeout").getFilesToScan().isEmpty());
+        assertTrue(search(".ment_time.").getFilesToScan().isEmpty());
+        assertEquals(List.of(entry), search(" payment_timeout ").getFilesToScan());
+    }
+
+    @Test void queryWithoutTermCharactersIsNotCovered() {
+        IndexSearchResult result = search(" -> ");
+        assertFalse(result.isCovered());
+        assertEquals(List.of(entry), result.getFilesToScan());
+    }
+
+    @Test void objectWithAnOverlongTermIsAlwaysScanned() throws IOException {
+        LogFileEntry lossy = index("app-2.log", "\"e2\"", "x".repeat(LogTokenizer.MAX_TERM_LENGTH + 1) + " ok\n");
+
+        IndexSearchResult result = scope.search("refund", List.of(entry, lossy));
+        assertTrue(result.isCovered());
+        assertTrue(result.getMatches().isEmpty());
+        assertEquals(List.of(lossy), result.getFilesToScan());
+    }
+
+    @Test void termsAcrossReadBuffersKeepTheirLineOffsets() throws IOException {
+        // The first term straddles the end of the tokenizer's read buffer
+        String firstLine = "x ".repeat(32_765) + "boundary_term\n";
+        String secondLine = "a ".repeat(40_000) + "second_line\n";
+        LogFileEntry large = index("app-2.log", "\"e2\"", firstLine + secondLine + "last\n");
+
+        assertEquals(Map.of(large.getKey(), 0L), scope.search("boundary_term", List.of(large)).getMatches());
+        assertEquals(Map.of(large.getKey(), (long) firstLine.length()), scope.search("second_line", List.of(large)).getMatches());
+        assertEquals(Map.of(large.getKey(), (long) (firstLine + secondLine).length()),
+                scope.search("last", List.of(large)).getMatches());
+    }
+
+    @Test void coverageFollowsTheEtagAndSurvivesAReopen() throws IOException {
+        assertTrue(scope.covers(entry.getKey(), "\"e1\"", 0));
+        assertFalse(scope.covers(entry.getKey(), "\"e2\"", CONTENT.length()));
+        assertFalse(scope.covers(PREFIX + "app-2.log", "\"e1\"", CONTENT.length()));
+
+        ScopeIndex reopened = ScopeIndex.open(root, "logs", "prod", "app", "2024-05-01");
+        assertEquals(List.of(), reopened.uncovered(List.of(entry)));
+        assertEquals(Map.of(entry.getKey(), (long) FIRST_LINE.length()), reopened.search("gateway", List.of(entry)).getMatches());
+        assertEquals("app", ScopeIndex.open(scope.getDirectory().resolve(ScopeIndex.SCOPE_FILE)).getAppName());
+    }
+
+    @Test void rewrittenObjectReplacesItsSegments() throws IOException {
+        long segments = segmentFiles();
+        LogFileEntry rewritten = index("app-1.log", "\"e2\"", "WARN retrying\n");
+
+        assertEquals(segments, segmentFiles());
+        assertTrue(scope.search("payment", List.of(rewritten)).getMatches().isEmpty());
+        assertEquals(Map.of(rewritten.getKey(), 0L), scope.search("retry", List.of(rewritten)).getMatches());
+        assertEquals(List.of(entry), scope.uncovered(List.of(entry)));
+    }
+
+    private IndexSearchResult search(String query) {
+        return scope.search(query, List.of(entry));
+    }
+
+    private LogFileEntry index(String fileName, String etag, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        scope.indexObject(PREFIX + fileName, etag, bytes.length, new ByteArrayInputStream(bytes), 1_000);
+        return new LogFileEntry(PREFIX + fileName, fileName, Instant.EPOCH, bytes.length, 1, etag);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(scope.getDirectory())) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> !name.equals(ScopeIndex.SCOPE_FILE) && !name.startsWith("manifest"))
+                    .count();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package log.dashboard.service;
+
+import log.dashboard.config.DashboardProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCacheTest {
+
+    private static final String BUCKET = "logs";
+    // Longer than the lease a handed-out object keeps after its last use
+    private static final long PAST_LEASE = TimeUnit.SECONDS.toNanos(61);
+
+    @TempDir
+    Path directory;
+
+    private long nanos;
+    private final Map<String, String> etags = new HashMap<>();
+    private final Map<String, String> contents = new HashMap<>();
+    private final S3Client s3Client = new S3Client() {
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            String etag = etags.get(request.key());
+            if (etag.equals(request.ifNoneMatch())) {
+                throw (S3Exception) S3Exception.builder().statusCode(304).build();
+            }
+            GetObjectResponse response = GetObjectResponse.builder().eTag(etag).lastModified(Instant.EPOCH).build();
+            byte[] body = contents.get(request.key()).getBytes(StandardCharsets.US_ASCII);
+            return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(body)));
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test void evictionSkipsEntriesBeingReadOrLeased() throws IOException {
+        ContentCache cache = cache(100);
+        CachedObject reading = get(cache, "a.log", "a", 30);
+        CachedObject leased = get(cache, "b.log", "b", 30);
+        get(cache, "c.log", "c", 30);
+        nanos += PAST_LEASE;
+
+        try (InputStream open = reading.openStream()) {
+            // Read and closed just now, so leased again without becoming the most recently looked up
+            leased.openStream().close();
+            get(cache, "d.log", "d", 30);
+
+            assertTrue(cache.contains(BUCKET, "a.log", "a"));
+            assertTrue(cache.contains(BUCKET, "b.log", "b"));
+            assertFalse(cache.contains(BUCKET, "c.log", "c"));
+            assertTrue(cache.contains(BUCKET, "d.log", "d"));
+            assertEquals(1, cache.stats().getEvictions());
+            assertEquals(30, open.readAllBytes().length);
+        }
+        assertEquals(3, cachedFiles());
+    }
+
+    @Test void pinnedEntriesMayLeaveTheCacheOverBudget() throws IOException {
+        ContentCache cache = cache(50);
+        get(cache, "a.log", "a", 30);
+        get(cache, "b.log", "b", 30);
+
+        assertTrue(cache.contains(BUCKET, "a.log", "a"));
+        assertEquals(60, cache.stats().getSizeBytes());
+        assertEquals(0, cache.stats().getEvictions());
+    }
+
+    @Test void replacedEntryIsDeletedOnlyAfterItsLastRelease() throws IOException {
+        ContentCache cache = cache(1_000);
+        CachedObject first = get(cache, "a.log", "1", 10);
+        InputStream stream1 = first.openStream();
+        InputStream stream2 = first.openStream();
+        nanos += PAST_LEASE;
+
+        etags.put("a.log", "2");
+        contents.put("a.log", "y".repeat(20));
+        CachedObject second = cache.get(s3Client, BUCKET, "a.log", null);
+        assertEquals("2", second.getEtag());
+        assertEquals(2, cachedFiles());
+
+        stream1.close();
+        nanos += PAST_LEASE;
+        stream2.close();
+        // The last release leases it once more
+        second.openStream().close();
+        assertEquals(2, cachedFiles());
+
+        nanos += PAST_LEASE;
+        second.openStream().close();
+        assertEquals(1, cachedFiles());
+        assertThrows(IOException.class, first::openStream);
+        try (InputStream current = second.openStream()) {
+            assertEquals(20, current.readAllBytes().length);
+        }
+    }
+
+    @Test void objectOverTheBudgetIsClaimedOnceAndDeletedOnClose() throws IOException {
+        ContentCache cache = cache(10);
+        CachedObject object = get(cache, "big.log", "big", 40);
+        assertFalse(cache.contains(BUCKET, "big.log", "big"));
+
+        InputStream stream = object.tryOpenStream();
+        assertNotNull(stream);
+        assertNull(object.tryOpenStream());
+        assertEquals(1, downloads());
+        assertEquals(40, stream.readAllBytes().length);
+        stream.close();
+        assertEquals(0, downloads());
+    }
+
+    @Test void unclaimedObjectOverTheBudgetIsDeletedOnRelease() throws IOException {
+        ContentCache cache = cache(10);
+        CachedObject object = get(cache, "big.log", "big", 40);
+        assertEquals(1, downloads());
+
+        object.release();
+        assertEquals(0, downloads());
+        assertNull(object.tryOpenStream());
+
+        // Releasing a claimed object leaves its file to the stream that claimed it
+        CachedObject claimed = get(cache, "big.log", "big", 40);
+        InputStream stream = claimed.tryOpenStream();
+        claimed.release();
+        assertEquals(40, stream.readAllBytes().length);
+        stream.close();
+        assertEquals(0, downloads());
+    }
+
+    @Test void readAtTheEndOfTheObject() throws IOException {
+        etags.put("a.log", "a");
+        contents.put("a.log", "0123456789");
+        CachedObject object = cacheGet(cache(1_000), "a.log", "a");
+        byte[] buffer = new byte[4];
+
+        assertEquals(4, object.read(0, buffer, 4));
+        assertEquals(2, object.read(8, buffer, 4));
+        assertEquals("89", new String(buffer, 0, 2, StandardCharsets.US_ASCII));
+        assertEquals(0, object.read(10, buffer, 4));
+        assertEquals(0, object.read(100, buffer, 4));
+    }
+
+    private ContentCache cache(long maxBytes) {
+        DashboardProperties properties = new DashboardProperties();
+        properties.getContentCache().setDirectory(directory.toString());
+        properties.getContentCache().setMaxSize(DataSize.ofBytes(maxBytes));
+        ContentCache cache = new ContentCache(properties, () -> nanos);
+        cache.start();
+        assertTrue(cache.isEnabled());
+        return cache;
+    }
+
+    private CachedObject get(ContentCache cache, String key, String etag, int size) throws IOException {
+        etags.put(key, etag);
+        contents.put(key, "x".repeat(size));
+        return cacheGet(cache, key, etag);
+    }
+
+    private CachedObject cacheGet(ContentCache cache, String key, String etag) throws IOException {
+        CachedObject object = cache.get(s3Client, BUCKET, key, null);
+        assertEquals(etag, object.getEtag());
+        return object;
+    }
+
+    private long cachedFiles() throws IOException {
+        return countFiles(".log");
+    }
+
+    private long downloads() throws IOException {
+        return countFiles(".tmp");
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(suffix)).count();
+        }
+    }
+}
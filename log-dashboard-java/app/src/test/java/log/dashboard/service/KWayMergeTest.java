@@ -0,0 +1,71 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KWayMergeTest {
+
+    @Test void mergesSortedListsInOrder() {
+        List<List<Integer>> lists = List.of(List.of(1, 4, 9), List.of(2, 3, 10), List.of(5, 6, 7, 8));
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), KWayMerge.merge(lists, Comparator.naturalOrder()));
+    }
+
+    @Test void handlesEmptySources() {
+        assertEquals(List.of(), KWayMerge.merge(List.of(), Comparator.<Integer>naturalOrder()));
+        assertEquals(List.of(1, 2), KWayMerge.merge(List.of(List.of(), List.of(1, 2), List.of()), Comparator.naturalOrder()));
+    }
+
+    @Test void tiesKeepSourceOrder() {
+        // Equal keys come out in the order of their sources, and in list order within a source
+        List<List<String>> lists = List.of(List.of("b1", "c1"), List.of("a2", "b2"), List.of("b3"));
+        Comparator<String> byLetter = Comparator.comparing(value -> value.charAt(0));
+        assertEquals(List.of("a2", "b1", "b2", "b3", "c1"), KWayMerge.merge(lists, byLetter));
+
+        List<List<String>> sameSource = List.of(List.of("a1", "a2", "a3"), List.of("a4"));
+        assertEquals(List.of("a1", "a2", "a3", "a4"), KWayMerge.merge(sameSource, byLetter));
+    }
+
+    @Test void iteratorsAreReadLazily() {
+        List<Integer> pulled = new ArrayList<>();
+        List<Iterator<Integer>> sources = List.of(recording(List.of(1, 3, 5), pulled), recording(List.of(2, 4, 6), pulled));
+        Iterator<Integer> merged = KWayMerge.mergeIterators(sources, Comparator.naturalOrder());
+
+        // One head per source before the first element is taken
+        assertEquals(List.of(1, 2), pulled);
+        assertEquals(1, merged.next());
+        assertEquals(List.of(1, 2, 3), pulled);
+        assertEquals(2, merged.next());
+        assertEquals(List.of(1, 2, 3, 4), pulled);
+    }
+
+    @Test void exhaustedIteratorThrows() {
+        Iterator<Integer> merged = KWayMerge.mergeIterators(List.of(List.of(1).iterator()), Comparator.naturalOrder());
+        assertEquals(1, merged.next());
+        assertFalse(merged.hasNext());
+        assertThrows(NoSuchElementException.class, merged::next);
+    }
+
+    private static Iterator<Integer> recording(List<Integer> values, List<Integer> pulled) {
+        Iterator<Integer> delegate = values.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                Integer value = delegate.next();
+                pulled.add(value);
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package log.dashboard.service;
+
+import log.dashboard.config.DashboardProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingCacheTest {
+
+    private static final String TODAY = "2024-05-01";
+    private static final String PAST = "2024-04-20";
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-05-01T12:00:00Z"));
+    private final DashboardProperties properties = new DashboardProperties();
+    private final ListingCache cache = new ListingCache(properties, clock);
+    private final List<ScopeListing> handedToLoader = new ArrayList<>();
+
+    @Test void todayListingIsRefreshedFromTheExpiredOne() {
+        properties.getListing().setTodayTtl(Duration.ofSeconds(30));
+        ScopeListing first = get(TODAY);
+
+        clock.advance(Duration.ofSeconds(29));
+        assertSame(first, get(TODAY));
+        clock.advance(Duration.ofSeconds(1));
+        ScopeListing second = get(TODAY);
+
+        assertNotSame(first, second);
+        assertEquals(2, handedToLoader.size());
+        assertNull(handedToLoader.get(0));
+        assertSame(first, handedToLoader.get(1));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(2, cache.stats().getMisses());
+    }
+
+    @Test void pastListingIsKeptForTheImmutableTtl() {
+        properties.getListing().setTodayTtl(Duration.ofSeconds(30));
+        properties.getListing().setImmutableTtl(Duration.ofHours(24));
+        ScopeListing listing = get(PAST);
+
+        clock.advance(Duration.ofHours(23));
+        assertSame(listing, get(PAST));
+        clock.advance(Duration.ofHours(1));
+        assertNotSame(listing, get(PAST));
+    }
+
+    @Test void dateSettlesOnlyAfterTheGraceFollowingItsEnd() {
+        properties.getListing().setImmutableAfter(Duration.ofHours(2));
+        assertFalse(cache.isImmutable(TODAY));
+
+        clock.set(Instant.parse("2024-05-02T01:59:59Z"));
+        assertFalse(cache.isImmutable(TODAY));
+        clock.set(Instant.parse("2024-05-02T02:00:00Z"));
+        assertTrue(cache.isImmutable(TODAY));
+        // Unknown formats are never trusted for long
+        assertFalse(cache.isImmutable("01-05-2024"));
+    }
+
+    @Test void listingLoadedJustBeforeMidnightUsesTodayTtl() {
+        properties.getListing().setTodayTtl(Duration.ofSeconds(30));
+        properties.getListing().setImmutableTtl(Duration.ofHours(24));
+        clock.set(Instant.parse("2024-05-02T00:30:00Z"));
+        // The date has ended, but its last uploads may still arrive
+        ScopeListing listing = get(TODAY);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertNotSame(listing, get(TODAY));
+    }
+
+    @Test void failedLoadCachesNothing() {
+        properties.getListing().setTodayTtl(Duration.ofSeconds(30));
+        ScopeListing first = get(TODAY);
+        clock.advance(Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> cache.get("logs", "prod", "app", TODAY, previous -> {
+            throw new IllegalStateException("S3 unavailable");
+        }));
+        assertNull(cache.peek("logs", "prod", "app", TODAY));
+        get(TODAY);
+        // The next load still gets the listing that expired before the failure
+        assertSame(first, handedToLoader.get(1));
+    }
+
+    @Test void peekReturnsOnlyFreshListingsWithoutCounting() {
+        properties.getListing().setTodayTtl(Duration.ofSeconds(30));
+        assertNull(cache.peek("logs", "prod", "app", TODAY));
+        ScopeListing listing = get(TODAY);
+
+        assertSame(listing, cache.peek("logs", "prod", "app", TODAY));
+        clock.advance(Duration.ofSeconds(30));
+        assertNull(cache.peek("logs", "prod", "app", TODAY));
+        assertEquals(0, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test void leastRecentlyViewedScopeIsEvicted() {
+        properties.getListing().setMaxEntries(2);
+        ScopeListing first = get("2024-04-01");
+        get("2024-04-02");
+        // Viewing the first scope again makes the second the least recently used
+        assertSame(first, get("2024-04-01"));
+        get("2024-04-03");
+
+        assertEquals(2, cache.stats().getEntries());
+        assertEquals(1, cache.stats().getEvictions());
+        assertNotNull(cache.peek("logs", "prod", "app", "2024-04-01"));
+        assertNull(cache.peek("logs", "prod", "app", "2024-04-02"));
+    }
+
+    @Test void incrementalRefreshUntilTheFullRefreshInterval() {
+        properties.getListing().setFullRefreshInterval(Duration.ofMinutes(5));
+        Instant loadedAt = clock.instant();
+
+        assertTrue(cache.allowsIncrementalRefresh(TODAY, loadedAt));
+        assertFalse(cache.allowsIncrementalRefresh(PAST, loadedAt));
+        clock.advance(Duration.ofMinutes(5));
+        assertFalse(cache.allowsIncrementalRefresh(TODAY, loadedAt));
+    }
+
+    private ScopeListing get(String date) {
+        return cache.get("logs", "prod", "app", date, previous -> {
+            handedToLoader.add(previous);
+            return new ScopeListing(Map.of(), List.of(), clock.instant());
+        });
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
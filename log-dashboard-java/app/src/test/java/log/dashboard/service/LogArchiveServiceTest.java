@@ -0,0 +1,261 @@
+package log.dashboard.service;
+
+import log.dashboard.config.DashboardProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LogArchiveServiceTest {
+
+    private static final String BUCKET = "logs";
+    private static final int KIB = 1024;
+    private static final int MIB = 1024 * KIB;
+    // The archive's read-ahead chunk
+    private static final int CHUNK = 256 * KIB;
+
+    private final LogService logService = mock(LogService.class);
+    private final DashboardProperties properties = new DashboardProperties();
+    private final List<LogFileEntry> files = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private LogArchiveService archiveService;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (archiveService != null) {
+            archiveService.stop();
+        }
+    }
+
+    @Test void entriesFollowTheListingWhenFetchesCompleteOutOfOrder() throws Exception {
+        properties.getArchive().setReadAheadFiles(3);
+        LogFileEntry first = addFile("10.0.0.1", "app-1.log", 5);
+        LogFileEntry second = addFile("10.0.0.2", "app-1.log", 6);
+        LogFileEntry third = addFile("10.0.0.1", "app-2.log", 5);
+        CountDownLatch thirdFetched = new CountDownLatch(1);
+        // The first object only arrives once the last one has been fetched completely
+        when(logService.openLogRange(eq(BUCKET), eq(first), anyLong())).thenAnswer(invocation -> {
+            assertTrue(thirdFetched.await(5, TimeUnit.SECONDS));
+            return text("first");
+        });
+        when(logService.openLogRange(eq(BUCKET), eq(second), anyLong())).thenReturn(text("second"));
+        when(logService.openLogRange(eq(BUCKET), eq(third), anyLong())).thenAnswer(invocation -> {
+            thirdFetched.countDown();
+            return text("third");
+        });
+
+        Map<String, String> entries = unzip(zip());
+        assertEquals(List.of("10.0.0.1/app-1.log", "10.0.0.2/app-1.log", "10.0.0.1/app-2.log"), List.copyOf(entries.keySet()));
+        assertEquals(List.of("first", "second", "third"), List.copyOf(entries.values()));
+    }
+
+    @Test void readAheadStaysWithinItsBuffers() throws Exception {
+        properties.getArchive().setReadAheadFiles(2);
+        properties.getArchive().setReadAheadBuffer(DataSize.ofBytes(2 * CHUNK));
+        List<Source> sources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Source source = new Source(8 * MIB, -1);
+            sources.add(source);
+            when(logService.openLogRange(eq(BUCKET), eq(addFile("10.0.0.1", "app-" + i + ".log", 8 * MIB)), anyLong()))
+                    .thenReturn(source);
+        }
+        CountDownLatch release = new CountDownLatch(1);
+        BlockedOutputStream out = new BlockedOutputStream(release);
+        Future<?> archive = executor.submit(() -> {
+            archiveService().writeZip(BUCKET, files, out);
+            return null;
+        });
+
+        // The response is stuck, yet the second object is read ahead while the first one waits
+        awaitAtLeast(sources.get(1).read, CHUNK);
+        Thread.sleep(200);
+        // Per open object: the queued chunks, the end marker's slot, and one chunk in each thread's hands
+        long bound = 2L * (2 + 1 + 2) * CHUNK;
+        assertTrue(sources.get(0).read.get() + sources.get(1).read.get() <= bound,
+                "read ahead " + (sources.get(0).read.get() + sources.get(1).read.get()));
+        assertEquals(0, sources.get(2).read.get());
+
+        release.countDown();
+        archive.get(30, TimeUnit.SECONDS);
+        for (Source source : sources) {
+            assertEquals(8 * MIB, source.read.get());
+            assertTrue(source.closed);
+        }
+    }
+
+    @Test void failureInTheMiddleOfAnObjectAbortsTheArchive() throws Exception {
+        properties.getArchive().setReadAheadFiles(3);
+        properties.getArchive().setReadAheadBuffer(DataSize.ofBytes(2 * CHUNK));
+        Source first = new Source(KIB, -1);
+        Source failing = new Source(4 * MIB, 300 * KIB);
+        Source large = new Source(64 * MIB, -1);
+        when(logService.openLogRange(eq(BUCKET), eq(addFile("10.0.0.1", "app-1.log", KIB)), anyLong())).thenReturn(first);
+        when(logService.openLogRange(eq(BUCKET), eq(addFile("10.0.0.1", "app-2.log", 4 * MIB)), anyLong())).thenReturn(failing);
+        when(logService.openLogRange(eq(BUCKET), eq(addFile("10.0.0.1", "app-3.log", 64 * MIB)), anyLong())).thenReturn(large);
+
+        IOException failure = assertThrows(IOException.class, this::zip);
+        assertEquals("connection reset", failure.getMessage());
+        // The object still being read ahead is given up rather than fetched to the end
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!large.closed && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(large.closed);
+        assertTrue(large.read.get() < 64 * MIB);
+        assertTrue(failing.closed);
+    }
+
+    @Test void objectThatCannotBeOpenedBecomesAnErrorEntry() throws Exception {
+        LogFileEntry missing = addFile("10.0.0.1", "app-1.log", 5);
+        LogFileEntry present = addFile("10.0.0.1", "app-2.log", 5);
+        when(logService.openLogRange(eq(BUCKET), eq(missing), anyLong())).thenThrow(new IOException("access denied"));
+        when(logService.openLogRange(eq(BUCKET), eq(present), anyLong())).thenReturn(text("there"));
+        addFile("10.0.0.1", "app-3.log", 0);
+
+        Map<String, String> entries = unzip(zip());
+        assertEquals(List.of("10.0.0.1/app-1.log.error", "10.0.0.1/app-2.log", "10.0.0.1/app-3.log"), List.copyOf(entries.keySet()));
+        assertTrue(entries.get("10.0.0.1/app-1.log.error").contains("access denied"));
+        assertEquals("there", entries.get("10.0.0.1/app-2.log"));
+        // Empty objects are not fetched at all
+        assertEquals("", entries.get("10.0.0.1/app-3.log"));
+    }
+
+    private LogArchiveService archiveService() {
+        if (archiveService == null) {
+            archiveService = new LogArchiveService(logService, properties);
+        }
+        return archiveService;
+    }
+
+    private byte[] zip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService().writeZip(BUCKET, files, out);
+        return out.toByteArray();
+    }
+
+    private LogFileEntry addFile(String vmIp, String fileName, long size) {
+        LogFileEntry entry = new LogFileEntry("prod/app/" + vmIp + "/2024-05-01/" + fileName, fileName,
+                Instant.EPOCH, size, files.size(), "etag-" + files.size());
+        files.add(entry);
+        return entry;
+    }
+
+    private static InputStream text(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static void awaitAtLeast(AtomicLong value, long minimum) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (value.get() < minimum && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(value.get() >= minimum, "reached " + value.get());
+    }
+
+    // size bytes of generated content that fail with "connection reset" after failAfter bytes, unless negative
+    private static final class Source extends InputStream {
+        private final long size;
+        private final long failAfter;
+        final AtomicLong read = new AtomicLong();
+        volatile boolean closed;
+
+        Source(long size, long failAfter) {
+            this.size = size;
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("closed");
+            }
+            long position = read.get();
+            if (failAfter >= 0 && position >= failAfter) {
+                throw new IOException("connection reset");
+            }
+            long limit = failAfter >= 0 ? Math.min(size, failAfter) : size;
+            if (position >= limit) {
+                return -1;
+            }
+            int count = (int) Math.min(length, limit - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) ('a' + (position + i) % 26);
+            }
+            read.addAndGet(count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    // Discards what is written, but blocks the first write until released
+    private static final class BlockedOutputStream extends OutputStream {
+        private final CountDownLatch release;
+
+        BlockedOutputStream(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            try {
+                if (!release.await(30, TimeUnit.SECONDS)) {
+                    throw new IOException("never released");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineParserTest {
+
+    private final LogLineParser parser = new LogLineParser("%d %-5p [%t] %c - %m");
+    private final LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+
+    @Test void parsesLayoutFields() {
+        String line = "2024-05-01 10:00:00.123 WARN  [main] com.example.App - disk almost full";
+        assertTrue(parse(line));
+        assertEquals(millis(10, 0, 0) + 123, parsed.timestamp);
+        assertEquals(LogLevel.WARN, parsed.level);
+        assertEquals("main", field(line, parsed.threadStart, parsed.threadEnd));
+        assertEquals("com.example.App", field(line, parsed.loggerStart, parsed.loggerEnd));
+        assertEquals("disk almost full", line.substring(parsed.messageStart));
+    }
+
+    @Test void parsesFractionsOfAnyLength() {
+        assertTrue(parse("2024-05-01 10:00:00,5 INFO [main] c - m"));
+        assertEquals(millis(10, 0, 0) + 500, parsed.timestamp);
+        assertTrue(parse("2024-05-01T10:00:00.12 INFO [main] c - m"));
+        assertEquals(millis(10, 0, 0) + 120, parsed.timestamp);
+        assertTrue(parse("2024-05-01 10:00:00 INFO [main] c - m"));
+        assertEquals(millis(10, 0, 0), parsed.timestamp);
+    }
+
+    @Test void continuationLinesHaveNoTimestamp() {
+        assertFalse(parse("\tat com.example.App.run(App.java:42)"));
+        assertFalse(parse("Caused by: java.io.IOException: closed"));
+        assertFalse(parse(""));
+        assertEquals(TimestampParser.NO_TIMESTAMP, parsed.timestamp);
+    }
+
+    @Test void invalidDatesAndTimesAreNotTimestamps() {
+        assertFalse(parse("2024-02-30 10:00:00 INFO [main] c - m"));
+        assertFalse(parse("2024-05-01 24:00:00 INFO [main] c - m"));
+        assertFalse(parse("2024-13-01 10:00:00 INFO [main] c - m"));
+        assertFalse(parse("2024-05-01 10:00:60 INFO [main] c - m"));
+    }
+
+    @Test void linesOutsideTheLayoutFallBackToLeadingTimestamp() {
+        assertTrue(parse("[2024-05-01T10:00:00] ERROR request failed"));
+        assertEquals(millis(10, 0, 0), parsed.timestamp);
+        assertEquals(LogLevel.ERROR, parsed.level);
+        assertEquals(-1, parsed.threadStart);
+        assertEquals(-1, parsed.loggerStart);
+
+        // Only whole words count as levels
+        assertTrue(parse("2024-05-01 10:00:00 INFORMATION only"));
+        assertNull(parsed.level);
+    }
+
+    @Test void parsesOnlyTheGivenRange() {
+        byte[] buffer = "xx2024-05-01 10:00:00 INFO [main] c - m\nnext".getBytes(StandardCharsets.US_ASCII);
+        int end = indexOf(buffer, '\n');
+        assertTrue(parser.parse(buffer, 2, end, parsed));
+        assertEquals(millis(10, 0, 0), parsed.timestamp);
+        assertEquals("m", field(new String(buffer, StandardCharsets.US_ASCII), parsed.messageStart, end));
+
+        // A range that cuts the timestamp short is not a timestamp
+        assertFalse(parser.parse(buffer, 2, 2 + 18, parsed));
+        assertFalse(parser.parse(buffer, 2, 2, parsed));
+    }
+
+    @Test void rejectsUnsupportedLayouts() {
+        assertThrows(IllegalArgumentException.class, () -> new LogLineParser("%d %x %m"));
+        assertThrows(IllegalArgumentException.class, () -> new LogLineParser("no conversions"));
+        assertThrows(IllegalArgumentException.class, () -> new LogLineParser("%d %-5"));
+    }
+
+    private boolean parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parser.parse(bytes, 0, bytes.length, parsed);
+    }
+
+    private static String field(String line, int start, int end) {
+        return line.substring(start, end);
+    }
+
+    private static int indexOf(byte[] buffer, char c) {
+        for (int i = 0; i < buffer.length; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long millis(int hour, int minute, int second) {
+        return TimestampParser.toMillis(LocalDateTime.of(2024, 5, 1, hour, minute, second));
+    }
+}
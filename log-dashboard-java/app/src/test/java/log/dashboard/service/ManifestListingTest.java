@@ -0,0 +1,187 @@
+package log.dashboard.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import log.dashboard.config.DashboardProperties;
+import log.dashboard.config.S3ClientConfiguration;
+import log.dashboard.config.VaultS3Properties;
+import log.dashboard.index.LogIndexService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ManifestListingTest {
+
+    private static final String BUCKET = "logs";
+    // Today, so listings are refreshed rather than trusted as immutable
+    private static final String DATE = LocalDate.now().toString();
+    private static final String VM_PREFIX = "prod/app/10.0.0.1/" + DATE + "/";
+    private static final String MANIFEST_KEY = "prod/app/10.0.0.1/" + DATE + ".manifest.json";
+
+    private final Map<String, String> objects = new ConcurrentSkipListMap<>();
+    private final AtomicInteger dateListings = new AtomicInteger();
+    private final AtomicInteger manifestReads = new AtomicInteger();
+    private final DashboardProperties properties = new DashboardProperties();
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        // Every call refreshes the listing; whether from manifests or LIST depends on the full-refresh interval
+        properties.getListing().setTodayTtl(Duration.ZERO);
+        properties.getListing().setFullRefreshInterval(Duration.ofHours(1));
+        S3ClientConfiguration s3ClientConfiguration = mock(S3ClientConfiguration.class);
+        when(s3ClientConfiguration.s3Clients()).thenReturn(Map.of(BUCKET, new InMemoryS3Client()));
+        logService = new LogService(s3ClientConfiguration, new VaultS3Properties(), properties, mock(LogIndexService.class),
+                new ListingCache(properties), new ContentCache(properties), mock(ContentPrefetcher.class),
+                new SearchCache(properties), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        logService.shutdown();
+    }
+
+    @Test void refreshReadsTheManifestUntilTheNextFullListing() {
+        upload(1);
+        assertEquals(List.of(1), sequences());
+        assertEquals(1, dateListings.get());
+
+        // The manifest update for 3 failed, so it is missing from an otherwise current manifest
+        upload(2);
+        upload(3);
+        writeManifest(1, 2);
+        assertEquals(List.of(1, 2), sequences());
+        assertEquals(1, dateListings.get());
+        assertEquals(1, manifestReads.get());
+
+        properties.getListing().setFullRefreshInterval(Duration.ZERO);
+        assertEquals(List.of(1, 2, 3), sequences());
+        assertEquals(2, dateListings.get());
+    }
+
+    @Test void unreadableManifestFallsBackToList() {
+        upload(1);
+        sequences();
+        upload(2);
+        objects.put(MANIFEST_KEY, "{\"files\":[{\"key\":");
+
+        assertEquals(List.of(1, 2), sequences());
+        assertEquals(2, dateListings.get());
+        assertEquals(1, manifestReads.get());
+    }
+
+    @Test void missingManifestFallsBackToList() {
+        upload(1);
+        sequences();
+        upload(2);
+
+        assertEquals(List.of(1, 2), sequences());
+        assertEquals(2, dateListings.get());
+    }
+
+    private List<Integer> sequences() {
+        return logService.loadLogFiles(BUCKET, "prod", "app", DATE).stream()
+                .map(LogFileEntry::getSequence)
+                .collect(Collectors.toList());
+    }
+
+    private void upload(int sequence) {
+        objects.put(VM_PREFIX + fileName(sequence), "line " + sequence + "\n");
+    }
+
+    private void writeManifest(int... sequences) {
+        StringBuilder files = new StringBuilder();
+        for (int sequence : sequences) {
+            String key = VM_PREFIX + fileName(sequence);
+            files.append(files.length() == 0 ? "" : ",")
+                    .append("{\"key\":\"").append(key).append("\",\"size\":").append(objects.get(key).length())
+                    .append(",\"sequence\":").append(sequence)
+                    .append(",\"etag\":\"e").append(sequence).append("\",\"lastModified\":\"2024-05-01T10:00:00Z\"}");
+        }
+        objects.put(MANIFEST_KEY, "{\"version\":1,\"files\":[" + files + "]}");
+    }
+
+    private static String fileName(int sequence) {
+        return "app-" + DATE + "-" + sequence + ".log";
+    }
+
+    // One bucket of small text objects, listed in a single page
+    private final class InMemoryS3Client implements S3Client {
+
+        @Override
+        public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+            ListObjectsV2Response.Builder response = ListObjectsV2Response.builder().isTruncated(false);
+            Map<String, String> matching = new TreeMap<>(objects).tailMap(request.prefix());
+            if (request.delimiter() != null) {
+                TreeSet<String> prefixes = new TreeSet<>();
+                for (String key : matching.keySet()) {
+                    int end = key.indexOf(request.delimiter(), request.prefix().length());
+                    if (key.startsWith(request.prefix()) && end >= 0) {
+                        prefixes.add(key.substring(0, end + 1));
+                    }
+                }
+                return response.commonPrefixes(prefixes.stream()
+                        .map(prefix -> CommonPrefix.builder().prefix(prefix).build())
+                        .collect(Collectors.toList())).build();
+            }
+            dateListings.incrementAndGet();
+            return response.contents(matching.entrySet().stream()
+                    .filter(object -> object.getKey().startsWith(request.prefix()))
+                    .map(object -> S3Object.builder()
+                            .key(object.getKey())
+                            .size((long) object.getValue().length())
+                            .eTag("\"" + object.getValue().hashCode() + "\"")
+                            .lastModified(Instant.EPOCH)
+                            .build())
+                    .collect(Collectors.toList())).build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            String content = objects.get(request.key());
+            if (content == null) {
+                throw (S3Exception) S3Exception.builder().statusCode(404).message("NoSuchKey").build();
+            }
+            if (request.key().equals(MANIFEST_KEY)) {
+                manifestReads.incrementAndGet();
+            }
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(
+                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))));
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
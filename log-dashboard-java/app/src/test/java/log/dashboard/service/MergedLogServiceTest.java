@@ -0,0 +1,170 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MergedLogServiceTest {
+
+    private static final String BUCKET = "logs";
+    private static final String DATE = "2024-05-01";
+
+    private final LogService logService = mock(LogService.class);
+    private final MergedLogService mergedLogService = new MergedLogService(logService);
+    private final List<LogFileEntry> files = new ArrayList<>();
+    private final Map<String, String> contents = new HashMap<>();
+    private LogLineParser parser = new LogLineParser("%d %p [%t] %c - %m");
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(logService.listLogFiles(BUCKET, "prod", "app", DATE)).thenReturn(files);
+        when(logService.parserFor("app")).thenAnswer(invocation -> parser);
+        when(logService.openLogStream(eq(BUCKET), any())).thenAnswer(invocation ->
+                stream(invocation.<LogFileEntry>getArgument(1), 0));
+        when(logService.openLogRange(eq(BUCKET), any(), anyLong())).thenAnswer(invocation ->
+                stream(invocation.<LogFileEntry>getArgument(1), invocation.<Long>getArgument(2)));
+        when(logService.firstTimestamp(eq(BUCKET), any())).thenAnswer(invocation ->
+                TimestampParser.parseLeading(contents.get(invocation.<LogFileEntry>getArgument(1).getKey())));
+        when(logService.seekTime(eq(BUCKET), any(), anyLong())).thenReturn(0L);
+    }
+
+    @Test void cursorContinuesWithinEqualTimestamps() throws IOException {
+        addFile("10.0.0.1", "app.log",
+                "2024-05-01 10:00:00.000 A1\n2024-05-01 10:00:00.000 A2\n2024-05-01 10:00:01.000 A3\n");
+        addFile("10.0.0.2", "app.log",
+                "2024-05-01 10:00:00.000 B1\n  at continuation\n2024-05-01 10:00:01.000 B2\n");
+
+        MergedPage first = read(null, null, null, 2);
+        assertEquals(List.of("A1", "A2"), texts(first));
+        assertEquals(millis(10, 0, 0) + ":2", first.getNextCursor());
+
+        MergedPage second = read(null, null, first.getNextCursor(), 2);
+        assertEquals(List.of("B1\n  at continuation", "A3"), texts(second));
+        assertEquals(millis(10, 0, 1) + ":1", second.getNextCursor());
+
+        MergedPage third = read(null, null, second.getNextCursor(), 2);
+        assertEquals(List.of("B2"), texts(third));
+        assertNull(third.getNextCursor());
+    }
+
+    @Test void singleRecordPagesReturnEveryRecordOnce() throws IOException {
+        addFile("10.0.0.1", "app.log",
+                "2024-05-01 10:00:00.000 A1\n2024-05-01 10:00:00.000 A2\n2024-05-01 10:00:00.000 A3\n");
+        addFile("10.0.0.2", "app.log",
+                "2024-05-01 10:00:00.000 B1\n2024-05-01 10:00:00.000 B2\n2024-05-01 10:00:02.000 B3\n");
+
+        List<String> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            MergedPage page = read(null, null, cursor, 1);
+            all.addAll(texts(page));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("A1", "A2", "A3", "B1", "B2", "B3"), all);
+    }
+
+    @Test void windowIsStartInclusiveAndEndExclusive() throws IOException {
+        addFile("10.0.0.1", "app.log",
+                "2024-05-01 09:59:59.999 early\n2024-05-01 10:00:00.000 start\n2024-05-01 10:00:05.000 end\n");
+
+        MergedPage page = read("10:00", "10:00:05", null, 10);
+        assertEquals(List.of("start"), texts(page));
+        assertNull(page.getNextCursor());
+        assertEquals("2024-05-01T10:00", page.getLines().get(0).getTimestamp());
+        assertEquals("10.0.0.1", page.getLines().get(0).getVmIp());
+    }
+
+    @Test void startSkipsFilesThatEndBeforeIt() throws IOException {
+        LogFileEntry morning = addFile("10.0.0.1", "app.log", "2024-05-01 08:00:00.000 morning\n");
+        LogFileEntry noon = addFile("10.0.0.1", "app.log.1",
+                "2024-05-01 12:00:00.000 noon\n2024-05-01 12:30:00.000 later\n");
+        LogFileEntry evening = addFile("10.0.0.1", "app.log.2", "2024-05-01 18:00:00.000 evening\n");
+
+        assertEquals(List.of("later", "evening"), texts(read("12:15", null, null, 10)));
+        verify(logService, never()).openLogStream(BUCKET, morning);
+        verify(logService).seekTime(BUCKET, noon, millis(12, 15, 0));
+        verify(logService).openLogStream(BUCKET, evening);
+    }
+
+    @Test void fileWithoutLeadingTimestampIsNotSkippedPast() throws IOException {
+        addFile("10.0.0.1", "app.log", "2024-05-01 08:00:00.000 morning\n");
+        addFile("10.0.0.1", "app.log.1", "no timestamp yet\n2024-05-01 12:00:00.000 noon\n");
+        addFile("10.0.0.1", "app.log.2", "2024-05-01 18:00:00.000 evening\n");
+
+        // The middle file may hold anything, so reading starts at the last file known to begin earlier
+        assertEquals(List.of("noon", "evening"), texts(read("11:00", null, null, 10)));
+        verify(logService).openLogStream(BUCKET, files.get(0));
+    }
+
+    @Test void recordsAreSplitByTheAppLayout() throws IOException {
+        // Lines whose timestamp is not at the start, so they only start records by the app's layout
+        parser = new LogLineParser("%p %d [%t] %c - %m");
+        addFile("10.0.0.1", "app.log", "INFO 2024-05-01 10:00:02.000 [main] c - A2\n"
+                + "WARN 2024-05-01 10:00:03.000 [main] c - A3\n  at continuation\n");
+        addFile("10.0.0.2", "app.log", "INFO 2024-05-01 10:00:01.000 [main] c - B1\n"
+                + "ERROR 2024-05-01 10:00:04.000 [main] c - B4\n");
+
+        List<String> texts = new ArrayList<>();
+        for (MergedLine line : read(null, null, null, 10).getLines()) {
+            texts.add(line.getText());
+        }
+        assertEquals(List.of("INFO 2024-05-01 10:00:01.000 [main] c - B1",
+                "INFO 2024-05-01 10:00:02.000 [main] c - A2",
+                "WARN 2024-05-01 10:00:03.000 [main] c - A3\n  at continuation",
+                "ERROR 2024-05-01 10:00:04.000 [main] c - B4"), texts);
+    }
+
+    @Test void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> read(null, null, "12345", 10));
+        assertThrows(IllegalArgumentException.class, () -> read(null, null, "abc:1", 10));
+        assertThrows(IllegalArgumentException.class, () -> read("25:00", null, null, 10));
+    }
+
+    private MergedPage read(String from, String to, String cursor, int limit) throws IOException {
+        return mergedLogService.readMerged(BUCKET, "prod", "app", DATE, from, to, cursor, limit);
+    }
+
+    private LogFileEntry addFile(String vmIp, String fileName, String content) {
+        String key = "prod/app/" + vmIp + "/" + DATE + "/" + fileName;
+        LogFileEntry entry = new LogFileEntry(key, fileName, Instant.EPOCH, content.length(), files.size(), "etag-" + files.size());
+        files.add(entry);
+        contents.put(key, content);
+        return entry;
+    }
+
+    private ByteArrayInputStream stream(LogFileEntry entry, long offset) {
+        byte[] bytes = contents.get(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+        return new ByteArrayInputStream(bytes, (int) offset, bytes.length - (int) offset);
+    }
+
+    // Record text without its timestamp
+    private static List<String> texts(MergedPage page) {
+        List<String> texts = new ArrayList<>();
+        for (MergedLine line : page.getLines()) {
+            texts.add(line.getText().substring("2024-05-01 10:00:00.000 ".length()));
+        }
+        return texts;
+    }
+
+    private static long millis(int hour, int minute, int second) {
+        return TimestampParser.toMillis(LocalDateTime.of(2024, 5, 1, hour, minute, second));
+    }
+}
@@ -0,0 +1,112 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinuteCountersTest {
+
+    @Test void widensToEarlierAndLaterMinutes() {
+        MinuteCounters counters = new MinuteCounters();
+        counters.add(600, 1, 10, LogLevel.INFO);
+        counters.add(602, 2, 20, LogLevel.WARN);
+        counters.add(590, 3, 30, LogLevel.ERROR);
+        counters.add(700, 4, 40, LogLevel.FATAL);
+        counters.add(600, 5, 50, null);
+
+        VolumeSeries series = series(counters, 1);
+        assertEquals(6, series.getLines()[600]);
+        assertEquals(60, series.getBytes()[600]);
+        assertEquals(2, series.getLines()[602]);
+        assertEquals(1, series.getWarnings()[602]);
+        assertEquals(3, series.getLines()[590]);
+        assertEquals(1, series.getErrors()[590]);
+        assertEquals(4, series.getLines()[700]);
+        assertEquals(1, series.getErrors()[700]);
+        assertEquals(15, sum(series.getLines()));
+    }
+
+    @Test void coversTheWholeDay() {
+        MinuteCounters counters = new MinuteCounters();
+        counters.add(MinuteCounters.MINUTES_PER_DAY - 1, 1, 1, null);
+        counters.add(0, 1, 1, null);
+        VolumeSeries series = series(counters, 60);
+        assertEquals(1, series.getLines()[0]);
+        assertEquals(1, series.getLines()[23]);
+    }
+
+    @Test void addAllMergesOverlappingRanges() {
+        MinuteCounters first = new MinuteCounters();
+        first.add(10, 1, 100, LogLevel.WARN);
+        first.add(12, 1, 100, null);
+        MinuteCounters second = new MinuteCounters();
+        second.add(5, 2, 200, LogLevel.ERROR);
+        second.add(12, 2, 200, LogLevel.WARN);
+
+        first.addAll(second);
+        first.addAll(new MinuteCounters());
+        VolumeSeries series = series(first, 1);
+        assertEquals(2, series.getLines()[5]);
+        assertEquals(1, series.getLines()[10]);
+        assertEquals(3, series.getLines()[12]);
+        assertEquals(300, series.getBytes()[12]);
+        assertEquals(1, series.getWarnings()[12]);
+        assertEquals(1, series.getErrors()[5]);
+    }
+
+    @Test void roundTripsThroughItsBinaryForm() throws IOException {
+        MinuteCounters counters = new MinuteCounters();
+        counters.add(100, 3, 300, LogLevel.WARN);
+        counters.add(90, 1, 10, LogLevel.ERROR);
+
+        MinuteCounters read = roundTrip(counters);
+        assertFalse(read.isEmpty());
+        VolumeSeries series = series(read, 1);
+        assertEquals(3, series.getLines()[100]);
+        assertEquals(300, series.getBytes()[100]);
+        assertEquals(1, series.getWarnings()[100]);
+        assertEquals(1, series.getErrors()[90]);
+
+        assertTrue(roundTrip(new MinuteCounters()).isEmpty());
+    }
+
+    @Test void rejectsCorruptRanges() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(MinuteCounters.MINUTES_PER_DAY - 1);
+            out.writeShort(2);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        assertThrows(IOException.class, () ->
+                MinuteCounters.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    private static MinuteCounters roundTrip(MinuteCounters counters) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            counters.writeTo(out);
+        }
+        return MinuteCounters.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static VolumeSeries series(MinuteCounters counters, int resolution) {
+        VolumeSeries series = new VolumeSeries(MinuteCounters.MINUTES_PER_DAY / resolution);
+        counters.addTo(series, resolution);
+        return series;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
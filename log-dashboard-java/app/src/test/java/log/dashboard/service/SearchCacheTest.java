@@ -0,0 +1,125 @@
+package log.dashboard.service;
+
+import log.dashboard.config.DashboardProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private static final String DATE = "2024-05-01";
+
+    private final DashboardProperties properties = new DashboardProperties();
+    private final SearchCache cache = new SearchCache(properties);
+
+    @Test void outcomesStayCurrentUntilTheObjectIsRewritten() {
+        LogFileEntry first = entry(1, "\"a\"", 100);
+        LogFileEntry second = entry(2, "\"b\"", 200);
+        put("timeout", LineFilter.NONE, outcomes(first, true, second, false));
+
+        Map<String, SearchCache.Outcome> cached = get("timeout", LineFilter.NONE, first, second);
+        assertTrue(cached.get(first.getKey()).isMatched());
+        assertFalse(cached.get(second.getKey()).isMatched());
+        assertEquals(1, cache.stats().getHits());
+
+        // Rewritten in place: same key and size, new ETag
+        LogFileEntry rewritten = entry(2, "\"c\"", 200);
+        cached = get("timeout", LineFilter.NONE, first, rewritten);
+        assertTrue(cached.get(first.getKey()).isCurrent(first));
+        assertFalse(cached.get(rewritten.getKey()).isCurrent(rewritten));
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test void objectsWithoutAnEtagAreComparedBySize() {
+        LogFileEntry growing = entry(1, null, 100);
+        put("timeout", LineFilter.NONE, outcomes(growing, false));
+
+        assertTrue(get("timeout", LineFilter.NONE, growing).get(growing.getKey()).isCurrent(growing));
+        LogFileEntry appended = entry(1, null, 150);
+        assertFalse(get("timeout", LineFilter.NONE, appended).get(appended.getKey()).isCurrent(appended));
+        // An ETag appearing later is a different version, even at the same size
+        LogFileEntry tagged = entry(1, "\"a\"", 100);
+        assertFalse(get("timeout", LineFilter.NONE, tagged).get(tagged.getKey()).isCurrent(tagged));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(2, cache.stats().getMisses());
+    }
+
+    @Test void newObjectIsAMissButKeepsTheOtherOutcomes() {
+        LogFileEntry first = entry(1, "\"a\"", 100);
+        put("timeout", LineFilter.NONE, outcomes(first, true));
+
+        LogFileEntry uploaded = entry(2, "\"b\"", 10);
+        Map<String, SearchCache.Outcome> cached = get("timeout", LineFilter.NONE, first, uploaded);
+        assertTrue(cached.get(first.getKey()).isMatched());
+        assertNull(cached.get(uploaded.getKey()));
+        assertEquals(0, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test void queryAndFilterArePartOfTheKey() {
+        LogFileEntry first = entry(1, "\"a\"", 100);
+        put("timeout", LineFilter.NONE, outcomes(first, true));
+
+        assertTrue(get("Timeout", LineFilter.NONE, first).isEmpty());
+        assertTrue(get("timeout", LineFilter.of("ERROR", DATE, null, null), first).isEmpty());
+        // The same window written differently is the same search
+        put("timeout", LineFilter.of(null, DATE, "10:00", "11:00"), outcomes(first, false));
+        assertFalse(get("timeout", LineFilter.of(null, DATE, "10:00:00", "11:00"), first).get(first.getKey()).isMatched());
+    }
+
+    @Test void putReplacesTheOutcomesAndKeepsASnapshot() {
+        LogFileEntry first = entry(1, "\"a\"", 100);
+        LogFileEntry second = entry(2, "\"b\"", 200);
+        put("timeout", LineFilter.NONE, outcomes(first, true, second, true));
+        Map<String, SearchCache.Outcome> outcomes = outcomes(first, false);
+        put("timeout", LineFilter.NONE, outcomes);
+        outcomes.clear();
+
+        Map<String, SearchCache.Outcome> cached = get("timeout", LineFilter.NONE, first);
+        assertFalse(cached.get(first.getKey()).isMatched());
+        assertNull(cached.get(second.getKey()));
+        assertThrows(UnsupportedOperationException.class, cached::clear);
+    }
+
+    @Test void leastRecentlyRepeatedSearchIsEvicted() {
+        properties.getSearchCache().setMaxEntries(2);
+        LogFileEntry first = entry(1, "\"a\"", 100);
+        put("one", LineFilter.NONE, outcomes(first, true));
+        put("two", LineFilter.NONE, outcomes(first, true));
+        // Repeating the first search makes the second the least recently used
+        get("one", LineFilter.NONE, first);
+        put("three", LineFilter.NONE, outcomes(first, true));
+
+        assertEquals(2, cache.stats().getEntries());
+        assertEquals(1, cache.stats().getEvictions());
+        assertFalse(get("one", LineFilter.NONE, first).isEmpty());
+        assertTrue(get("two", LineFilter.NONE, first).isEmpty());
+    }
+
+    private Map<String, SearchCache.Outcome> get(String query, LineFilter filter, LogFileEntry... logFiles) {
+        return cache.get("logs", "prod", "app", DATE, query, filter, List.of(logFiles));
+    }
+
+    private void put(String query, LineFilter filter, Map<String, SearchCache.Outcome> outcomes) {
+        cache.put("logs", "prod", "app", DATE, query, filter, outcomes);
+    }
+
+    private static Map<String, SearchCache.Outcome> outcomes(Object... entriesAndMatches) {
+        Map<String, SearchCache.Outcome> outcomes = new HashMap<>();
+        for (int i = 0; i < entriesAndMatches.length; i += 2) {
+            LogFileEntry entry = (LogFileEntry) entriesAndMatches[i];
+            outcomes.put(entry.getKey(), new SearchCache.Outcome(entry, (Boolean) entriesAndMatches[i + 1]));
+        }
+        return outcomes;
+    }
+
+    private static LogFileEntry entry(int sequence, String etag, long size) {
+        String fileName = "app-" + sequence + ".log";
+        return new LogFileEntry("prod/app/10.0.0.1/" + DATE + "/" + fileName, fileName, Instant.EPOCH, size, sequence, etag);
+    }
+}
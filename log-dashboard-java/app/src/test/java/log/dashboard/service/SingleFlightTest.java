@@ -0,0 +1,112 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test void concurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(flights, release, () -> {
+            calls.incrementAndGet();
+            awaitQuietly(release);
+            return "listing";
+        });
+        for (Future<String> result : results) {
+            assertEquals("listing", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        CacheStats stats = flights.stats();
+        assertEquals(1, stats.getMisses());
+        assertEquals(CALLERS - 1, stats.getHits());
+        assertEquals(0, stats.getEntries());
+    }
+
+    @Test void failureReachesEveryWaiter() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = runConcurrently(flights, release, () -> {
+            awaitQuietly(release);
+            throw new IOException("S3 unavailable");
+        });
+        for (Future<String> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+            assertEquals("S3 unavailable", e.getCause().getMessage());
+        }
+    }
+
+    @Test void uncheckedFailureIsRethrownAsIs() {
+        SingleFlight<String> flights = new SingleFlight<>();
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> flights.execute("key", () -> {
+                    throw new IllegalStateException("boom");
+                }));
+        assertEquals("boom", thrown.getMessage());
+    }
+
+    @Test void nothingIsKeptAfterACall() throws IOException {
+        SingleFlight<Integer> flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(1, flights.execute("key", calls::incrementAndGet));
+        assertEquals(2, flights.execute("key", calls::incrementAndGet));
+        // A failed call is not remembered either
+        assertThrows(IOException.class, () -> flights.execute("key", () -> {
+            throw new IOException("once");
+        }));
+        assertEquals(3, flights.execute("key", calls::incrementAndGet));
+    }
+
+    @Test void differentKeysDoNotShare() throws IOException {
+        SingleFlight<String> flights = new SingleFlight<>();
+        assertEquals("a", flights.execute("a", () -> "a"));
+        assertEquals("b", flights.execute("b", () -> "b"));
+        assertEquals(2, flights.stats().getMisses());
+        assertEquals(0, flights.stats().getHits());
+    }
+
+    // Starts CALLERS callers on one key; the first one's call blocks until all others are waiting on it
+    private static List<Future<String>> runConcurrently(SingleFlight<String> flights, CountDownLatch release,
+                                                        SingleFlight.Call<String> call) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flights.execute("key", call)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flights.stats().getHits() < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
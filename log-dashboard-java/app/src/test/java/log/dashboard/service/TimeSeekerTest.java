@@ -0,0 +1,143 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeSeekerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Enough one-second records, each followed by a stack trace line, for several probe windows
+    private static final int RECORDS = 20_000;
+
+    private final LogLineParser parser = new LogLineParser("%d %p [%t] %c - %m");
+
+    @Test void seekNeverSkipsARecordInTheWindow() throws IOException {
+        byte[] log = records(RECORDS);
+        for (int second : new int[] {1, 100, 4_321, 10_000, 19_999}) {
+            long from = millis(second);
+            long offset = TimeSeeker.seek(reader(log, new AtomicInteger()), log.length, from, parser);
+            assertTrue(offset == 0 || log[(int) offset - 1] == '\n', "not a line start: " + offset);
+            assertTrue(offset <= firstAtOrAfter(log, from), "skipped past " + second);
+            assertTrue(firstAtOrAfter(log, from) - offset <= 2L * TimeSeeker.PROBE_SIZE, "stopped too early for " + second);
+        }
+    }
+
+    @Test void seekLandsOnARecordStart() throws IOException {
+        byte[] log = records(RECORDS);
+        long offset = TimeSeeker.seek(reader(log, new AtomicInteger()), log.length, millis(12_345), parser);
+        assertTrue(offset > 0);
+        // Never on a continuation line, which would be read as part of the wrong record
+        assertTrue(parser.parse(log, (int) offset, lineEnd(log, (int) offset), new LogLineParser.ParsedLine()));
+    }
+
+    @Test void seekOutsideTheObject() throws IOException {
+        byte[] log = records(RECORDS);
+        assertEquals(0, TimeSeeker.seek(reader(log, new AtomicInteger()), log.length, millis(0), parser));
+        assertEquals(0, TimeSeeker.seek(reader(log, new AtomicInteger()), log.length, TimestampParser.NO_TIMESTAMP, parser));
+        // Past the last record the window is at most one probe before the end
+        long offset = TimeSeeker.seek(reader(log, new AtomicInteger()), log.length, millis(RECORDS + 1), parser);
+        assertTrue(log.length - offset <= TimeSeeker.PROBE_SIZE);
+    }
+
+    @Test void seekReadsLogarithmicallyManyProbes() throws IOException {
+        byte[] log = records(RECORDS);
+        AtomicInteger reads = new AtomicInteger();
+        TimeSeeker.seek(reader(log, reads), log.length, millis(7_000), parser);
+        assertTrue(reads.get() <= 10, "probes: " + reads.get());
+
+        // An object that fits a few probes is read from the start without probing
+        reads.set(0);
+        assertEquals(0, TimeSeeker.seek(reader(log, reads), TimeSeeker.PROBE_SIZE, millis(7_000), parser));
+        assertEquals(0, reads.get());
+    }
+
+    @Test void probeWithoutTimestampsMovesLeft() throws IOException {
+        // A stack trace longer than a probe sits between two records
+        StringBuilder text = new StringBuilder(line(1)).append('\n');
+        while (text.length() < 3 * TimeSeeker.PROBE_SIZE) {
+            text.append("\tat com.example.Worker.run(Worker.java:42)\n");
+        }
+        text.append(line(2)).append('\n');
+        byte[] log = text.toString().getBytes(StandardCharsets.US_ASCII);
+        assertEquals(0, TimeSeeker.seek(reader(log, new AtomicInteger()), log.length, millis(2), parser));
+    }
+
+    @Test void firstTimestampSkipsLeadingContinuationLines() throws IOException {
+        byte[] log = ("\tat com.example.Worker.run(Worker.java:42)\n" + line(5) + "\n" + line(6) + "\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        assertEquals(millis(5), TimeSeeker.firstTimestamp(reader(log, new AtomicInteger()), log.length, parser));
+    }
+
+    @Test void firstTimestampOfUnterminatedLastLine() throws IOException {
+        byte[] log = line(5).getBytes(StandardCharsets.US_ASCII);
+        assertEquals(millis(5), TimeSeeker.firstTimestamp(reader(log, new AtomicInteger()), log.length, parser));
+    }
+
+    @Test void firstTimestampMissing() throws IOException {
+        byte[] noTimestamps = "starting up\nstill starting\n".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(TimestampParser.NO_TIMESTAMP,
+                TimeSeeker.firstTimestamp(reader(noTimestamps, new AtomicInteger()), noTimestamps.length, parser));
+
+        // A line cut off by the end of the probe window is not parsed, even if its start looks like a timestamp
+        StringBuilder text = new StringBuilder("x".repeat(TimeSeeker.PROBE_SIZE - 10)).append('\n').append(line(5));
+        byte[] cutOff = text.append('\n').toString().getBytes(StandardCharsets.US_ASCII);
+        assertEquals(TimestampParser.NO_TIMESTAMP,
+                TimeSeeker.firstTimestamp(reader(cutOff, new AtomicInteger()), cutOff.length, parser));
+    }
+
+    private static byte[] records(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int second = 1; second <= count; second++) {
+            text.append(line(second)).append('\n');
+            text.append("\tat com.example.Worker.run(Worker.java:").append(second).append(")\n");
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String line(int second) {
+        return START.plusSeconds(second).format(FORMAT) + " INFO [worker] com.example.Worker - record " + second;
+    }
+
+    private static long millis(int second) {
+        return TimestampParser.toMillis(START.plusSeconds(second));
+    }
+
+    // Offset of the first record at or after the given time, by a full scan
+    private long firstAtOrAfter(byte[] log, long fromMillis) {
+        LogLineParser.ParsedLine parsed = new LogLineParser.ParsedLine();
+        int start = 0;
+        while (start < log.length) {
+            int end = lineEnd(log, start);
+            if (parser.parse(log, start, end, parsed) && parsed.timestamp >= fromMillis) {
+                return start;
+            }
+            start = end + 1;
+        }
+        return log.length;
+    }
+
+    private static int lineEnd(byte[] log, int start) {
+        int end = start;
+        while (end < log.length && log[end] != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private static TimeSeeker.RangeReader reader(byte[] log, AtomicInteger reads) {
+        return (position, buffer, length) -> {
+            reads.incrementAndGet();
+            int count = (int) Math.min(length, log.length - position);
+            System.arraycopy(log, (int) position, buffer, 0, count);
+            return count;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadManifestTest {
+
+    private static final String PREFIX = "prod/app/10.0.0.1/2024-05-01/";
+
+    @Test void keyIsNextToTheDatePrefix() {
+        assertEquals("prod/app/10.0.0.1/2024-05-01.manifest.json", UploadManifest.keyFor(PREFIX));
+    }
+
+    @Test void parsesEntriesInSequenceOrder() throws IOException {
+        List<LogFileEntry> entries = parse(manifest(
+                file("app-01-05-2024-10.log", 1000, "10", "\"e10\""),
+                file("app-01-05-2024-1.log", 100, "1", "\"e1\""),
+                file("app-01-05-2024-2.log", 200, "2", null)));
+
+        assertEquals(List.of("app-01-05-2024-1.log", "app-01-05-2024-2.log", "app-01-05-2024-10.log"), fileNames(entries));
+        LogFileEntry first = entries.get(0);
+        assertEquals(PREFIX + "app-01-05-2024-1.log", first.getKey());
+        assertEquals(100, first.getSize());
+        assertEquals(1, first.getSequence());
+        assertEquals("\"e1\"", first.getEtag());
+        assertEquals(Instant.parse("2024-05-01T10:00:00Z"), first.getLastModified());
+        assertNull(entries.get(1).getEtag());
+    }
+
+    @Test void sequenceIsDerivedFromTheNameWhenMissingOrNotANumber() throws IOException {
+        List<LogFileEntry> entries = parse(manifest(
+                file("app.log", 10, null, "\"a\""),
+                file("app-01-05-2024-7.log", 10, null, "\"b\""),
+                file("app-01-05-2024-3.log", 10, "\"3\"", "\"c\"")));
+
+        assertEquals(List.of("app-01-05-2024-3.log", "app-01-05-2024-7.log", "app.log"), fileNames(entries));
+        assertEquals(3, entries.get(0).getSequence());
+        assertEquals(7, entries.get(1).getSequence());
+        // Same as for a listed object without a sequence: sorts last
+        assertEquals(Integer.MAX_VALUE, entries.get(2).getSequence());
+    }
+
+    @Test void skipsEntriesWithoutAKeyInThePrefix() throws IOException {
+        List<LogFileEntry> entries = parse(manifest(
+                "{\"size\":1,\"lastModified\":\"2024-05-01T10:00:00Z\"}",
+                "{\"key\":null,\"size\":1,\"lastModified\":\"2024-05-01T10:00:00Z\"}",
+                "{\"key\":\"prod/app/10.0.0.2/2024-05-01/app-01-05-2024-1.log\",\"lastModified\":\"2024-05-01T10:00:00Z\"}",
+                "{\"key\":\"" + PREFIX + "app-01-05-2024-1.log\",\"lastModified\":\"2024-05-01T10:00:00Z\"}"));
+
+        assertEquals(List.of("app-01-05-2024-1.log"), fileNames(entries));
+        assertEquals(0, entries.get(0).getSize());
+    }
+
+    @Test void rejectsMalformedManifests() {
+        assertThrows(IOException.class, () -> parse("{\"files\":[{\"key\":"));
+        assertThrows(IOException.class, () -> parse("not json"));
+        assertThrows(IOException.class, () -> parse("{\"version\":1}"));
+        assertThrows(IOException.class, () -> parse("{\"files\":{}}"));
+        assertThrows(IOException.class, () -> parse(manifest(
+                "{\"key\":\"" + PREFIX + "app-01-05-2024-1.log\",\"size\":1}")));
+        assertThrows(IOException.class, () -> parse(manifest(
+                "{\"key\":\"" + PREFIX + "app-01-05-2024-1.log\",\"size\":1,\"lastModified\":\"yesterday\"}")));
+    }
+
+    private static List<LogFileEntry> parse(String json) throws IOException {
+        return UploadManifest.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), PREFIX);
+    }
+
+    private static String manifest(String... files) {
+        return "{\"version\":1,\"prefix\":\"" + PREFIX + "\",\"updatedAt\":\"2024-05-01T10:00:01Z\",\"files\":["
+                + String.join(",", files) + "]}";
+    }
+
+    // As the agent writes it; a null sequence is left out
+    private static String file(String fileName, long size, String sequence, String etag) {
+        return "{\"key\":\"" + PREFIX + fileName + "\",\"size\":" + size
+                + (sequence == null ? "" : ",\"sequence\":" + sequence)
+                + ",\"etag\":" + (etag == null ? "null" : "\"" + etag.replace("\"", "\\\"") + "\"")
+                + ",\"lastModified\":\"2024-05-01T10:00:00Z\"}";
+    }
+
+    private static List<String> fileNames(List<LogFileEntry> entries) {
+        return entries.stream().map(LogFileEntry::getFileName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,113 @@
+package log.dashboard.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VolumeScanTaskTest {
+
+    private static final String BUCKET = "logs";
+    private static final long DAY_START = TimestampParser.toMillis(LocalDateTime.of(2024, 5, 1, 0, 0));
+    private static final String STACK_LINE = "\tat com.example.Worker.run(Worker.java:42)\n";
+
+    private final LogService logService = mock(LogService.class);
+    private final LogLineParser parser = new LogLineParser("%d %p [%t] %c - %m");
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test void countsRecordsWithTheirContinuationLines() throws IOException {
+        String log = record(0, "INFO") + record(0, "WARN") + STACK_LINE + STACK_LINE
+                + record(1, "ERROR") + STACK_LINE + record(3, "FATAL");
+        VolumeSeries series = scan(log, log.length());
+
+        assertEquals(4, series.getLines()[0]);
+        assertEquals(2, series.getLines()[1]);
+        assertEquals(0, series.getLines()[2]);
+        assertEquals(1, series.getLines()[3]);
+        assertEquals(1, series.getWarnings()[0]);
+        assertEquals(1, series.getErrors()[1]);
+        assertEquals(1, series.getErrors()[3]);
+        assertEquals(log.length(), sum(series.getBytes()));
+        assertEquals((record(1, "ERROR") + STACK_LINE).length(), series.getBytes()[1]);
+    }
+
+    @Test void blockSizeDoesNotChangeCounts() throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (int minute = 0; minute < 60; minute++) {
+            log.append(record(minute, minute % 3 == 0 ? "WARN" : "INFO"));
+            // Stack traces of varying length, so block edges fall inside them at different lines
+            log.append(STACK_LINE.repeat(minute % 5));
+        }
+        String text = log.toString();
+        VolumeSeries whole = scan(text, text.length());
+        for (long blockSize : new long[] {1, 7, 43, 100, 1_000, 4_096}) {
+            VolumeSeries split = scan(text, blockSize);
+            assertArrayEquals(whole.getLines(), split.getLines(), "lines, block size " + blockSize);
+            assertArrayEquals(whole.getBytes(), split.getBytes(), "bytes, block size " + blockSize);
+            assertArrayEquals(whole.getWarnings(), split.getWarnings(), "warnings, block size " + blockSize);
+        }
+        assertEquals(text.length(), sum(whole.getBytes()));
+    }
+
+    @Test void continuationLinesReachAcrossManyBlocks() throws IOException {
+        // One record whose stack trace spans several blocks that contain no record of their own
+        String log = record(5, "ERROR") + STACK_LINE.repeat(40) + record(6, "INFO");
+        VolumeSeries series = scan(log, 64);
+        assertEquals(41, series.getLines()[5]);
+        assertEquals(1, series.getLines()[6]);
+        assertEquals(1, series.getErrors()[5]);
+    }
+
+    @Test void continuationsOfRecordsOutsideTheDayAreNotCounted() throws IOException {
+        String previousDay = "2024-04-30 23:59:59 INFO [main] c - late\n";
+        String log = STACK_LINE + previousDay + STACK_LINE.repeat(20) + record(0, "INFO") + STACK_LINE;
+        for (long blockSize : new long[] {30, log.length()}) {
+            VolumeSeries series = scan(log, blockSize);
+            // Neither the lines before the first record nor those of the earlier day's record are counted
+            assertEquals(2, sum(series.getLines()), "block size " + blockSize);
+            assertEquals((record(0, "INFO") + STACK_LINE).length(), sum(series.getBytes()));
+        }
+    }
+
+    private VolumeSeries scan(String log, long blockSize) throws IOException {
+        byte[] bytes = log.getBytes(StandardCharsets.US_ASCII);
+        LogFileEntry entry = new LogFileEntry("prod/app/10.0.0.1/2024-05-01/app.log", "app.log",
+                Instant.EPOCH, bytes.length, 0, "etag");
+        when(logService.openLogRange(eq(BUCKET), eq(entry), anyLong())).thenAnswer(invocation -> {
+            int offset = (int) (long) invocation.<Long>getArgument(2);
+            return new ByteArrayInputStream(bytes, offset, bytes.length - offset);
+        });
+        VolumeScanTask.BlockCounts counts = pool.invoke(new VolumeScanTask(logService, BUCKET, entry, parser, DAY_START, blockSize));
+        VolumeSeries series = new VolumeSeries(MinuteCounters.MINUTES_PER_DAY);
+        counts.counters.addTo(series, 1);
+        return series;
+    }
+
+    private static String record(int minute, String level) {
+        return String.format("2024-05-01 00:%02d:00 %s [main] com.example.Worker - record\n", minute, level);
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}